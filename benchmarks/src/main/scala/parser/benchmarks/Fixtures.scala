@@ -0,0 +1,28 @@
+package parser.benchmarks
+
+import java.io.File
+
+/**
+  * Singleton object that finds the PDF documents bundled with the reader, used as fixtures by the benchmarks.
+  * The documents are looked up in the directory given by the "flipper.fixtures" system property, and otherwise in the
+  * reader's resources, relative either to the root of the project or to the benchmarks module
+  */
+object Fixtures {
+
+  private val directories = sys.props.get("flipper.fixtures").toList ++
+    List("./reader/src/main/resources", "../reader/src/main/resources")
+
+  /**
+    * Method that finds one of the bundled documents
+    *
+    * @param name - The name of the document, as in "MegaTester.pdf"
+    * @throws IllegalArgumentException If the document can't be found in any of the directories
+    * @return the File of the document
+    */
+  @throws[IllegalArgumentException]
+  def file(name: String): File = {
+    val candidates = directories.map(dir => new File(dir, name))
+    candidates.find(_.isFile).getOrElse(
+      throw new IllegalArgumentException("Fixture " + name + " not found in " + directories.mkString(", ")))
+  }
+}
@@ -0,0 +1,51 @@
+package parser.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+import parser.extraction.Extractor._
+import parser.utils._
+
+/**
+  * Benchmarks of the keyword matching over the text of the bundled documents, one for each kind of Specification.
+  * The text is read once per trial, so only the matching is measured
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+class MatchingBenchmark {
+
+  @Param(Array("MegaTester.pdf", "weightTest.pdf"))
+  var fixture: String = _
+
+  private var text: Option[String] = _
+
+  @Setup
+  def setup(): Unit = text = readPDF(Fixtures.file(fixture), readImages = false)
+
+  /**
+    * A keyword with a known regular expression, that doesn't need the text to be tagged
+    */
+  @Benchmark
+  def knownRegEx(): MatchedPair = getAllMatchedValues(text, Map("mail" -> Noun()), includeDuplicates = false)
+
+  /**
+    * A keyword without a known regular expression, that needs the text to be tagged with OpenNLP
+    */
+  @Benchmark
+  def posTag(): MatchedPair = getAllMatchedValues(text, Map("weight" -> Number()), includeDuplicates = false)
+
+  @Benchmark
+  def oneOf(): MatchedPair =
+    getAllMatchedValues(text, Map("color" -> OneOf(List("blue", "red", "green"))), includeDuplicates = false)
+
+  @Benchmark
+  def multipleOf(): MatchedPair =
+    getAllMatchedValues(text, Map("color" -> MultipleOf(List("blue", "red", "green"))), includeDuplicates = true)
+
+  @Benchmark
+  def allObjects(): List[MatchedPair] = getAllObjects(text, Map("name" -> ProperNoun(), "mail" -> Noun(true)))
+}
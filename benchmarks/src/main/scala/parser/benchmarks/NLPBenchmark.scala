@@ -0,0 +1,38 @@
+package parser.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+import parser.extraction.Extractor._
+import parser.utils.OpenNLP._
+import parser.utils.SpellChecker._
+
+/**
+  * Benchmarks of the natural language processing steps the reader runs over every text: POS tagging,
+  * language detection and spell-checking (which is only run over the text of the images, but is the slowest of the three)
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+class NLPBenchmark {
+
+  @Param(Array("weightTest.pdf", "weightTestPt.pdf"))
+  var fixture: String = _
+
+  private var text: String = _
+
+  @Setup
+  def setup(): Unit = text = readPDF(Fixtures.file(fixture), readImages = false).getOrElse("")
+
+  @Benchmark
+  def tag(): (Array[String], Array[String]) = tagText(text)
+
+  @Benchmark
+  def language(): String = detectLanguage(text)
+
+  @Benchmark
+  def spellCheck(): String = correctText(text)
+}
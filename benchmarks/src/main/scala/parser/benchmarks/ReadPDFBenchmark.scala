@@ -0,0 +1,33 @@
+package parser.benchmarks
+
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations._
+import parser.extraction.Extractor._
+
+/**
+  * Benchmarks of readPDF over the bundled documents, with and without reading the text of their images
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+class ReadPDFBenchmark {
+
+  @Param(Array("MegaTester.pdf", "weightTest.pdf", "imgTester.pdf", "bla.pdf"))
+  var fixture: String = _
+
+  private var file: File = _
+
+  @Setup
+  def setup(): Unit = file = Fixtures.file(fixture)
+
+  @Benchmark
+  def readText(): Option[String] = readPDF(file, readImages = false)
+
+  @Benchmark
+  def readTextAndImages(): Option[String] = readPDF(file)
+}
@@ -1,6 +1,10 @@
 package parser.conversion;
 
+import instrumentation.AsyncExecution;
+
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class ConverterJava {
 
@@ -15,7 +19,22 @@ public class ConverterJava {
     public Boolean convertPDFtoIMG(File file, FileType fileType) throws IllegalArgumentException {
         if (fileType == null)
             throw new IllegalArgumentException("File type must be one of png, jpg, gif or jpeg");
-        return Converter.convertPDFtoIMG(file, fileType);
+        return Converter.convertPDFtoIMG(file, fileType, Converter.DefaultImageDir());
+    }
+
+    /**
+     * Method that converts a pdf file into images written to the given directory
+     *
+     * @param file     - The PDF file to be converted
+     * @param fileType - FileType with one of the possible file types of the Enum FileType to be converted into
+     * @param outDir   - The directory in which to write the images
+     * @return - A Boolean saying if the conversion was successful
+     * @throws IllegalArgumentException if the specified fileType did not equal the supported file types
+     */
+    public Boolean convertPDFtoIMG(File file, FileType fileType, File outDir) throws IllegalArgumentException {
+        if (fileType == null)
+            throw new IllegalArgumentException("File type must be one of png, jpg, gif or jpeg");
+        return Converter.convertPDFtoIMG(file, fileType, outDir);
     }
 
     /**
@@ -25,6 +44,69 @@ public class ConverterJava {
      * @return - A Boolean saying if the conversion was successful
      */
     public Boolean convertPDFtoODT(File file) {
-        return Converter.convertPDFtoODT(file);
+        return Converter.convertPDFtoODT(file, Converter.DefaultODTFile());
+    }
+
+    /**
+     * Method that creates the given odf file with the information taken from a pdf (Note: does not maintain full formatting)
+     *
+     * @param file    - The PDF file to be converted
+     * @param odtFile - The ODT file to write
+     * @return - A Boolean saying if the conversion was successful
+     */
+    public Boolean convertPDFtoODT(File file, File odtFile) {
+        return Converter.convertPDFtoODT(file, odtFile);
+    }
+
+    /**
+     * Asynchronous variant of convertPDFtoIMG, running on the default executor (a pool bounded by the number of processors).
+     * Cancelling the returned future stops the rendering between pages
+     *
+     * @param file     - The PDF file to be converted
+     * @param fileType - FileType with one of the possible file types of the Enum FileType to be converted into
+     * @return - A CompletableFuture completed with a Boolean saying if the conversion was successful
+     */
+    public CompletableFuture<Boolean> convertPDFtoIMGAsync(File file, FileType fileType) {
+        return convertPDFtoIMGAsync(file, fileType, AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous variant of convertPDFtoIMG, running on the caller's executor.
+     * Cancelling the returned future stops the rendering between pages
+     *
+     * @param file     - The PDF file to be converted
+     * @param fileType - FileType with one of the possible file types of the Enum FileType to be converted into
+     * @param executor - The executor in which to convert the file
+     * @return - A CompletableFuture completed with a Boolean saying if the conversion was successful
+     */
+    public CompletableFuture<Boolean> convertPDFtoIMGAsync(File file, FileType fileType, Executor executor) {
+        return AsyncExecution.supplyAsync(() -> convertPDFtoIMG(file, fileType), executor);
+    }
+
+    /**
+     * Asynchronous variant of convertPDFtoODT, running on the default executor (a pool bounded by the number of processors).
+     * Each conversion keeps its intermediate files apart, so conversions into different files can run at the same time.
+     * Cancelling the returned future stops the conversion between its stages and pages
+     *
+     * @param file    - The PDF file to be converted
+     * @param odtFile - The ODT file to write
+     * @return - A CompletableFuture completed with a Boolean saying if the conversion was successful
+     */
+    public CompletableFuture<Boolean> convertPDFtoODTAsync(File file, File odtFile) {
+        return convertPDFtoODTAsync(file, odtFile, AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous variant of convertPDFtoODT, running on the caller's executor.
+     * Each conversion keeps its intermediate files apart, so conversions into different files can run at the same time.
+     * Cancelling the returned future stops the conversion between its stages and pages
+     *
+     * @param file     - The PDF file to be converted
+     * @param odtFile  - The ODT file to write
+     * @param executor - The executor in which to convert the file
+     * @return - A CompletableFuture completed with a Boolean saying if the conversion was successful
+     */
+    public CompletableFuture<Boolean> convertPDFtoODTAsync(File file, File odtFile, Executor executor) {
+        return AsyncExecution.supplyAsync(() -> convertPDFtoODT(file, odtFile), executor);
     }
 }
@@ -1,8 +1,13 @@
 package parser.conversion
 
 import java.io.{File, PrintWriter}
+import java.nio.file.{Files, Path}
+import java.util.Comparator
+import java.util.concurrent.CancellationException
+
 import parser.extraction.FileHandler._
 import com.google.common.collect.Iterators
+import instrumentation.{AsyncExecution, Instruments}
 import javax.imageio.ImageIO
 import org.apache.pdfbox.rendering.PDFRenderer
 import org.fit.pdfdom.{PDFDomTree, PDFDomTreeConfig}
@@ -13,36 +18,59 @@ import parser.utils.ImageProcessing._
 import scala.io.Source
 
 /**
-  * Singleton object that implements the functions regarding the conversion of pdf into other file types
+  * Singleton object that implements the functions regarding the conversion of pdf into other file types.
+  *
+  * Every conversion writes to the output location it is given, and the ODT conversion keeps its intermediate HTML and
+  * images in a temporary directory of its own, so conversions with different output locations can run at the same time
   */
 object Converter {
 
+  /**
+    * The directory the images are written to when no other is given
+    */
+  val DefaultImageDir: File = new File("./target/PDFtoIMG")
+
+  /**
+    * The HTML file written when no other is given
+    */
+  val DefaultHTMLFile: File = new File("out.html")
+
+  /**
+    * The ODT file written when no other is given
+    */
+  val DefaultODTFile: File = new File("out.odt")
+
   /**
     * Method that converts a pdf file into a png image
     *
     * @param file     - The PDF file to be converted
     * @param fileType - FileType with one of the possible file types of the Enum FileType to be converted into
+    * @param outDir   - Optional parameter - The directory in which to write the images, as Converted_Page<page>_<time>.<fileType>
     * @return - A Boolean saying if the conversion was successful
     * @throws IllegalArgumentException if the specified fileType did not equal the supported file types
     */
   @throws[IllegalArgumentException]
-  def convertPDFtoIMG(file: File, fileType: FileType): Boolean = {
+  def convertPDFtoIMG(file: File, fileType: FileType, outDir: File = DefaultImageDir): Boolean = {
     require(fileType != null, "File type must be one of png, jpg, gif or jpeg")
 
     val pdfOption = loadPDF(file)
     pdfOption match {
       case Some(pdf) =>
         val renderer = new PDFRenderer(pdf)
-        val dir = new File("./target/PDFtoIMG")
-        if (!dir.exists) dir.mkdirs
+        if (!outDir.exists) outDir.mkdirs
         try {
           for (i <- 0 until pdf.getNumberOfPages) {
-            val image = renderer.renderImage(i)
-            ImageIO.write(image, fileType.toString, new File("./target/PDFtoIMG/Converted_Page" + i + "_" + System.nanoTime() + "." + fileType.toString))
+            AsyncExecution.checkInterrupted() //stop between pages if the conversion was cancelled
+            val image = Instruments.time("converter.render", () => renderer.renderImage(i))
+            Instruments.time("converter.write", () => ImageIO.write(image, fileType.toString, new File(outDir, "Converted_Page" + i + "_" + System.nanoTime() + "." + fileType.toString)))
+            Instruments.count("converter.pages", 1)
           }
           true
         } catch {
+          case e: CancellationException => throw e
           case e: Exception => e.printStackTrace(); false
+        } finally {
+          pdf.close()
         }
       case _ => false
     }
@@ -50,31 +78,44 @@ object Converter {
   }
 
   /**
-    * Method that creates a odf file with the information taken from a pdf (Note: does not maintain full formatting)
+    * Method that creates a odf file with the information taken from a pdf (Note: does not maintain full formatting).
+    * The intermediate HTML and images are kept in a temporary directory, deleted once the conversion is done
     *
-    * @param file - The PDF file to be converted
+    * @param file    - The PDF file to be converted
+    * @param outFile - Optional parameter - The ODT file to write
     * @return - A Boolean saying if the conversion was successful
     */
-  def convertPDFtoODT(file: File): Boolean = {
-    convertPDFtoHTML(file) && convertHTMLtoODT(file) && cleanImageDir()
+  def convertPDFtoODT(file: File, outFile: File = DefaultODTFile): Boolean = {
+    AsyncExecution.checkInterrupted() //don't start converting if the conversion was cancelled
+    val workDir = Files.createTempDirectory("flipper-odt")
+    try {
+      val html = workDir.resolve("out.html").toFile
+      convertPDFtoHTML(file, html) && convertHTMLtoODT(file, html, workDir.resolve("images").toFile, outFile)
+    } finally {
+      deleteDirectory(workDir)
+    }
   }
 
   /**
     * Method that creates a html file with the information from a pdf
     *
-    * @param file - The PDF file to be converted
+    * @param file    - The PDF file to be converted
+    * @param outFile - Optional parameter - The HTML file to write
+    * @return - A Boolean saying if the conversion was successful
     */
-  private def convertPDFtoHTML(file: File): Boolean = {
-    val outfile = "out.html"
+  def convertPDFtoHTML(file: File, outFile: File = DefaultHTMLFile): Boolean = {
     val config = PDFDomTreeConfig.createDefaultConfig
     val documentOption = loadPDF(file)
     documentOption match {
       case Some(document) =>
-        val parser = new PDFDomTree(config)
-        val output = new PrintWriter(outfile, "utf-8")
-        parser.writeText(document, output)
-        output.close()
-        document.close()
+        try {
+          val parser = new PDFDomTree(config)
+          val output = new PrintWriter(outFile, "utf-8")
+          try parser.writeText(document, output)
+          finally output.close()
+        } finally {
+          document.close()
+        }
         true
       case _ => false
     }
@@ -84,9 +125,12 @@ object Converter {
   /**
     * Method that creates a odt file from a html previously converted from a pdf
     *
-    * @param file - The PDF file to be converted
+    * @param file     - The PDF file to be converted
+    * @param html     - The HTML file converted from the pdf
+    * @param imageDir - The directory in which to extract the images of the pdf
+    * @param outFile  - The ODT file to write
     */
-  private def convertHTMLtoODT(file: File): Boolean = {
+  private def convertHTMLtoODT(file: File, html: File, imageDir: File, outFile: File): Boolean = {
 
     /**
       * Auxiliary method that iterates through the html lines, parses the information and returns the converted odt file
@@ -109,6 +153,7 @@ object Converter {
 
       group match {
         case "div class=\"page\"" =>
+          AsyncExecution.checkInterrupted() //stop between pages if the conversion was cancelled
           if (line.contains("page_0")) {} else {
             document.addPageBreak()
           }
@@ -151,21 +196,19 @@ object Converter {
 
     }
 
-    val bufferedSource = Source.fromFile(new File("out.html"))
+    val bufferedSource = Source.fromFile(html, "utf-8")
     val htmlLines = bufferedSource.getLines.toList
     bufferedSource.close()
     val documentOption = loadPDF(file)
     documentOption match {
       case Some(pdf) =>
-        extractImgs(pdf)
+        val imgs = extractImgs(pdf, imageDir).getOrElse(List()).reverse //extracted from the last page to the first
         pdf.close()
-        val dir = new File("./target/images")
-
-        val imgs = if (dir.exists)dir.listFiles.filter(_.isFile).toList.reverse else List()
+        AsyncExecution.checkInterrupted() //stop before writing the odt if the conversion was cancelled
 
         val newOdt = recFunc(htmlLines, "", imgs, TextDocument.newTextDocument())
 
-        newOdt.save("out.odt")
+        newOdt.save(outFile)
         true
       case _ => false
     }
@@ -173,14 +216,13 @@ object Converter {
   }
 
   /**
-    * Method that deletes all files from the image folder
+    * Auxiliary method that deletes a directory and everything inside it
+    *
+    * @param dir - The directory to delete
     */
-  private def cleanImageDir(): Boolean = {
-    val dir = new File("./target/images")
-    if (dir.exists) {
-      val files = dir.listFiles.filter(_.isFile).toList
-      files.foreach(_.delete)
-    }
-    true //should we send false if the foulder does not exist?
+  private def deleteDirectory(dir: Path): Unit = {
+    val paths = Files.walk(dir)
+    try paths.sorted(Comparator.reverseOrder[Path]()).forEach(path => path.toFile.delete())
+    finally paths.close()
   }
 }
\ No newline at end of file
@@ -4,6 +4,10 @@ import junit.framework.TestCase;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class ConverterJavaSuite extends TestCase {
     protected File validFile = new File("./converter/src/main/resources/cv.pdf");
@@ -58,4 +62,37 @@ public class ConverterJavaSuite extends TestCase {
 //        cj.convertPDFtoODT(null);
         assert (!cj.convertPDFtoODT(new File("")) && !cj.convertPDFtoODT(null));
     }
+
+    /**
+     * Tests that ODT conversions into different files can run at the same time, each writing its own complete file
+     */
+    @Test
+    public void testConvertPDFtoODTAsyncInParallel() throws Exception {
+        File first = File.createTempFile("first", ".odt");
+        File second = File.createTempFile("second", ".odt");
+        first.deleteOnExit();
+        second.deleteOnExit();
+        CompletableFuture<Boolean> firstConversion = cj.convertPDFtoODTAsync(validFile, first);
+        CompletableFuture<Boolean> secondConversion = cj.convertPDFtoODTAsync(validFile, second);
+        assert (firstConversion.get(5, TimeUnit.MINUTES) && secondConversion.get(5, TimeUnit.MINUTES));
+        assert (first.length() > 0 && first.length() == second.length());
+    }
+
+    /**
+     * Tests that an ODT conversion stops when its thread is interrupted, as cancelling the future does, without writing the file
+     */
+    @Test
+    public void testConvertPDFtoODTAsyncStopsWhenInterrupted() throws Exception {
+        File odt = new File(System.getProperty("java.io.tmpdir"), "interrupted_" + System.nanoTime() + ".odt");
+        Executor interrupted = task -> new Thread(() -> {
+            Thread.currentThread().interrupt();
+            task.run();
+        }).start();
+        try {
+            cj.convertPDFtoODTAsync(validFile, odt, interrupted).get(1, TimeUnit.MINUTES);
+            fail("An interrupted conversion wrote the document");
+        } catch (CancellationException e) {
+            assert ("The operation was cancelled".equals(e.getMessage()) && !odt.exists());
+        }
+    }
 }
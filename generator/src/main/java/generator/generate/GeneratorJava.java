@@ -1,9 +1,18 @@
 package generator.generate;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import generator.utils.*;
+import instrumentation.AsyncExecution;
+import scala.Option;
 import scala.collection.JavaConverters;
 
 public class GeneratorJava {
@@ -114,6 +123,239 @@ public class GeneratorJava {
             return Generator.convertJSONtoPDFWithCSS(contentJSON, cssString);
     }
 
+    /**
+     * Method that receives a content map and converts it into a PDF document written to the given OutputStream, without using any files.
+     * The content keeps the map's iteration order (the insertion order of a LinkedHashMap).
+     * The stream is not closed, so the caller can keep writing to it or close it
+     *
+     * @param contentMap - The content map to be converted into a PDF document
+     * @param cssString  - The additional String containing the the CSS to be included in the HTML file
+     * @param out        - The OutputStream to write the PDF document to
+     * @return a Boolean saying if the conversion from Map to PDF was successful or not
+     */
+    public boolean convertMapToPDF(Map<String, Content> contentMap, String cssString, OutputStream out) {
+        return Generator.convertMapToPDF(contentMapToSeq(contentMap), out, cssString, noFormatting(), OutputProfile.Default());
+    }
+
+    /**
+     * Method that receives a content map and converts it into a PDF document written to the given OutputStream,
+     * compressed as the OutputProfile says (like OutputProfile.ArchiveCompact() or OutputProfile.Fast()).
+     * The content keeps the map's iteration order. The stream is not closed, so the caller can keep writing to it or close it
+     *
+     * @param contentMap - The content map to be converted into a PDF document
+     * @param cssString  - The additional String containing the the CSS to be included in the HTML file
+     * @param out        - The OutputStream to write the PDF document to
+     * @param profile    - How the PDF document is compressed
+     * @return a Boolean saying if the conversion from Map to PDF was successful or not
+     */
+    public boolean convertMapToPDF(Map<String, Content> contentMap, String cssString, OutputStream out, OutputProfile profile) {
+        return Generator.convertMapToPDF(contentMapToSeq(contentMap), out, cssString, noFormatting(), profile);
+    }
+
+    /**
+     * Method that receives a content map and converts it into the bytes of a PDF document, without using any files.
+     * The content keeps the map's iteration order (the insertion order of a LinkedHashMap)
+     *
+     * @param contentMap - The content map to be converted into a PDF document
+     * @param cssString  - The additional String containing the the CSS to be included in the HTML file
+     * @return the bytes of the PDF document, or an empty array if the conversion failed
+     */
+    public byte[] convertMapToPDFBytes(Map<String, Content> contentMap, String cssString) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean converted = Generator.convertMapToPDF(contentMapToSeq(contentMap), out, cssString, noFormatting(), OutputProfile.Default());
+        return converted ? out.toByteArray() : new byte[0];
+    }
+
+    /**
+     * Method that receives a JSON string to be parsed and converted into a PDF document written to the given OutputStream,
+     * without using any files. The stream is not closed, so the caller can keep writing to it or close it
+     *
+     * @param contentJSON - The Json string to be converted into a PDF document
+     * @param out         - The OutputStream to write the PDF document to
+     * @return a Boolean saying if the conversion from JSON to PDF was successful or not
+     */
+    public boolean convertJSONtoPDF(String contentJSON, OutputStream out) {
+        if (contentJSON.isEmpty())
+            return false;
+        else
+            return Generator.convertJSONtoPDF(contentJSON, out, "", "", OutputProfile.Default());
+    }
+
+    /**
+     * Method that receives a JSON string to be parsed and converted into the bytes of a PDF document, without using any files
+     *
+     * @param contentJSON - The Json string to be converted into a PDF document
+     * @return the bytes of the PDF document, or an empty array if the conversion failed
+     */
+    public byte[] convertJSONtoPDFBytes(String contentJSON) {
+        if (contentJSON.isEmpty())
+            return new byte[0];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        return convertJSONtoPDF(contentJSON, out) ? out.toByteArray() : new byte[0];
+    }
+
+    /**
+     * Method that receives a content map and converts it straight into PDF elements, without the HTML intermediate,
+     * written to the given OutputStream. The content keeps the map's iteration order (the insertion order of a LinkedHashMap).
+     * The stream is not closed, so the caller can keep writing to it or close it
+     *
+     * @param contentMap - The content map to be converted into a PDF document
+     * @param config     - The config map specifying simple styling details to be implemented in the PDF conversion
+     * @param out        - The OutputStream to write the PDF document to
+     * @return a Boolean saying if the conversion from Map to PDF was successful or not
+     */
+    public boolean convertMapToPDFDirect(Map<String, Content> contentMap, Map<String, Configuration> config, OutputStream out) {
+        return Generator.convertMapToPDFDirect(contentMapToSeq(contentMap), out, configMapToScala(config), OutputProfile.Default());
+    }
+
+    /**
+     * Method that receives a content map and converts it straight into PDF elements, without the HTML intermediate,
+     * written to the given OutputStream and compressed as the OutputProfile says. The content keeps the map's iteration order.
+     * The stream is not closed
+     *
+     * @param contentMap - The content map to be converted into a PDF document
+     * @param config     - The config map specifying simple styling details to be implemented in the PDF conversion
+     * @param out        - The OutputStream to write the PDF document to
+     * @param profile    - How the PDF document is compressed
+     * @return a Boolean saying if the conversion from Map to PDF was successful or not
+     */
+    public boolean convertMapToPDFDirect(Map<String, Content> contentMap, Map<String, Configuration> config, OutputStream out, OutputProfile profile) {
+        return Generator.convertMapToPDFDirect(contentMapToSeq(contentMap), out, configMapToScala(config), profile);
+    }
+
+    /**
+     * Method that reads a content JSON and a config JSON and converts them straight into PDF elements, written to the
+     * given OutputStream. The content is parsed one keyword at a time as it is rendered. The streams are not closed
+     *
+     * @param contentJSON - A Reader with the content JSON
+     * @param configJSON  - A Reader with the config JSON
+     * @param out         - The OutputStream to write the PDF document to
+     * @return a Boolean saying if the conversion from JSON to PDF was successful or not
+     * @throws JSONParseException If either JSON is malformed, with the line and column where the problem was found
+     */
+    public boolean convertJSONtoPDFDirect(Reader contentJSON, Reader configJSON, OutputStream out) throws JSONParseException {
+        return Generator.convertJSONtoPDFDirect(contentJSON, out, Option.apply(configJSON), OutputProfile.Default());
+    }
+
+    /**
+     * Method that receives an ordered content map (like a LinkedHashMap), splits it into sections at its PageBreak
+     * contents and renders the sections in parallel on the common ForkJoinPool, merging them in order into a PDF
+     * written to the given OutputStream. The stream is not closed, so the caller can keep writing to it or close it
+     *
+     * @param contentMap - The content map to be converted into a PDF document, in the order it is displayed
+     * @param config     - The config map specifying simple styling details to be implemented in the PDF conversion
+     * @param out        - The OutputStream to write the PDF document to
+     * @return a Boolean saying if the conversion from Map to PDF was successful or not
+     */
+    public boolean convertMapToPDFParallel(Map<String, Content> contentMap, Map<String, Configuration> config, OutputStream out) {
+        return convertMapToPDFParallel(contentMap, config, out, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Method that receives an ordered content map (like a LinkedHashMap), splits it into sections at its PageBreak
+     * contents and renders the sections in parallel on the caller's executor, merging them in order into a PDF
+     * written to the given OutputStream. The stream is not closed, so the caller can keep writing to it or close it
+     *
+     * @param contentMap - The content map to be converted into a PDF document, in the order it is displayed
+     * @param config     - The config map specifying simple styling details to be implemented in the PDF conversion
+     * @param out        - The OutputStream to write the PDF document to
+     * @param executor   - The executor that renders the sections
+     * @return a Boolean saying if the conversion from Map to PDF was successful or not
+     */
+    public boolean convertMapToPDFParallel(Map<String, Content> contentMap, Map<String, Configuration> config, OutputStream out, Executor executor) {
+        return Generator.convertMapToPDFParallel(contentMapToSeq(contentMap), out, configMapToScala(config), executor, OutputProfile.Default());
+    }
+
+    /**
+     * Method that compiles a skeleton content map and its config map into a Template, to be filled with many records.
+     * The keywords keep the map's iteration order (the insertion order of a LinkedHashMap)
+     *
+     * @param skeleton - The content map whose keywords, field types and formattingIDs are laid out. Its values are the defaults for every record
+     * @param config   - The config map specifying simple styling details to be implemented in the PDF conversion
+     * @return the compiled Template
+     */
+    public Template compileTemplate(Map<String, Content> skeleton, Map<String, Configuration> config) {
+        return compileTemplate(skeleton, config, OutputProfile.Default());
+    }
+
+    /**
+     * Method that compiles a skeleton content map and its config map into a Template, whose documents are compressed
+     * as the OutputProfile says. The keywords keep the map's iteration order (the insertion order of a LinkedHashMap)
+     *
+     * @param skeleton - The content map whose keywords, field types and formattingIDs are laid out. Its values are the defaults for every record
+     * @param config   - The config map specifying simple styling details to be implemented in the PDF conversion
+     * @param profile  - How the PDF documents are compressed
+     * @return the compiled Template
+     */
+    public Template compileTemplate(Map<String, Content> skeleton, Map<String, Configuration> config, OutputProfile profile) {
+        return Template.compile(contentMapToSeq(skeleton), configMapToScala(config), profile);
+    }
+
+    /**
+     * Method that renders a record with a compiled Template into a PDF document written to the given OutputStream.
+     * The stream is not closed, so the caller can keep writing to it or close it
+     *
+     * @param template - The compiled Template
+     * @param record   - The values of the keywords for this record
+     * @param out      - The OutputStream to write the PDF document to
+     * @return a Boolean saying if the rendering was successful or not
+     */
+    public boolean renderTemplate(Template template, Map<String, Object> record, OutputStream out) {
+        return template.render(recordToScala(record), out);
+    }
+
+    /**
+     * Asynchronous variant of convertMapToPDFBytes, running on the default executor (a pool bounded by the number of processors).
+     * Nothing is written to disk, so any number of conversions can run at once. Cancelling the returned future stops the
+     * generation between two contents
+     *
+     * @param contentMap - The content map to be converted into a PDF document
+     * @param cssString  - The additional String containing the the CSS to be included in the HTML file
+     * @return a CompletableFuture completed with the bytes of the PDF document, or an empty array if the conversion failed
+     */
+    public CompletableFuture<byte[]> convertMapToPDFAsync(Map<String, Content> contentMap, String cssString) {
+        return convertMapToPDFAsync(contentMap, cssString, AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous variant of convertMapToPDFBytes, running on the caller's executor.
+     * Nothing is written to disk, so any number of conversions can run at once. Cancelling the returned future stops the
+     * generation between two contents
+     *
+     * @param contentMap - The content map to be converted into a PDF document
+     * @param cssString  - The additional String containing the the CSS to be included in the HTML file
+     * @param executor   - The executor in which to generate the PDF
+     * @return a CompletableFuture completed with the bytes of the PDF document, or an empty array if the conversion failed
+     */
+    public CompletableFuture<byte[]> convertMapToPDFAsync(Map<String, Content> contentMap, String cssString, Executor executor) {
+        return AsyncExecution.supplyAsync(() -> convertMapToPDFBytes(contentMap, cssString), executor);
+    }
+
+    /**
+     * Asynchronous variant of convertJSONtoPDFBytes, running on the default executor (a pool bounded by the number of processors).
+     * Nothing is written to disk, so any number of conversions can run at once. Cancelling the returned future stops the
+     * generation between two contents
+     *
+     * @param contentJSON - The Json string to be converted into a PDF document
+     * @return a CompletableFuture completed with the bytes of the PDF document, or an empty array if the conversion failed
+     */
+    public CompletableFuture<byte[]> convertJSONtoPDFAsync(String contentJSON) {
+        return convertJSONtoPDFAsync(contentJSON, AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous variant of convertJSONtoPDFBytes, running on the caller's executor.
+     * Nothing is written to disk, so any number of conversions can run at once. Cancelling the returned future stops the
+     * generation between two contents
+     *
+     * @param contentJSON - The Json string to be converted into a PDF document
+     * @param executor    - The executor in which to generate the PDF
+     * @return a CompletableFuture completed with the bytes of the PDF document, or an empty array if the conversion failed
+     */
+    public CompletableFuture<byte[]> convertJSONtoPDFAsync(String contentJSON, Executor executor) {
+        return AsyncExecution.supplyAsync(() -> convertJSONtoPDFBytes(contentJSON), executor);
+    }
+
     /**
      * Method that converts a Java Content Map to a scala immutable map using JavaConverters
      *
@@ -127,6 +369,37 @@ public class GeneratorJava {
         return (scala.collection.immutable.Map) new scala.collection.immutable.HashMap<>().$plus$plus(mutableMap);
     }
 
+    /**
+     * Method that converts a Java Content Map to a scala immutable Seq of its entries using JavaConverters, keeping the
+     * iteration order of the Java Map (the insertion order of a LinkedHashMap)
+     *
+     * @param javaMap - Java content map to be converted
+     * @return a scala.collection.immutable.Seq with the entries of the input Java Map
+     */
+    private scala.collection.immutable.Seq contentMapToSeq(Map<String, Content> javaMap) {
+        return JavaConverters.mapAsScalaMapConverter(javaMap).asScala().toSeq();
+    }
+
+    /**
+     * @return an empty scala config map, for the conversions that are styled with CSS only
+     */
+    private scala.collection.immutable.Map noFormatting() {
+        return configMapToScala(Collections.emptyMap());
+    }
+
+    /**
+     * Method that converts a Java record Map to a scala immutable map using JavaConverters
+     *
+     * @param javaMap - Java record map to be converted
+     * @return a scala.collection.immutable.Map converted from the input Java Map
+     */
+    private scala.collection.immutable.Map recordToScala(Map<String, Object> javaMap) {
+        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(javaMap).asScala();
+
+        //Convert scala mutable map to scala immutable map by concatenating it with an empty immutable HashMap
+        return (scala.collection.immutable.Map) new scala.collection.immutable.HashMap<>().$plus$plus(mutableMap);
+    }
+
     /**
      * Method that converts a Java Config Map to a scala immutable map using JavaConverters
      *
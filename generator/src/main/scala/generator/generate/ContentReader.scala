@@ -0,0 +1,290 @@
+package generator.generate
+
+import java.io.{BufferedReader, Reader}
+
+import generator.generate.Generator.{ConfigMap, Keyword}
+import generator.utils.{Config, Content}
+import HTMLHandler.extractFieldType
+
+import scala.collection.immutable.ListMap
+
+/**
+  * Exception thrown when a content or config JSON is malformed, with the position where the problem was found
+  *
+  * @param message - The description of the problem
+  * @param line    - The line (starting at 1) where the problem was found
+  * @param column  - The column (starting at 1) where the problem was found
+  */
+class JSONParseException(message: String, val line: Int, val column: Int)
+  extends IllegalArgumentException(message + " (line " + line + ", column " + column + ")")
+
+/**
+  * Singleton object that reads the content and config JSON formats straight from a Reader, without building the
+  * whole JSON tree first. The content is read one keyword at a time, as the generator asks for it
+  */
+object ContentReader {
+
+  /**
+    * Method that reads the keywords and Content objects of a content JSON, one keyword at a time.
+    * Keywords whose value isn't an object are skipped, like convertJSONtoPDF does.
+    * The Reader is read as the Iterator is consumed, so it should only be closed (by the caller) after that
+    *
+    * @param contentJSON - A Reader with the content JSON
+    * @throws JSONParseException If the JSON is malformed or a fieldType is not supported, as the Iterator reaches it
+    * @return an Iterator of each keyword and its Content
+    */
+  @throws[JSONParseException]
+  def readContent(contentJSON: Reader): Iterator[(Keyword, Content)] = {
+    val reader = new JSONPullReader(contentJSON)
+    reader.objectEntries { keyword =>
+      val (line, column) = reader.position
+      reader.readValue() match {
+        case content: Map[String, Any] =>
+          val fieldType =
+            try extractFieldType(content.getOrElse("fieldType", ""))
+            catch {
+              case e: IllegalArgumentException => throw new JSONParseException(e.getMessage + " for the keyword " + keyword, line, column)
+            }
+          val fieldName = content.getOrElse("fieldName", "N/A").toString
+          val fieldValue = content.getOrElse("fieldValue", "N/A")
+          val formattingID = content.getOrElse("formattingID", "").toString
+          Some((keyword, Content(fieldName, fieldValue, fieldType, formattingID)))
+        case _ => None
+      }
+    }.flatten
+  }
+
+  /**
+    * Method that reads the formattingIDs and Config objects of a config JSON.
+    * FormattingIDs whose value isn't an object are skipped, like convertJSONtoPDF does
+    *
+    * @param configJSON - A Reader with the config JSON
+    * @throws JSONParseException If the JSON is malformed
+    * @return a Map of each formattingID and its Config
+    */
+  @throws[JSONParseException]
+  def readConfig(configJSON: Reader): ConfigMap = {
+    val reader = new JSONPullReader(configJSON)
+    reader.objectEntries { formattingID =>
+      reader.readValue() match {
+        case config: Map[String, Any] =>
+          def field(name: String): String = config.getOrElse(name, "").toString
+          Some((formattingID, Config(field("color"), field("fontSize"), field("textAlignment"), field("fontFamily"), field("fontWeight"))))
+        case _ => None
+      }
+    }.flatten.toMap
+  }
+}
+
+/**
+  * Class that represents a pull parser over a JSON document, keeping track of the line and column it is at.
+  * Values are read into the same types json4s gives: Map, List, String, BigInt, Double, Boolean and null
+  *
+  * @param in - The Reader with the JSON document
+  */
+private[generate] class JSONPullReader(in: Reader) {
+
+  private val reader = new BufferedReader(in)
+  private val numberFormat = "-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?".r
+  private val nothingPeeked = -2
+  private var peeked = nothingPeeked
+  private var line = 1
+  private var column = 0
+
+  /**
+    * @return the line and column of the next character to be read
+    */
+  def position: (Int, Int) = {
+    skipWhitespace()
+    (line, column + 1)
+  }
+
+  /**
+    * Method that reads the top level object of the document lazily, one member at a time
+    *
+    * @param readMember - The function that reads the value of each member, given its name
+    * @throws JSONParseException If the JSON is malformed, as the Iterator reaches it
+    * @return an Iterator with the result of readMember for each member
+    */
+  @throws[JSONParseException]
+  def objectEntries[A](readMember: String => A): Iterator[A] = {
+    expect('{')
+    new Iterator[A] {
+      private var first = true
+      private var ready = false //if the name of the next member is the next thing to be read
+      private var finished = false
+
+      override def hasNext: Boolean = {
+        if (!ready && !finished) {
+          if (nextMember(first, '}')) ready = true
+          else {
+            finished = true
+            if (skipWhitespace() != -1) fail("Unexpected content after the end of the JSON")
+          }
+          first = false
+        }
+        ready
+      }
+
+      override def next(): A = {
+        if (!hasNext) throw new NoSuchElementException("There are no more members in the JSON object")
+        ready = false
+        readMember(readName())
+      }
+    }
+  }
+
+  /**
+    * Method that reads the next value of the document
+    *
+    * @throws JSONParseException If the JSON is malformed
+    * @return the value read
+    */
+  @throws[JSONParseException]
+  def readValue(): Any = {
+    val c = skipWhitespace()
+    if (c == -1) fail("Unexpected end of the JSON")
+    c.toChar match {
+      case '{' =>
+        next()
+        val members = ListMap.newBuilder[String, Any]
+        var first = true
+        while (nextMember(first, '}')) {
+          first = false
+          val name = readName()
+          members += ((name, readValue()))
+        }
+        members.result()
+
+      case '[' =>
+        next()
+        val elements = List.newBuilder[Any]
+        var first = true
+        while (nextMember(first, ']')) {
+          first = false
+          elements += readValue()
+        }
+        elements.result()
+
+      case '"' => readString()
+      case 't' => readLiteral("true", true)
+      case 'f' => readLiteral("false", false)
+      case 'n' => readLiteral("null", null)
+      case ch if ch == '-' || (ch >= '0' && ch <= '9') => readNumber()
+      case ch => fail("Unexpected character '" + ch + "'")
+    }
+  }
+
+  /**
+    * Auxiliary method that moves to the next member of an object or array, returning false when it ends
+    */
+  private def nextMember(first: Boolean, close: Char): Boolean = {
+    val c = skipWhitespace()
+    if (c == -1) fail("Unexpected end of the JSON, expected '" + close + "'")
+    else if (c == close) {
+      next()
+      false
+    } else if (c == ',' && !first) {
+      next()
+      true
+    } else if (first) true
+    else fail("Expected ',' or '" + close + "' but found '" + c.toChar + "'")
+  }
+
+  private def readName(): String = {
+    if (skipWhitespace() != '"') fail("Expected the name of a member")
+    val name = readString()
+    expect(':')
+    name
+  }
+
+  private def readString(): String = {
+    next() //the opening quote
+    val str = new java.lang.StringBuilder
+    var c = next()
+    while (c != '"') {
+      if (c == -1) fail("Unterminated string")
+      else if (c == '\\') {
+        val escaped = next()
+        if (escaped == -1) fail("Unterminated string")
+        escaped.toChar match {
+          case '"' => str.append('"')
+          case '\\' => str.append('\\')
+          case '/' => str.append('/')
+          case 'b' => str.append('\b')
+          case 'f' => str.append('\f')
+          case 'n' => str.append('\n')
+          case 'r' => str.append('\r')
+          case 't' => str.append('\t')
+          case 'u' =>
+            var code = 0
+            for (_ <- 1 to 4) {
+              val h = next()
+              if (h == -1) fail("Unterminated string")
+              val digit = Character.digit(h, 16) //only hex digits, so no sign is accepted
+              if (digit == -1) fail("Invalid unicode escape character '" + h.toChar + "'")
+              code = code * 16 + digit
+            }
+            str.append(code.toChar)
+          case other => fail("Invalid escape character '" + other + "'")
+        }
+      } else if (c < 0x20) fail("Unescaped control character in a string")
+      else str.append(c.toChar)
+      c = next()
+    }
+    str.toString
+  }
+
+  private def readLiteral(literal: String, value: Any): Any = {
+    literal.foreach(expected => if (next() != expected) fail("Expected " + literal))
+    value
+  }
+
+  private def readNumber(): Any = {
+    val (startLine, startColumn) = (line, column + 1)
+    val number = new java.lang.StringBuilder
+    while ({
+      val c = peek()
+      (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E'
+    }) number.append(next().toChar)
+
+    val str = number.toString
+    if (!numberFormat.matches(str)) throw new JSONParseException("Invalid number " + str, startLine, startColumn)
+    if (str.exists(c => c == '.' || c == 'e' || c == 'E')) str.toDouble else BigInt(str)
+  }
+
+  private def expect(expected: Char): Unit = {
+    val c = skipWhitespace()
+    if (c != expected) {
+      if (c == -1) fail("Unexpected end of the JSON, expected '" + expected + "'")
+      else fail("Expected '" + expected + "' but found '" + c.toChar + "'")
+    }
+    next()
+  }
+
+  private def skipWhitespace(): Int = {
+    while (peek() == ' ' || peek() == '\t' || peek() == '\n' || peek() == '\r') next()
+    peek()
+  }
+
+  private def peek(): Int = {
+    if (peeked == nothingPeeked) peeked = reader.read()
+    peeked
+  }
+
+  private def next(): Int = {
+    val c = peek()
+    peeked = nothingPeeked
+    if (c == '\n') {
+      line += 1
+      column = 0
+    } else if (c != -1) column += 1
+    c
+  }
+
+  /**
+    * Auxiliary method that reports a problem at the position of the character that was looked at last
+    */
+  private def fail(message: String): Nothing =
+    throw new JSONParseException(message, line, if (peeked != nothingPeeked) column + 1 else math.max(column, 1))
+}
@@ -0,0 +1,315 @@
+package generator.generate
+
+import java.io.OutputStream
+import java.util.concurrent.CancellationException
+
+import collection.JavaConverters._
+import com.itextpdf.text.html.WebColors
+import com.itextpdf.text.pdf.{PdfPCell, PdfPTable, PdfWriter}
+import com.itextpdf.text.{Anchor, BaseColor, Chunk, Document, Element, Font, FontFactory, ListItem, Phrase, Image => PdfImage, List => PdfList, Paragraph => PdfParagraph}
+import generator.generate.Generator.{ConfigMap, ContentMap, Keyword}
+import generator.utils._
+import instrumentation.{AsyncExecution, Instruments}
+import HTMLHandler.{displayInfo, values}
+
+/**
+  * Singleton object that renders Content straight into iText elements, without the HTML intermediate.
+  *
+  * Each FieldType is mapped to the element XMLWorker would create for its HTML tag, sized and spaced like XMLWorker's
+  * default CSS, and each Config is applied the same way its CSS declaration would be. CSS strings and files can't be
+  * mapped this way, so they are only supported by the HTML renderer.
+  *
+  * The values of lists and tables (or of each table column) can be an Iterator, a java.util.Iterator or a Java Stream.
+  * They are read once and written out a few rows at a time, so the memory used doesn't grow with the number of rows
+  */
+object DirectRenderer {
+
+  private val baseSize = 12f
+  private val defaultFamily = FontFactory.HELVETICA
+  private val linkColor = new BaseColor(0, 0, 255)
+  private val flushRows = 200
+  private def resources: ResourceCache = ResourceCache.shared
+
+  /**
+    * Method that renders a ContentMap into a PDF document written to the given OutputStream. The stream is not closed
+    *
+    * @param content    - An object containing all the keywords and their Content(a object containig fieldName, fieldValue and formattingType)
+    * @param formatting - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @param out        - The OutputStream to write the PDF document to
+    * @return a Boolean with information specifying if the rendering was successful or not
+    */
+  def render(content: ContentMap, formatting: ConfigMap, out: OutputStream): Boolean = {
+    render(content.iterator, formatting, out)
+  }
+
+  /**
+    * Method that renders the Content objects into a PDF document written to the given OutputStream, as the Iterator
+    * gives them, so they don't have to be all in memory at once. The stream is not closed
+    *
+    * @param content    - An Iterator of the keywords and their Content, read once
+    * @param formatting - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @param out        - The OutputStream to write the PDF document to
+    * @param profile    - Optional parameter - How the PDF document is compressed
+    * @throws JSONParseException If the content is read from a JSON that turns out to be malformed
+    * @return a Boolean with information specifying if the rendering was successful or not
+    */
+  @throws[JSONParseException]
+  def render(content: Iterator[(Keyword, Content)], formatting: ConfigMap, out: OutputStream,
+             profile: OutputProfile = OutputProfile.Default): Boolean = {
+    renderDocument(out, profile) { document =>
+      content.foreach { case (_, value) => layout(value, formatting).add(value.fieldValue, document) }
+    }
+  }
+
+  /**
+    * Method that works out the Layout of a Content
+    *
+    * @param skeleton   - The Content whose fieldName, fieldType and formattingID are laid out
+    * @param formatting - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @return the Layout of the Content
+    */
+  private[generate] def layout(skeleton: Content, formatting: ConfigMap): Layout =
+    new Layout(skeleton, formatting.get(skeleton.formattingID).collect { case config: Config => config })
+
+  /**
+    * Auxiliary method that opens a PDF document on the OutputStream, lets the caller add its elements and closes it.
+    * The stream is not closed
+    *
+    * @param out         - The OutputStream to write the PDF document to
+    * @param profile     - Optional parameter - How the PDF document is compressed
+    * @param addElements - The function that adds the elements to the document
+    * @throws JSONParseException If the elements are read from a JSON that turns out to be malformed
+    * @return a Boolean with information specifying if the rendering was successful or not
+    */
+  @throws[JSONParseException]
+  private[generate] def renderDocument(out: OutputStream, profile: OutputProfile = OutputProfile.Default)(addElements: Document => Unit): Boolean = {
+    AsyncExecution.checkInterrupted() //don't start rendering if the generation was cancelled
+    try {
+      profile.write(out) { pdfOut =>
+        Instruments.time("generator.render", () => {
+          val document = new Document()
+          val writer = PdfWriter.getInstance(document, pdfOut)
+          writer.setCloseStream(false) //the stream belongs to the caller
+          profile.configure(writer)
+          document.open()
+          addElements(document)
+          document.close()
+        })
+        true
+      }
+    } catch {
+      case e: JSONParseException => throw e
+      case e: CancellationException => throw e
+      case e: Exception => e.printStackTrace(); false
+    }
+  }
+
+  /**
+    * Class that represents how a Content is laid out: its FieldType and the fonts and alignment of its Config.
+    * They are worked out once, so the same Layout can be filled with any number of values, by any number of threads
+    *
+    * @param skeleton - The Content whose fieldName, fieldType and formattingID are laid out
+    * @param config   - The Config of the content's formattingID, if there is one
+    */
+  private[generate] class Layout(skeleton: Content, config: Option[Config]) {
+
+    private val fieldAlignment = alignment(config)
+    private val headerScale: Option[Float] = skeleton.fieldType match {
+      case _: Header1 => Some(2f)
+      case _: Header2 => Some(1.5f)
+      case _: Header3 => Some(1.17f)
+      case _: Header4 => Some(1f)
+      case _: Header5 => Some(0.83f)
+      case _: Header6 => Some(0.67f)
+      case _ => None
+    }
+    private val fieldFont: Font = skeleton.fieldType match {
+      case _: Code => font(config, family = FontFactory.COURIER)
+      case _: Link => font(config, underline = true, color = linkColor)
+      case _ => headerScale.map(scale => font(config, size = baseSize * scale, bold = true)).getOrElse(font(config))
+    }
+    private lazy val columnFont = font(config, bold = true)
+    private lazy val image: Option[PdfImage] = skeleton.fieldType match {
+      case img: Image => resources.image(img.link)
+      case _ => None
+    }
+
+    /**
+      * Method that adds the iText elements that represent a value laid out like this Content to the document.
+      * Lists and tables are added a few rows at a time, so their values can come from an iterator of any size
+      *
+      * @param fieldValue - The value to be displayed
+      * @param document   - The document the elements are added to
+      */
+    def add(fieldValue: Any, document: Document): Unit = skeleton.fieldType match {
+      case _: OrderedList => addList(ordered = true, fieldValue, document)
+      case _: UnorderedList => addList(ordered = false, fieldValue, document)
+      case _: Table => addTable(fieldValue, document)
+      case _: PageBreak => document.newPage()
+      case _ => createElement(fieldValue, document).foreach(document.add)
+    }
+
+    /**
+      * Auxiliary method that creates the iText element that represents a value other than a list or a table
+      *
+      * @param fieldValue - The value to be displayed
+      * @param document   - The document the element will be added to
+      * @return an Option with the element, or None if nothing should be added (an image that could not be loaded)
+      */
+    private def createElement(fieldValue: Any, document: Document): Option[Element] = {
+      val displayVal = displayInfo(skeleton.fieldName, fieldValue)
+      skeleton.fieldType match {
+        case _: Paragraph => Some(paragraph(new Phrase(displayVal, fieldFont), baseSize))
+
+        case anchor: Link =>
+          val link = new Anchor(displayVal, fieldFont)
+          link.setReference(anchor.link)
+          Some(paragraph(link, 0f))
+
+        case _: Image => image.map(fitImage(_, document))
+        case _ => Some(paragraph(new Phrase(displayVal, fieldFont), if (headerScale.isDefined) fieldFont.getSize * 0.67f else 0f))
+      }
+    }
+
+    private def paragraph(phrase: Phrase, spacing: Float): PdfParagraph = {
+      val element = new PdfParagraph(phrase)
+      element.setAlignment(fieldAlignment)
+      element.setSpacingBefore(spacing)
+      element.setSpacingAfter(spacing)
+      element
+    }
+
+    /**
+      * Auxiliary method that copies the loaded image, scaled down to fit the page like XMLWorker does.
+      * The image is only decoded once, each document gets its own copy
+      */
+    private def fitImage(loaded: PdfImage, document: Document): PdfImage = {
+      val copy = PdfImage.getInstance(loaded)
+      val width = document.right() - document.left()
+      if (copy.getWidth > width) copy.scaleToFit(width, document.top() - document.bottom())
+      copy.setAlignment(fieldAlignment)
+      copy
+    }
+
+    /**
+      * Method that adds a list with the values of a Content, the same way HTMLHandler creates the ol and ul tags.
+      * The items are added flushRows at a time, each chunk numbered from where the previous one stopped
+      *
+      * @param ordered    - Boolean value specifying if the list should be an ordered one or unordered
+      * @param fieldValue - The values to be placed inside the list
+      * @param document   - The document the list is added to
+      */
+    private def addList(ordered: Boolean, fieldValue: Any, document: Document): Unit = {
+      var first = 1
+      values(fieldValue).getOrElse(Iterator(fieldValue)).grouped(flushRows).foreach { items =>
+        AsyncExecution.checkInterrupted()
+        val list = new PdfList(ordered, baseSize * 1.5f)
+        if (ordered) list.setFirst(first) else list.setListSymbol(new Chunk(0x2022.toChar + " ", fieldFont))
+        items.foreach { item =>
+          val listItem = new ListItem(String.valueOf(item), fieldFont)
+          listItem.setAlignment(fieldAlignment)
+          list.add(listItem)
+        }
+        document.add(list)
+        first += items.size
+      }
+    }
+
+    /**
+      * Method that adds a table with the values of a Content, the same way HTMLHandler creates the table tag:
+      * a Map is a column per key, a List (or any other sequence of values) is a single column under the fieldName,
+      * and anything else a single cell.
+      *
+      * The table is marked as incomplete and added every flushRows rows, so iText writes those rows out and drops them
+      *
+      * @param fieldValue - The values to be placed inside the table
+      * @param document   - The document the table is added to
+      */
+    private def addTable(fieldValue: Any, document: Document): Unit = {
+      val columns: Option[List[(String, Iterator[Any])]] = fieldValue match {
+        case map: Map[String, Any] => Some(map.toList.map { case (key, column) => (key, values(column).getOrElse(Iterator(column))) })
+        case javaMap: java.util.Map[String, Any] =>
+          Some(javaMap.asScala.toList.map { case (key, column) => (key, values(column).getOrElse(Iterator(column))) })
+        case other => values(other).map(column => List((columnHeader(skeleton.fieldName), column)))
+      }
+
+      columns match {
+        case Some(cols) if cols.nonEmpty =>
+          val table = newTable(cols.size)
+          table.setHeaderRows(1)
+          table.setComplete(false)
+          table.setSpacingAfter(0f)
+          cols.foreach { case (key, _) => table.addCell(cell(key, columnFont)) }
+          var rows = 0
+          while (cols.exists(_._2.hasNext)) {
+            cols.foreach { case (_, column) => table.addCell(cell(if (column.hasNext) String.valueOf(column.next()) else "", fieldFont)) }
+            rows += 1
+            if (rows % flushRows == 0) {
+              AsyncExecution.checkInterrupted()
+              document.add(table) //writes the rows so far and removes them from the table
+              table.setSpacingBefore(0f)
+            }
+          }
+          table.setComplete(true)
+          table.setSpacingAfter(baseSize)
+          document.add(table)
+
+        case _ =>
+          val table = newTable(1)
+          table.addCell(cell(String.valueOf(fieldValue), fieldFont))
+          document.add(table)
+      }
+    }
+
+    private def cell(text: String, cellFont: Font): PdfPCell = {
+      val tableCell = new PdfPCell(new Phrase(text, cellFont))
+      tableCell.setBorder(PdfPCell.NO_BORDER)
+      tableCell.setHorizontalAlignment(fieldAlignment)
+      tableCell
+    }
+  }
+
+  private def columnHeader(fieldName: String): String = if (fieldName.nonEmpty) fieldName else "N/A"
+
+  private def newTable(columns: Int): PdfPTable = {
+    val table = new PdfPTable(columns)
+    table.setHorizontalAlignment(Element.ALIGN_LEFT)
+    table.setSpacingBefore(baseSize)
+    table.setSpacingAfter(baseSize)
+    table
+  }
+
+  /**
+    * Auxiliary method that creates the font described by a Config, like the color, font-size, font-family and
+    * font-weight CSS declarations would. Values that can't be used are ignored, as XMLWorker ignores invalid CSS
+    *
+    * @param config    - The Config of the content's formattingID, if there is one
+    * @param size      - Optional parameter - The size of the font if the Config doesn't specify one
+    * @param bold      - Optional parameter - If the font is bold even if the Config doesn't say so
+    * @param underline - Optional parameter - If the font is underlined
+    * @param family    - Optional parameter - The family of the font if the Config doesn't specify a known one
+    * @param color     - Optional parameter - The color of the font if the Config doesn't specify a valid one
+    * @return the Font to render the content with
+    */
+  private def font(config: Option[Config], size: Float = baseSize, bold: Boolean = false, underline: Boolean = false,
+                   family: String = defaultFamily, color: BaseColor = BaseColor.BLACK): Font = {
+    val fontFamily = config.map(_.fontFamily).filter(f => f.nonEmpty && resources.fontProvider.isRegistered(f)).getOrElse(family)
+    val fontSize = config.flatMap(_.fontSize.toFloatOption).filter(_ > 0).getOrElse(size)
+    val isBold = bold || config.exists(_.fontWeight.equalsIgnoreCase("bold"))
+    val style = (if (isBold) Font.BOLD else Font.NORMAL) | (if (underline) Font.UNDERLINE else Font.NORMAL)
+    val fontColor = config.map(_.color).filter(_.nonEmpty).flatMap { c =>
+      try Some(WebColors.getRGBColor(c))
+      catch {
+        case _: IllegalArgumentException => None
+      }
+    }.getOrElse(color)
+    resources.fontProvider.getFont(fontFamily, FontFactory.defaultEncoding, FontFactory.defaultEmbedding, fontSize, style, fontColor)
+  }
+
+  private def alignment(config: Option[Config]): Int = config.map(_.textAlignment.toLowerCase) match {
+    case Some("center") => Element.ALIGN_CENTER
+    case Some("right") => Element.ALIGN_RIGHT
+    case Some("justify") => Element.ALIGN_JUSTIFIED
+    case _ => Element.ALIGN_LEFT
+  }
+}
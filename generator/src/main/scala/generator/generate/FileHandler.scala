@@ -1,6 +1,6 @@
 package generator.generate
 
-import java.io.{File, PrintWriter}
+import java.io.File
 
 import scala.io.{BufferedSource, Source}
 
@@ -23,31 +23,4 @@ private[generate] object FileHandler {
     }
   }
 
-  /**
-    * Method that handles the writting of the HTML file and returns the file path of the generated file
-    *
-    * @param htmlString - HTML code (in a String) to be placed inside the HTML file
-    * @return the file path of the newly created HTML file
-    */
-  def generateDocument(htmlString: String): String = {
-    val dir = new File("./target/htmlPages")
-    if (!dir.exists) dir.mkdirs
-    val filePath = "./target/htmlPages/" + System.nanoTime() + ".html"
-    val pw = new PrintWriter(new File(filePath)) //prints the HTML code to the html file
-    pw.write(htmlString)
-    pw.close()
-    filePath
-  }
-
-  /**
-    * Method that deletes all the files in the htmlPages directory
-    */
-  def cleanHTMLDir() {
-    val dir = new File("./target/htmlPages")
-    if (dir.exists) {
-      val files = dir.listFiles.filter(_.isFile).toList
-      files.foreach(_.delete)
-    }
-  }
-
 }
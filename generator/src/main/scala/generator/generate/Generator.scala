@@ -1,10 +1,10 @@
 package generator.generate
 
 import java.io._
+import java.util.concurrent.{CancellationException, Executor, ForkJoinPool}
 
-import com.itextpdf.text.Document
-import com.itextpdf.text.pdf.PdfWriter
-import com.itextpdf.tool.xml.XMLWorkerHelper
+import com.itextpdf.tool.xml.css.CssFile
+import instrumentation.{AsyncExecution, Instruments}
 import org.json4s._
 import FileHandler._
 import HTMLHandler._
@@ -21,6 +21,8 @@ object Generator {
   type ConfigMap = Map[String, Configuration]
   type JSONString = String
 
+  private def pipeline: GeneratorPipeline = GeneratorPipeline.shared
+
   /**
     * Method that receives a JSON string and parses it into a Map[String,Any]
     *
@@ -141,6 +143,107 @@ object Generator {
     }
   }
 
+  /**
+    * Method that converts content into a PDF written to the given OutputStream, without using any files. The content is
+    * displayed in its iteration order, so an ordered Seq (or a ListMap) keeps its order. The stream is not closed, so the
+    * caller can keep writing to it or close it
+    *
+    * @param content    - The keywords and their Content(a object containig fieldName, fieldValue and formattingType), in the order they are displayed
+    * @param out        - The OutputStream to write the PDF document to
+    * @param cssString  - Optional parameter - A String containing CSS code to be added to the HTML file
+    * @param formatting - Optional parameter - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @param profile    - Optional parameter - How the PDF document is compressed, like OutputProfile.ArchiveCompact or OutputProfile.Fast
+    * @return a Boolean with information specifying if the conversion was successful or not
+    */
+  def convertMapToPDF(content: Iterable[(Keyword, Content)], out: OutputStream, cssString: String = "",
+                      formatting: ConfigMap = Map[String, Configuration](), profile: OutputProfile = OutputProfile.Default): Boolean = {
+    internalMapConverter(content, cssString + createCssString(content, formatting), out, profile)
+  }
+
+  /**
+    * Method that converts a JSON string, with information regarding the content to be displayed in the PDF file, into a PDF
+    * written to the given OutputStream, without using any files. The stream is not closed
+    *
+    * @param contentJSON - JSON string with information regarding the content to be displayed in the PDF file
+    * @param out         - The OutputStream to write the PDF document to
+    * @param configJSON  - Optional parameter - JSON string with information regarding how the content should be displayed
+    * @param cssString   - Optional parameter - A String containing CSS code to be added to the HTML file
+    * @param profile     - Optional parameter - How the PDF document is compressed, like OutputProfile.ArchiveCompact or OutputProfile.Fast
+    * @return a Boolean specifying if the conversion was successful or not
+    */
+  def convertJSONtoPDF(contentJSON: JSONString, out: OutputStream, configJSON: JSONString = "", cssString: String = "",
+                       profile: OutputProfile = OutputProfile.Default): Boolean = {
+    val formattingOpt = if (configJSON.trim.isEmpty) Some(Map[String, Configuration]()) else jsonToConfig(configJSON)
+    (jsonToContent(contentJSON), formattingOpt) match {
+      case (Some(convertedContent), Some(convertedFormatting)) =>
+        convertMapToPDF(convertedContent, out, cssString, convertedFormatting, profile)
+      case _ => false
+    }
+  }
+
+  /**
+    * Method that converts content into a PDF written to the given OutputStream, mapping each Content and Config
+    * straight to PDF elements instead of going through HTML. The content is displayed in its iteration order.
+    * The stream is not closed
+    *
+    * @param content    - The keywords and their Content(a object containig fieldName, fieldValue and formattingType), in the order they are displayed
+    * @param out        - The OutputStream to write the PDF document to
+    * @param formatting - Optional parameter - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @param profile    - Optional parameter - How the PDF document is compressed, like OutputProfile.ArchiveCompact or OutputProfile.Fast
+    * @return a Boolean with information specifying if the conversion was successful or not
+    */
+  def convertMapToPDFDirect(content: Iterable[(Keyword, Content)], out: OutputStream, formatting: ConfigMap = Map[String, Configuration](),
+                            profile: OutputProfile = OutputProfile.Default): Boolean = {
+    DirectRenderer.render(content.iterator, formatting, out, profile)
+  }
+
+  /**
+    * Method that converts a content JSON and a config JSON, read from Readers, into a PDF written to the given
+    * OutputStream, without going through HTML. The content is parsed one keyword at a time as it is rendered, so the
+    * whole JSON is never held in memory. The streams are not closed
+    *
+    * @param contentJSON - A Reader with the JSON with information regarding the content to be displayed in the PDF file
+    * @param out         - The OutputStream to write the PDF document to
+    * @param configJSON  - Optional parameter - A Reader with the JSON with information regarding how the content should be displayed
+    * @param profile     - Optional parameter - How the PDF document is compressed, like OutputProfile.ArchiveCompact or OutputProfile.Fast
+    * @throws JSONParseException If either JSON is malformed, with the line and column where the problem was found
+    * @return a Boolean specifying if the conversion was successful or not
+    */
+  @throws[JSONParseException]
+  def convertJSONtoPDFDirect(contentJSON: Reader, out: OutputStream, configJSON: Option[Reader] = None,
+                             profile: OutputProfile = OutputProfile.Default): Boolean = {
+    val formatting = configJSON.map(ContentReader.readConfig).getOrElse(Map[String, Configuration]())
+    DirectRenderer.render(ContentReader.readContent(contentJSON), formatting, out, profile)
+  }
+
+  /**
+    * Method that converts ordered content into a PDF written to the given OutputStream, splitting it into sections at
+    * its PageBreak contents, rendering the sections in parallel and merging them in order. The stream is not closed
+    *
+    * @param content    - The keywords and their Content, in the order they are displayed
+    * @param out        - The OutputStream to write the PDF document to
+    * @param formatting - Optional parameter - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @param executor   - Optional parameter - The executor that renders the sections. Rendering is CPU bound, so it defaults to the common ForkJoinPool
+    * @param profile    - Optional parameter - How the merged PDF document is compressed
+    * @return a Boolean with information specifying if the conversion was successful or not
+    */
+  def convertMapToPDFParallel(content: Seq[(Keyword, Content)], out: OutputStream, formatting: ConfigMap = Map[String, Configuration](),
+                              executor: Executor = ForkJoinPool.commonPool(), profile: OutputProfile = OutputProfile.Default): Boolean = {
+    ParallelRenderer.render(content, formatting, out, executor, profile)
+  }
+
+  /**
+    * Method that runs any of the conversions that write to an OutputStream into a byte array, as in
+    * toBytes(convertMapToPDF(content, _, cssString))
+    *
+    * @param render - The conversion, writing to the given OutputStream
+    * @return an Option with the bytes of the PDF document, or None if the conversion failed
+    */
+  def toBytes(render: OutputStream => Boolean): Option[Array[Byte]] = {
+    val out = new ByteArrayOutputStream()
+    if (render(out)) Some(out.toByteArray) else None
+  }
+
   /**
     * Method that takes a ContentMap and a CSS file, reads the CSS file and then converts the ContentMap and CSS code
     * into a PDF file
@@ -150,13 +253,7 @@ object Generator {
     * @return a Boolean with information specifying if the conversion was successful or not
     */
   private def convertWithFile(content: ContentMap, cssFile: File): Boolean = {
-    val bufferedSourceOption = loadCSSFile(cssFile)
-    bufferedSourceOption match {
-      case Some(bufferedSource) =>
-        val cssString = bufferedSource.getLines.mkString
-        internalMapConverter(content, cssString)
-      case _ => false
-    }
+    pipeline.stylesheet(cssFile).exists(stylesheet => writePDFFile(renderContent(content, stylesheet, _)))
   }
 
   /**
@@ -215,41 +312,86 @@ object Generator {
   }
 
   /**
-    * Auxaliary method that actually converts an object (Map[Keyword, Content])) into a PDF.
-    * This method achieve its objective by first converting the input object into a HTML file, and then into a PDF file
+    * Auxaliary method that actually converts an object (Map[Keyword, Content])) into a PDF, written to the html.pdf file
     *
     * @param content   - An object containing all the keywords and their Content(a object containig fieldName, fieldValue and formattingType)
     * @param cssString - A String containing all the CSS code to be added to the HTML file
     * @return a Boolean with information specifying if the conversion was successful or not
     */
   private def internalMapConverter(content: ContentMap, cssString: String): Boolean = {
-    val htmlString = writeHTMLString(content, cssString) //Generate the HTML String
-    val filePath = generateDocument(htmlString) //Create a HTML file from that HTML String
-    convertHTMLToPDF(filePath) //Convert the HTML file into a PDF file
+    writePDFFile((out: OutputStream) => internalMapConverter(content, cssString, out))
+  }
+
+  /**
+    * Auxaliary method that actually converts an object (Map[Keyword, Content])) into a PDF, using the parsed version of
+    * the CSS code cached by the pipeline. The stream is not closed
+    *
+    * @param content   - An object containing all the keywords and their Content(a object containig fieldName, fieldValue and formattingType)
+    * @param cssString - A String containing all the CSS code to be added to the HTML file
+    * @param out       - The OutputStream to write the PDF document to
+    * @param profile   - Optional parameter - How the PDF document is compressed
+    * @return a Boolean with information specifying if the conversion was successful or not
+    */
+  private def internalMapConverter(content: Iterable[(Keyword, Content)], cssString: String, out: OutputStream,
+                                   profile: OutputProfile = OutputProfile.Default): Boolean = {
+    renderContent(content, pipeline.stylesheet(cssString), out, profile)
   }
 
   /**
-    * Method that implements the conversion from a HTML file to a PDF file.
+    * Auxaliary method that renders content into a PDF through HTML, without writing anything to disk. The HTML is
+    * written in a single pass as XMLWorker reads it, so the whole HTML document is never held in memory.
+    * The stream is not closed
+    *
+    * @param content    - The keywords and their Content(a object containig fieldName, fieldValue and formattingType), in the order they are displayed
+    * @param stylesheet - The parsed CSS to style the content with
+    * @param out        - The OutputStream to write the PDF document to
+    * @param profile    - Optional parameter - How the PDF document is compressed
+    * @return a Boolean with information specifying if the conversion was successful or not
+    */
+  private def renderContent(content: Iterable[(Keyword, Content)], stylesheet: CssFile, out: OutputStream,
+                            profile: OutputProfile = OutputProfile.Default): Boolean = {
+    val html = htmlReader(content, "") //styled by the pipeline
+    val rendered = Instruments.time("generator.render", () => convertHTMLToPDF(html, stylesheet, out, profile))
+    Instruments.count("generator.bytes", html.length)
+    rendered
+  }
+
+  /**
+    * Method that implements the conversion from HTML to a PDF document.
     * This method is called by all convertJSONtoPDF overloads
     *
-    * @param htmlURI - The HTML URI specifying where the this document is placed
+    * @param html       - A Reader with the HTML code to be rendered
+    * @param stylesheet - The parsed CSS to style the HTML with
+    * @param out        - The OutputStream to write the PDF document to. It is left open
+    * @param profile    - How the PDF document is compressed
     * @return a Boolean saying if the conversion from HTML to PDF was successful or not
     */
-  private def convertHTMLToPDF(htmlURI: String): Boolean = {
-    if (htmlURI.nonEmpty) {
-      try {
-        val document = new Document()
-        val writer = PdfWriter.getInstance(document, new FileOutputStream("html.pdf"))
-        document.open()
-        XMLWorkerHelper.getInstance().parseXHtml(writer, document, new FileInputStream(htmlURI))
-        document.close()
-        cleanHTMLDir()
+  private def convertHTMLToPDF(html: Reader, stylesheet: CssFile, out: OutputStream, profile: OutputProfile): Boolean = {
+    AsyncExecution.checkInterrupted() //don't start rendering if the generation was cancelled
+    try {
+      profile.write(out) { pdfOut =>
+        pipeline.render(html, stylesheet, pdfOut, profile)
         true
-      } catch {
-        case e: Exception => e.printStackTrace(); false
       }
-    } else false
+    } catch {
+      case e: CancellationException => throw e
+      case e: Exception => e.printStackTrace(); false
+    }
   }
-}
-
 
+  /**
+    * Auxiliary method that renders into the html.pdf file
+    *
+    * @param render - The conversion, writing to the given OutputStream
+    * @return a Boolean with information specifying if the conversion was successful or not
+    */
+  private def writePDFFile(render: OutputStream => Boolean): Boolean = {
+    try {
+      val out = new FileOutputStream("html.pdf")
+      try render(out)
+      finally out.close()
+    } catch {
+      case e: IOException => e.printStackTrace(); false
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package generator.generate
+
+import java.io.{File, OutputStream, Reader}
+
+import com.itextpdf.text.Document
+import com.itextpdf.text.pdf.PdfWriter
+import com.itextpdf.tool.xml.css.{CssFile, CssFileProcessor, CssFilesImpl, StyleAttrCSSResolver}
+import com.itextpdf.tool.xml.css.apply.CssAppliersImpl
+import com.itextpdf.tool.xml.html.Tags
+import com.itextpdf.tool.xml.parser.XMLParser
+import com.itextpdf.tool.xml.pipeline.css.CssResolverPipeline
+import com.itextpdf.tool.xml.pipeline.end.PdfWriterPipeline
+import com.itextpdf.tool.xml.pipeline.html.{HtmlPipeline, HtmlPipelineContext}
+import com.itextpdf.tool.xml.{XMLWorker, XMLWorkerHelper}
+import FileHandler._
+
+/**
+  * Class that renders HTML into PDF documents with XMLWorker, parsing each stylesheet only once.
+  *
+  * XMLWorkerHelper.parseXHtml parses the CSS of the style tag again for every document. This pipeline keeps the parsed
+  * stylesheets (and the tag processors, shared the same way XMLWorkerHelper shares them) in a bounded LRU cache, keyed by
+  * the CSS code itself or by the path, modification time and length of a CSS file, so a changed file is parsed again.
+  * Fonts and images come from a ResourceCache, so they are also loaded once for all the documents.
+  * The parsed stylesheets are only read while rendering, so one pipeline can be used by any number of threads
+  *
+  * @param maxStylesheets - Optional parameter - The maximum number of parsed stylesheets kept, for CSS strings and for CSS files each
+  * @param resources      - Optional parameter - The fonts and images shared by the documents
+  * @throws IllegalArgumentException If maxStylesheets is not positive
+  */
+@throws[IllegalArgumentException]
+class GeneratorPipeline(maxStylesheets: Int = 16, resources: ResourceCache = ResourceCache.shared) {
+  require(maxStylesheets > 0, "The number of cached stylesheets should be positive")
+
+  private val tagFactory = Tags.getHtmlTagProcessorFactory
+  private val defaultCss = XMLWorkerHelper.getInstance().getDefaultCSS
+  private val byContent = new LRUCache[String, CssFile](maxStylesheets, "generator.css")
+  private val byFile = new LRUCache[(String, Long, Long), CssFile](maxStylesheets, "generator.css")
+
+  /**
+    * Method that returns the parsed version of some CSS code, parsing it only if it isn't cached yet
+    *
+    * @param cssString - A String containing CSS code
+    * @return the parsed CSS
+    */
+  def stylesheet(cssString: String): CssFile =
+    byContent.getOrElseUpdate(cssString, parse(cssString))
+
+  /**
+    * Method that returns the parsed version of a CSS file, reading and parsing it only if it isn't cached yet or it
+    * changed since it was cached
+    *
+    * @param cssFile - A CSS file
+    * @return an Option with the parsed CSS, or None if the file could not be read
+    */
+  def stylesheet(cssFile: File): Option[CssFile] = {
+    try {
+      val key = (cssFile.getCanonicalPath, cssFile.lastModified, cssFile.length)
+      byFile.get(key).orElse {
+        loadCSSFile(cssFile).map { bufferedSource =>
+          val css = try parse(bufferedSource.mkString) finally bufferedSource.close()
+          byFile.put(key, css)
+        }
+      }
+    } catch {
+      case e: Exception => e.printStackTrace(); None
+    }
+  }
+
+  /**
+    * Method that renders HTML into a PDF document written to the given OutputStream, styled by the default XMLWorker
+    * CSS followed by the given stylesheet. The stream is not closed
+    *
+    * @param html       - A Reader with the HTML code to be rendered
+    * @param stylesheet - The parsed CSS to style the HTML with
+    * @param out        - The OutputStream to write the PDF document to
+    * @param profile    - Optional parameter - How the PDF document is compressed
+    */
+  def render(html: Reader, stylesheet: CssFile, out: OutputStream, profile: OutputProfile = OutputProfile.Default): Unit = {
+    val document = new Document()
+    val writer = PdfWriter.getInstance(document, out)
+    writer.setCloseStream(false) //the stream belongs to the caller
+    profile.configure(writer)
+    document.open()
+
+    val cssFiles = new CssFilesImpl()
+    cssFiles.add(defaultCss)
+    cssFiles.add(stylesheet)
+    val context = new HtmlPipelineContext(new CssAppliersImpl(resources.fontProvider))
+    context.setAcceptUnknown(true).autoBookmark(true).setTagFactory(tagFactory).setImageProvider(resources.imageProvider)
+    val pipeline = new CssResolverPipeline(new StyleAttrCSSResolver(cssFiles),
+      new HtmlPipeline(context, new PdfWriterPipeline(document, writer)))
+    new XMLParser(new XMLWorker(pipeline, true)).parse(html)
+    document.close()
+  }
+
+  /**
+    * Auxiliary method that parses CSS code
+    *
+    * @param cssString - A String containing CSS code
+    * @return the parsed CSS
+    */
+  private def parse(cssString: String): CssFile = {
+    val processor = new CssFileProcessor()
+    cssString.foreach(processor.process)
+    processor.getCss
+  }
+}
+
+object GeneratorPipeline {
+
+  /**
+    * The pipeline used by Generator
+    */
+  lazy val shared: GeneratorPipeline = new GeneratorPipeline()
+}
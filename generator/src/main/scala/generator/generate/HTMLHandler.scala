@@ -1,9 +1,13 @@
 package generator.generate
 
+import java.io.{Reader, StringWriter, Writer}
+
 import collection.JavaConverters._
-import generator.generate.Generator.{ConfigMap, ContentMap}
-import scalatags.Text.all._
+import generator.generate.Generator.{ConfigMap, Keyword}
 import generator.utils._
+import instrumentation.AsyncExecution
+
+import scala.collection.mutable
 
 /**
   * Singleton object that handles all the HTML manipulation functionalities
@@ -43,45 +47,71 @@ private[generate] object HTMLHandler {
   }
 
   /**
-    * Method that calls createHTML, passing to it a Map object with information regarding the content to be displayed
-    * in the HTML/PDF file, and a CSS String with CSS code specifying how that content should be displayed
+    * Method that writes the HTML document with the content to be displayed in the HTML/PDF file, in the order it is
+    * given, and a CSS String with CSS code specifying how that content should be displayed
     *
-    * @param content   - An object containing all the keywords and their Content(a object containig fieldName, fieldValue and formattingType)
+    * @param content   - The keywords and their Content(a object containig fieldName, fieldValue and formattingType), in the order they are displayed
     * @param cssString - A String containing CSS code to be added to the HTML file
     * @return a String containing all the HTML code to be converted into an HTML file
     */
-  def writeHTMLString(content: ContentMap, cssString: String): String = {
-    createHTML(content, cssString)
+  def writeHTMLString(content: Iterable[(Keyword, Content)], cssString: String): String = {
+    val out = new StringWriter()
+    writeHTML(content, cssString, out)
+    out.toString
   }
 
   /**
-    * Auxliary method used to create the CSS string from the users input information
+    * Method that writes the HTML document with the content to be displayed in the HTML/PDF file to a Writer, in a
+    * single pass over the content and without building the document first
     *
-    * @param content    - a Map of keywords and Content objects that describe how that keyword should be represented
+    * @param content   - The keywords and their Content(a object containig fieldName, fieldValue and formattingType), in the order they are displayed
+    * @param cssString - A String containing CSS code to be added to the HTML file
+    * @param out       - The Writer the HTML is written to. It is not closed
+    */
+  def writeHTML(content: Iterable[(Keyword, Content)], cssString: String, out: Writer): Unit = {
+    writeHead(cssString, out)
+    content.foreach { case (_, value) => writeHTMLTag(value, out) }
+    out.write(documentEnd)
+  }
+
+  /**
+    * Method that returns a Reader over the HTML document with the content to be displayed in the HTML/PDF file. The
+    * HTML of each Content is only written when the Reader gets to it, so the whole document is never held in memory
+    *
+    * @param content   - The keywords and their Content(a object containig fieldName, fieldValue and formattingType), in the order they are displayed
+    * @param cssString - A String containing CSS code to be added to the HTML file
+    * @return a HTMLReader over the HTML document
+    */
+  def htmlReader(content: Iterable[(Keyword, Content)], cssString: String): HTMLReader =
+    new HTMLReader(content.iterator.map(_._2), cssString)
+
+  /**
+    * Auxliary method used to create the CSS string from the users input information.
+    * Each formattingID gets a single CSS class, however many contents use it
+    *
+    * @param content    - The keywords and the Content objects that describe how that keyword should be represented
     * @param formatting - a Map of String (formattingID) to Config objects that specify how that particular formattingID should be displayed
     * @return the CSS String created from the input information
     */
-  def createCssString(content: ContentMap, formatting: ConfigMap): String = {
-    val cssList = for ((_, value) <- content) yield {
-      if (value.formattingID.nonEmpty) {
+  def createCssString(content: Iterable[(Keyword, Content)], formatting: ConfigMap): String = {
+    val css = new java.lang.StringBuilder
+    val written = mutable.HashSet[String]()
+    content.foreach { case (_, value) =>
+      if (value.formattingID.nonEmpty && written.add(value.formattingID)) {
         formatting.get(value.formattingID) match {
-          case Some(config) =>
-            config match {
-              case configuration: Config =>
-                "." + value.formattingID + "{" +
-                  " color: " + configuration.color + ";" +
-                  " text-align: " + configuration.textAlignment + ";" +
-                  " font-weight: " + configuration.fontWeight + ";" +
-                  " font-family: " + configuration.fontFamily + ";" +
-                  s" font-size: ${if (configuration.fontSize.isEmpty) -1 else configuration.fontSize}pt;" +
-                  "} "
-              case _ => ""
-            }
-          case None => ""
+          case Some(configuration: Config) =>
+            css.append('.').append(value.formattingID).append('{')
+              .append(" color: ").append(configuration.color).append(';')
+              .append(" text-align: ").append(configuration.textAlignment).append(';')
+              .append(" font-weight: ").append(configuration.fontWeight).append(';')
+              .append(" font-family: ").append(configuration.fontFamily).append(';')
+              .append(" font-size: ").append(if (configuration.fontSize.isEmpty) "-1" else configuration.fontSize).append("pt;")
+              .append("} ")
+          case _ =>
         }
-      } else ""
+      }
     }
-    cssList.toList.mkString("")
+    css.toString
   }
 
   /**
@@ -106,145 +136,203 @@ private[generate] object HTMLHandler {
       case "paragraph" => Paragraph()
       case "code" => Code()
       case "span" => Text()
+      case "pagebreak" => PageBreak()
       case _ => throw new IllegalArgumentException("The value specified for fieldType is not supported")
     }
   }
 
   /**
-    * Method used to create the HTML string to be converted into a HTML file and then to a PDF file
+    * Method that writes the start of the HTML document, up to the opening body tag, with a style tag containing the CSS
     *
-    * @param content   - An object containing all the keywords and their Content(a object containig fieldName, fieldValue and formattingType)
     * @param cssString - A String containing the CSS code to be added to the HTML file
-    * @return a String containing all the HTML code to be converted into an HTML file
+    * @param out       - The Writer the HTML is written to
     */
-  private def createHTML(content: ContentMap, cssString: String): String = {
-    //Iterate through all the keywords (and their values) and create the respective HTML tag for each of them
-    val htmlBody = content.map { case (_, singleContent) => writeHTMLTag(singleContent) }
-    val htmlString = html(head(), body(htmlBody.toList)).toString
-    val (left, right) = htmlString.splitAt(12) //split html string at index 12, right in between the <head> tag
-    s"$left <style> $cssString </style> $right" //creates the desired HTML code with a <style> tag containing the user-sent css
+  private[generate] def writeHead(cssString: String, out: Writer): Unit = {
+    out.write("<html><head> <style> ")
+    out.write(cssString)
+    out.write(" </style> </head><body>")
   }
 
+  private[generate] val documentEnd = "</body></html>"
+
   /**
-    * Auxaliary method used to create the different supported HTML tags
+    * Auxaliary method used to write the different supported HTML tags
     *
     * @param value - The object containing the information regarding the field name, field value and formatting type
-    * @return - A scalatags HTML element wich will be either a "h1", a "ul", a "table", a "p", or a "span" in case there's
-    *         no formatting a given value
+    * @param out   - The Writer the tag is written to
     */
-  private def writeHTMLTag(value: Content): scalatags.Text.TypedTag[String] = {
-    val displayVal = displayInfo(value.fieldName, value.fieldValue)
+  private[generate] def writeHTMLTag(value: Content, out: Writer): Unit = {
+    lazy val displayVal = displayInfo(value.fieldName, value.fieldValue)
+    val classAttr = List("class" -> value.formattingID)
     value.fieldType match {
-      case _: Header1 => h1(`class` := value.formattingID)(displayVal)
+      case _: Header1 => writeElement("h1", classAttr, displayVal, out)
 
-      case _: Header2 => h2(`class` := value.formattingID)(displayVal)
+      case _: Header2 => writeElement("h2", classAttr, displayVal, out)
 
-      case _: Header3 => h3(`class` := value.formattingID)(displayVal)
+      case _: Header3 => writeElement("h3", classAttr, displayVal, out)
 
-      case _: Header4 => h4(`class` := value.formattingID)(displayVal)
+      case _: Header4 => writeElement("h4", classAttr, displayVal, out)
 
-      case _: Header5 => h5(`class` := value.formattingID)(displayVal)
+      case _: Header5 => writeElement("h5", classAttr, displayVal, out)
 
-      case _: Header6 => h6(`class` := value.formattingID)(displayVal)
+      case _: Header6 => writeElement("h6", classAttr, displayVal, out)
 
-      case _: Paragraph => p(`class` := value.formattingID)(displayVal)
+      case _: Paragraph => writeElement("p", classAttr, displayVal, out)
 
-      case _: Text => span(`class` := value.formattingID)(displayVal)
+      case _: Text => writeElement("span", classAttr, displayVal, out)
 
-      case _: Code => code(`class` := value.formattingID)(displayVal)
+      case _: Code => writeElement("code", classAttr, displayVal, out)
 
-      case anchor: Link => a(href := anchor.link, `class` := value.formattingID)(displayVal)
+      case anchor: Link => writeElement("a", ("href" -> anchor.link) :: classAttr, displayVal, out)
 
-      case image: Image => img(src := image.link, `class` := value.formattingID)(displayVal)
+      case image: Image => writeElement("img", ("src" -> image.link) :: classAttr, displayVal, out)
 
-      case _: OrderedList => createHtmlList(ordered = true, value)
+      case _: OrderedList => writeHtmlList(ordered = true, value, out)
 
-      case _: UnorderedList => createHtmlList(ordered = false, value)
+      case _: UnorderedList => writeHtmlList(ordered = false, value, out)
 
-      case _: Table => createHtmlTable(value)
+      case _: Table => writeHtmlTable(value, out)
+
+      case _: PageBreak => writeElement("div", List("style" -> "page-break-before: always"), "", out)
     }
   }
 
   /**
-    * Method that creates a HTML table with the correct content value inside it.
+    * Method that writes a HTML table with the correct content value inside it.
     * The value.fieldValue passed can take any form but to Flipper supports 2 special cases:
     *
-    * 1 - value.fieldValue comes in the form of Map[String, List[Any] ], in this case we assume that the key of the map
-    * is the table's header and that the values are of the map are the values to be put under said header.
+    * 1 - value.fieldValue comes in the form of a Map of column headers to lists of values, in this case we assume that
+    * the key of the map is the table's header and that the values are of the map are the values to be put under said header.
     *
-    * 2 - value.fieldValue comes in the form of List[Any], in this case Flipper uses the value.fieldName (if it exists) as
+    * 2 - value.fieldValue comes in the form of a list of values, in this case Flipper uses the value.fieldName (if it exists) as
     * the table's header and the content of the list as the values to be put under the header.
     *
-    * In all other cases Flipper just encapsulates the value.fieldValue in a HTML table with one row and one data cell
+    * In all other cases Flipper just encapsulates the value.fieldValue in a HTML table with one row and one data cell.
+    * The lists can be a List, a java.util.List, an Iterator or a Java Stream, and each one is read once
     *
     * @param value - The content value to be placed inside the HTML table
-    * @return a scalatags HTMl table containing the value passed as parameter
+    * @param out   - The Writer the table is written to
     */
-  private def createHtmlTable(value: Content): scalatags.Text.TypedTag[String] = {
-    def getMaxSize(map: Map[String, List[Any]]): Int = map.maxBy(_._2.size)._2.size
-
-    def getTableBody(map: Map[String, List[Any]], counter: Int): List[scalatags.Text.TypedTag[String]] =
-      (for (i <- 0 until counter) yield {
-
-        val tdList = map.mapValues(valuesList =>
-          //In case there's  no more values inside the current valuesList return an empty table data
-          //If not return a table data with the information at the "i" index of the list
-          if (i < valuesList.size) td(valuesList(i).toString) else td()
-        ).toList.map(_._2)
-
-        tr(tdList) //For each iteration return a table row containing the correct table data inside each of them
-      }).toList //return a list of table rows representing the body of the HTML table
-
+  private def writeHtmlTable(value: Content, out: Writer): Unit = {
+    val columns: Option[List[(String, Any)]] = value.fieldValue match {
+      case map: Map[String, Any] => Some(map.toList)
+      case javaMap: java.util.Map[String, Any] => Some(javaMap.asScala.toList)
+      case _ => None
+    }
 
-    value.fieldValue match {
-      case map: Map[String, List[Any]] =>
-        val headerRow = tr(th(map.keys.toList)) //create the row of headers
-      val tableBody = getTableBody(map, getMaxSize(map)) //create a list of table rows representing the body of HTML table
-        table(`class` := value.formattingID)(headerRow, tableBody)
+    openTag("table", List("class" -> value.formattingID), out)
+    columns match {
+      case Some(cols) =>
+        out.write("<tr><th>")
+        cols.foreach { case (header, _) => escape(header, out) } //the headers share a single th, like they always have
+        out.write("</th></tr>")
+        val columnValues = cols.map { case (_, column) => values(column).getOrElse(Iterator(column)) }
+        while (columnValues.exists(_.hasNext)) {
+          out.write("<tr>")
+          //In case there's no more values inside a column write an empty table data
+          columnValues.foreach(column => writeElement("td", Nil, if (column.hasNext) String.valueOf(column.next()) else "", out))
+          out.write("</tr>")
+        }
 
+      case None =>
+        values(value.fieldValue) match {
+          case Some(rows) =>
+            out.write("<tr>")
+            writeElement("th", Nil, if (value.fieldName.nonEmpty) value.fieldName else "N/A", out) //TODO maybe change this ?
+            out.write("</tr>")
+            rows.foreach { elem =>
+              out.write("<tr>")
+              writeElement("td", Nil, String.valueOf(elem), out)
+              out.write("</tr>")
+            }
+          case None =>
+            out.write("<tr>")
+            writeElement("td", Nil, String.valueOf(value.fieldValue), out)
+            out.write("</tr>")
+        }
+    }
+    closeTag("table", out)
+  }
 
-      case javaMap: java.util.Map[String, java.util.List[Object]] =>
-        val scalaMap = javaMapToScala(javaMap) //convert to a scala Map
-      val headerRow = tr(th(scalaMap.keys.toList)) //create the row of headers
-      val tableBody = getTableBody(scalaMap, getMaxSize(scalaMap)) //create a list of table rows representing the body of HTML table
-        table(`class` := value.formattingID)(headerRow, tableBody)
+  /**
+    * Method that writes both HTML lists (ol and ul) with the correct informationg inside it
+    *
+    * @param ordered - Boolean value specifying if the list should be an ordered one (ol) or unordered (ul)
+    * @param value   - The content value to be placed inside the HTML list
+    * @param out     - The Writer the list is written to
+    */
+  private def writeHtmlList(ordered: Boolean, value: Content, out: Writer): Unit = {
+    val listTag = if (ordered) "ol" else "ul"
+    openTag(listTag, List("class" -> value.formattingID), out)
+    values(value.fieldValue).getOrElse(Iterator(value.fieldValue)).foreach(elem => writeElement("li", Nil, String.valueOf(elem), out))
+    closeTag(listTag, out)
+  }
 
-      case list: List[Any] =>
-        val header = if (value.fieldName.nonEmpty) value.fieldName else "N/A" //TODO maybe change this ?
-      val tableData = list.map(elem => tr(td(elem.toString)))
-        table(`class` := value.formattingID)(tr(th(header)), tableData)
+  /**
+    * Auxiliary method, shared with the DirectRenderer, that reads the values of a list or table column, which may be a List, an Iterator or a Java Stream
+    *
+    * @param fieldValue - The value of the content or of one of its columns
+    * @return an Option with an Iterator over the values, or None if the value is a single value
+    */
+  private[generate] def values(fieldValue: Any): Option[Iterator[Any]] = fieldValue match {
+    case scalaList: List[Any] => Some(scalaList.iterator)
+    case iterator: Iterator[Any] => Some(iterator)
+    case javaList: java.util.List[_] => Some(javaList.asScala.iterator)
+    case javaIterator: java.util.Iterator[_] => Some(javaIterator.asScala)
+    case stream: java.util.stream.Stream[_] => Some(stream.iterator.asScala)
+    case _ => None
+  }
 
-      case javaList: java.util.List[Object] =>
-        val scalaList = javaList.asScala.toList
-        val header = if (value.fieldName.nonEmpty) value.fieldName else "N/A" //TODO maybe change this ?
-      val tableData = scalaList.map(elem => tr(td(elem.toString)))
-        table(`class` := value.formattingID)(tr(th(header)), tableData)
+  private def writeElement(tag: String, attributes: List[(String, String)], text: String, out: Writer): Unit = {
+    openTag(tag, attributes, out)
+    escape(text, out)
+    closeTag(tag, out)
+  }
 
-      case _ => table(`class` := value.formattingID)(tr(td(value.fieldValue.toString)))
+  private def openTag(tag: String, attributes: List[(String, String)], out: Writer): Unit = {
+    out.write('<')
+    out.write(tag)
+    attributes.foreach { case (name, attrValue) =>
+      out.write(' ')
+      out.write(name)
+      out.write("=\"")
+      escape(attrValue, out)
+      out.write('"')
     }
+    out.write('>')
+  }
+
+  private def closeTag(tag: String, out: Writer): Unit = {
+    out.write("</")
+    out.write(tag)
+    out.write('>')
   }
 
   /**
-    * Method that creates both HTML lists (ol and ul) with the correct informationg inside it
+    * Auxiliary method that writes text escaped for HTML. The control characters XML doesn't allow are left out
     *
-    * @param ordered - Boolean value specifying if the list should be an ordered one (ol) or unordered (ul)
-    * @param value   - The content value to be placed inside the HTML list
-    * @return a scalatags HTML list tag containing the value passed as parameter
+    * @param text - The text to be written
+    * @param out  - The Writer the text is written to
     */
-  private def createHtmlList(ordered: Boolean, value: Content): scalatags.Text.TypedTag[String] = {
-    value.fieldValue match {
-      case javaList: java.util.List[Object] =>
-        val listItems = for (i <- 0 until javaList.size()) yield {
-          li(javaList.get(i).toString)
+  private def escape(text: String, out: Writer): Unit = {
+    var start = 0
+    var i = 0
+    while (i < text.length) {
+      val c = text.charAt(i)
+      if (c == '<' || c == '>' || c == '&' || c == '"' || (c < ' ' && c != '\n' && c != '\r' && c != '\t')) {
+        out.write(text, start, i - start)
+        c match {
+          case '<' => out.write("&lt;")
+          case '>' => out.write("&gt;")
+          case '&' => out.write("&amp;")
+          case '"' => out.write("&quot;")
+          case _ =>
         }
-        if (ordered) ol(`class` := value.formattingID)(listItems.toList) else ul(`class` := value.formattingID)(listItems.toList)
-
-      case list: List[Any] =>
-        val listItems = list.map(elem => li(elem.toString))
-        if (ordered) ol(`class` := value.formattingID)(listItems) else ul(`class` := value.formattingID)(listItems)
-
-      case _ => if (ordered) ol(`class` := value.formattingID)(li(value.fieldValue.toString)) else ul(`class` := value.formattingID)(li(value.fieldValue.toString))
+        start = i + 1
+      }
+      i += 1
     }
+    out.write(text, start, text.length - start)
   }
 
   /**
@@ -255,7 +343,7 @@ private[generate] object HTMLHandler {
     * @param fieldValue - The value of the field (the value)
     * @return a String containing the correctly displayed information
     */
-  private def displayInfo(fieldName: String, fieldValue: Any): String =
+  def displayInfo(fieldName: String, fieldValue: Any): String =
     if (fieldName.isEmpty) printValue(fieldValue) else fieldName + " : " + printValue(fieldValue) //TODO maybe remove printValue
 
   /**
@@ -268,17 +356,80 @@ private[generate] object HTMLHandler {
     case list: List[Any] => list.mkString("[", ",", "]")
     case _ => value.toString
   }
+}
+
+/**
+  * Class that represents a Reader over a HTML document written as it is read, one Content at a time, so that
+  * XMLWorker can parse the document while it is written without the whole document being held in memory
+  *
+  * @param content   - The Content objects, in the order they are displayed, read once
+  * @param cssString - A String containing the CSS code to be added to the HTML file
+  */
+private[generate] class HTMLReader(content: Iterator[Content], cssString: String) extends Reader {
+
+  private val chunk = new ChunkWriter
+  private var position = 0
+  private var started = false
+  private var finished = false
+  private var charsRead = 0L
+
+  /**
+    * @return the number of characters of HTML read so far
+    */
+  def length: Long = charsRead
+
+  override def read(cbuf: Array[Char], off: Int, len: Int): Int = {
+    if (len == 0) 0
+    else if (!fill()) -1
+    else {
+      val count = math.min(len, chunk.buffer.length - position)
+      chunk.buffer.getChars(position, position + count, cbuf, off)
+      position += count
+      charsRead += count
+      count
+    }
+  }
+
+  override def close(): Unit = finished = true
 
   /**
-    * Method that converts a java Map of Strings to java Lists , into a scala Map[String, List[Any] ]
+    * Auxiliary method that writes the HTML of the next Content once the current one has been read
     *
-    * @param javaMap - The java map to be converted
-    * @return a scala Map[String, List[Any] ] converted from the java map passed as parameter
+    * @return false if there is nothing left to read
     */
-  private def javaMapToScala(javaMap: java.util.Map[String, java.util.List[Object]]): Map[String, List[Any]] = {
-    val mutableMap = javaMap.asScala
-    val mutableWithLists = mutableMap.map { case (key, value) => (key, value.asScala.toList) }
-    mutableWithLists.toMap
+  private def fill(): Boolean = {
+    while (position == chunk.buffer.length && !finished) {
+      AsyncExecution.checkInterrupted() //stop writing if the generation was cancelled
+      chunk.buffer.setLength(0)
+      position = 0
+      if (!started) {
+        HTMLHandler.writeHead(cssString, chunk)
+        started = true
+      } else if (content.hasNext) HTMLHandler.writeHTMLTag(content.next(), chunk)
+      else {
+        chunk.write(HTMLHandler.documentEnd)
+        finished = true
+      }
+    }
+    position < chunk.buffer.length
   }
 
+  /**
+    * A Writer into a StringBuilder, which unlike StringWriter isn't synchronized
+    */
+  private class ChunkWriter extends Writer {
+    val buffer = new java.lang.StringBuilder
+
+    override def write(cbuf: Array[Char], off: Int, len: Int): Unit = buffer.append(cbuf, off, len)
+
+    override def write(str: String): Unit = buffer.append(str)
+
+    override def write(str: String, off: Int, len: Int): Unit = buffer.append(str, off, off + len)
+
+    override def write(c: Int): Unit = buffer.append(c.toChar)
+
+    override def flush(): Unit = ()
+
+    override def close(): Unit = ()
+  }
 }
@@ -0,0 +1,45 @@
+package generator.generate
+
+import instrumentation.Instruments
+
+/**
+  * Class that represents a bounded, thread-safe LRU cache, reporting its hits and misses to the cache of the installed
+  * Instrumentation with the given name
+  *
+  * @param capacity - The maximum number of values kept
+  * @param name     - The name of the cache reported to the Instrumentation
+  */
+private[generate] class LRUCache[K, V <: AnyRef](capacity: Int, name: String) {
+
+  private val entries = new java.util.LinkedHashMap[K, V](16, 0.75f, true) { //access order, so the eldest is the least recently used
+    override def removeEldestEntry(eldest: java.util.Map.Entry[K, V]): Boolean = this.size > capacity
+  }
+
+  def get(key: K): Option[V] = {
+    val value = entries.synchronized(Option(entries.get(key)))
+    if (value.isDefined) Instruments.cacheHit(name) else Instruments.cacheMiss(name)
+    value
+  }
+
+  /**
+    * Method that returns the cached value, or caches the given one. The value is computed outside the lock,
+    * so two threads missing the same key at once may both compute it
+    */
+  def getOrElseUpdate(key: K, value: => V): V = get(key).getOrElse(put(key, value))
+
+  /**
+    * Method that caches a value, unless another thread cached one for the same key first
+    *
+    * @return the value cached for the key
+    */
+  def put(key: K, value: V): V = entries.synchronized {
+    Option(entries.get(key)).getOrElse {
+      entries.put(key, value)
+      value
+    }
+  }
+
+  def size: Int = entries.synchronized(entries.size)
+
+  def clear(): Unit = entries.synchronized(entries.clear())
+}
@@ -0,0 +1,177 @@
+package generator.generate
+
+import java.awt.RenderingHints
+import java.awt.image.BufferedImage
+import java.io.{ByteArrayOutputStream, IOException, OutputStream}
+
+import com.itextpdf.text.pdf._
+import com.itextpdf.text.pdf.parser.PdfImageObject
+import javax.imageio.{IIOImage, ImageIO, ImageWriteParam}
+
+/**
+  * Class that represents how the PDF documents are written, trading CPU time for smaller files.
+  *
+  * Full compression packs the document's objects into compressed object streams (which needs PDF 1.5). Images whose
+  * longest side is larger than maxImageSize are scaled down and recompressed as JPEG once the document is written,
+  * which reads the document again, so it is the most expensive setting
+  *
+  * @param fullCompression  - Optional parameter - If the objects are written into compressed object streams
+  * @param compressionLevel - Optional parameter - The zlib compression level of the streams, from 0 (none) to 9 (best), or -1 for zlib's default
+  * @param maxImageSize     - Optional parameter - The largest width or height, in pixels, images are kept at, or 0 to keep them as they are
+  * @param imageQuality     - Optional parameter - The JPEG quality, from 0 to 1, of the images that are scaled down
+  * @throws IllegalArgumentException If any of the values is out of its range
+  */
+@throws[IllegalArgumentException]
+case class OutputProfile(fullCompression: Boolean = false, compressionLevel: Int = PdfStream.DEFAULT_COMPRESSION,
+                         maxImageSize: Int = 0, imageQuality: Float = 0.75f) {
+  require(compressionLevel >= PdfStream.DEFAULT_COMPRESSION && compressionLevel <= PdfStream.BEST_COMPRESSION,
+    "The compression level should be between -1 and 9")
+  require(maxImageSize >= 0, "The maximum image size can't be negative")
+  require(imageQuality > 0 && imageQuality <= 1, "The image quality should be between 0 and 1")
+
+  /**
+    * Method that applies the profile to a writer. It must be called before the document is opened
+    *
+    * @param writer - The writer of the document
+    */
+  private[generate] def configure(writer: PdfWriter): Unit = {
+    if (fullCompression) writer.setFullCompression()
+    writer.setCompressionLevel(compressionLevel)
+  }
+
+  /**
+    * Method that runs a rendering that writes to the given OutputStream with a configured writer, and then scales down
+    * the images of the document if the profile does. The stream is not closed
+    *
+    * @param out    - The OutputStream to write the PDF document to
+    * @param render - The rendering, writing to the given OutputStream
+    * @return a Boolean with information specifying if the rendering was successful or not
+    */
+  private[generate] def write(out: OutputStream)(render: OutputStream => Boolean): Boolean = {
+    if (maxImageSize == 0) render(out)
+    else {
+      val rendered = new ByteArrayOutputStream()
+      render(rendered) && {
+        try {
+          downsampleImages(rendered.toByteArray, out)
+          true
+        } catch {
+          case e: Exception => e.printStackTrace(); false
+        }
+      }
+    }
+  }
+
+  /**
+    * Auxiliary method that scales down the images of a document that are larger than maxImageSize and writes the
+    * document again. Images with transparency, or in color spaces other than RGB and gray, are kept as they are
+    *
+    * @param pdf - The bytes of the PDF document
+    * @param out - The OutputStream to write the new PDF document to
+    */
+  private def downsampleImages(pdf: Array[Byte], out: OutputStream): Unit = {
+    val reader = new PdfReader(pdf)
+    try {
+      for (i <- 0 until reader.getXrefSize) {
+        reader.getPdfObject(i) match {
+          case stream: PRStream if PdfName.IMAGE == stream.getAsName(PdfName.SUBTYPE) && stream.get(PdfName.SMASK) == null &&
+            stream.get(PdfName.MASK) == null && (PdfName.DEVICERGB == stream.get(PdfName.COLORSPACE) || PdfName.DEVICEGRAY == stream.get(PdfName.COLORSPACE)) =>
+            try downsample(stream)
+            catch {
+              case _: IOException => //images iText can't decode are kept as they are
+            }
+          case _ =>
+        }
+      }
+      reader.removeUnusedObjects()
+      val stamper = new PdfStamper(reader, out)
+      stamper.getWriter.setCloseStream(false) //the stream belongs to the caller
+      configure(stamper.getWriter)
+      stamper.close()
+    } finally reader.close()
+  }
+
+  /**
+    * Auxiliary method that replaces an image stream with a scaled down JPEG, if it's larger than maxImageSize
+    *
+    * @param stream - The image stream
+    */
+  private def downsample(stream: PRStream): Unit = {
+    val image = new PdfImageObject(stream).getBufferedImage
+    if (image != null && math.max(image.getWidth, image.getHeight) > maxImageSize) {
+      val scale = maxImageSize.toDouble / math.max(image.getWidth, image.getHeight)
+      val width = math.max(1, math.round(image.getWidth * scale).toInt)
+      val height = math.max(1, math.round(image.getHeight * scale).toInt)
+      val gray = PdfName.DEVICEGRAY == stream.get(PdfName.COLORSPACE)
+
+      val scaled = new BufferedImage(width, height, if (gray) BufferedImage.TYPE_BYTE_GRAY else BufferedImage.TYPE_INT_RGB)
+      val graphics = scaled.createGraphics()
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR)
+      graphics.drawImage(image, 0, 0, width, height, null)
+      graphics.dispose()
+
+      stream.clear()
+      stream.setData(jpeg(scaled), false, PdfStream.NO_COMPRESSION) //JPEG data isn't compressed any further by zlib
+      stream.put(PdfName.TYPE, PdfName.XOBJECT)
+      stream.put(PdfName.SUBTYPE, PdfName.IMAGE)
+      stream.put(PdfName.FILTER, PdfName.DCTDECODE)
+      stream.put(PdfName.WIDTH, new PdfNumber(width))
+      stream.put(PdfName.HEIGHT, new PdfNumber(height))
+      stream.put(PdfName.BITSPERCOMPONENT, new PdfNumber(8))
+      stream.put(PdfName.COLORSPACE, if (gray) PdfName.DEVICEGRAY else PdfName.DEVICERGB)
+    }
+  }
+
+  /**
+    * Auxiliary method that encodes an image as JPEG with the profile's quality
+    */
+  private def jpeg(image: BufferedImage): Array[Byte] = {
+    val jpegWriter = ImageIO.getImageWritersByFormatName("jpeg").next()
+    val params = jpegWriter.getDefaultWriteParam
+    params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT)
+    params.setCompressionQuality(imageQuality)
+
+    val bytes = new ByteArrayOutputStream()
+    val imageOut = ImageIO.createImageOutputStream(bytes)
+    try {
+      jpegWriter.setOutput(imageOut)
+      jpegWriter.write(null, new IIOImage(image, null, null), params)
+    } finally {
+      imageOut.close()
+      jpegWriter.dispose()
+    }
+    bytes.toByteArray
+  }
+}
+
+object OutputProfile {
+
+  /**
+    * iText's default settings: no object streams, default zlib compression and images kept as they are
+    */
+  val Default: OutputProfile = OutputProfile()
+
+  /**
+    * The least CPU time per document: streams compressed with zlib's fastest level
+    */
+  val Fast: OutputProfile = OutputProfile(compressionLevel = PdfStream.BEST_SPEED)
+
+  /**
+    * The smallest documents, for storage: object streams, zlib's best level, and images scaled down to 1240 pixels
+    * (150 dpi across an A4 page) and recompressed as JPEG
+    */
+  val ArchiveCompact: OutputProfile = OutputProfile(fullCompression = true, compressionLevel = PdfStream.BEST_COMPRESSION, maxImageSize = 1240)
+
+  /**
+    * Method that returns a predefined profile by its name: "default", "fast" or "archive-compact"
+    *
+    * @param name - The name of the profile, in any case
+    * @return an Option with the profile, or None if there is no profile with that name
+    */
+  def named(name: String): Option[OutputProfile] = name.trim.toLowerCase match {
+    case "default" => Some(Default)
+    case "fast" => Some(Fast)
+    case "archive-compact" => Some(ArchiveCompact)
+    case _ => None
+  }
+}
@@ -0,0 +1,108 @@
+package generator.generate
+
+import java.io.{ByteArrayOutputStream, OutputStream}
+import java.util.concurrent.{CancellationException, CompletableFuture, Executor}
+
+import com.itextpdf.text.Document
+import com.itextpdf.text.pdf.{PdfReader, PdfSmartCopy}
+import generator.generate.Generator.{ConfigMap, Keyword}
+import generator.utils.{Content, PageBreak}
+import instrumentation.{AsyncExecution, Instruments}
+
+/**
+  * Singleton object that renders large documents in parallel.
+  *
+  * The ordered content is split into sections at its PageBreak contents. Each section is rendered into its own PDF by
+  * the direct renderer on the given executor, and the sections are then copied, in their original order, into a single
+  * document with PdfSmartCopy, which writes the streams shared by several sections (like the same image) only once.
+  * The merged document is only written to the caller's stream once every section was rendered and copied, so a failed
+  * rendering writes nothing
+  */
+object ParallelRenderer {
+
+  /**
+    * Method that renders the ordered content into a PDF document written to the given OutputStream, rendering each
+    * section (the content between two PageBreaks) in parallel. The stream is not closed
+    *
+    * @param content    - The keywords and their Content, in the order they are displayed
+    * @param formatting - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @param out        - The OutputStream to write the PDF document to
+    * @param executor   - The executor that renders the sections
+    * @param profile    - Optional parameter - How the merged PDF document is compressed
+    * @return a Boolean with information specifying if the rendering was successful or not
+    */
+  def render(content: Seq[(Keyword, Content)], formatting: ConfigMap, out: OutputStream, executor: Executor,
+             profile: OutputProfile = OutputProfile.Default): Boolean = {
+    AsyncExecution.checkInterrupted() //don't start rendering if the generation was cancelled
+    val sections = splitSections(content)
+    Instruments.count("generator.sections", sections.size)
+    val rendered: List[CompletableFuture[Option[Array[Byte]]]] = sections.map { section =>
+      AsyncExecution.supplyAsync(() => {
+        val sectionOut = new ByteArrayOutputStream()
+        if (DirectRenderer.render(section.iterator, formatting, sectionOut)) Some(sectionOut.toByteArray) else None
+      }, executor)
+    }
+
+    try {
+      Instruments.time("generator.merge", () => profile.write(out)(merge(rendered, _, profile)))
+    } finally {
+      rendered.foreach(_.cancel(true)) //stops the sections still running if the merge stopped early
+    }
+  }
+
+  /**
+    * Method that splits the ordered content at its PageBreak contents. The PageBreaks themselves are left out,
+    * since every section starts on a new page, and so are the sections with no content
+    *
+    * @param content - The keywords and their Content, in the order they are displayed
+    * @return the sections, in order
+    */
+  private[generate] def splitSections(content: Seq[(Keyword, Content)]): List[List[(Keyword, Content)]] = {
+    content.foldRight(List(List.empty[(Keyword, Content)])) {
+      case ((_, Content(_, _, _: PageBreak, _)), sections) => Nil :: sections
+      case (entry, section :: sections) => (entry :: section) :: sections
+    }.filter(_.nonEmpty)
+  }
+
+  /**
+    * Auxiliary method that copies the pages of each section into the document, in order, as each section is ready.
+    * The document is buffered and written to out only if every section was copied
+    *
+    * @param rendered - The sections being rendered, in order
+    * @param out      - The OutputStream to write the PDF document to, untouched if a section failed
+    * @param profile  - How the merged PDF document is compressed
+    * @return a Boolean with information specifying if every section was rendered and copied
+    */
+  private def merge(rendered: List[CompletableFuture[Option[Array[Byte]]]], out: OutputStream, profile: OutputProfile): Boolean = {
+    if (rendered.isEmpty) false
+    else {
+      try {
+        val document = new Document()
+        val merged = new ByteArrayOutputStream() //a section failing after the first ones were copied must not leave a truncated PDF in out
+        val copy = new PdfSmartCopy(document, merged)
+        profile.configure(copy)
+        document.open()
+        val complete = rendered.forall { section =>
+          section.join() match {
+            case Some(bytes) =>
+              val reader = new PdfReader(bytes)
+              try {
+                for (page <- 1 to reader.getNumberOfPages) copy.addPage(copy.getImportedPage(reader, page))
+                copy.freeReader(reader)
+              } finally reader.close()
+              true
+            case None => false
+          }
+        }
+        if (complete) {
+          document.close()
+          merged.writeTo(out)
+        }
+        complete
+      } catch {
+        case e: CancellationException => throw e
+        case e: Exception => e.printStackTrace(); false
+      }
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package generator.generate
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.util.Base64
+
+import com.itextpdf.text.pdf.BaseFont
+import com.itextpdf.text.{Image => PdfImage}
+import com.itextpdf.tool.xml.XMLWorkerFontProvider
+import com.itextpdf.tool.xml.pipeline.html.AbstractImageProvider
+
+/**
+  * Class that holds the fonts and images shared by every generated PDF, so the resources most documents have in
+  * common (like a logo and a couple of fonts) are only loaded by the first document that uses them.
+  *
+  * The font provider starts with the standard PDF fonts and the system fonts, whose directories are scanned once when the
+  * cache is built instead of for every document, like XMLWorker's default provider does. Fonts registered here are used
+  * by both the HTML and the direct renderer, and each font program is read once. Decoded images are kept in a bounded LRU cache, keyed by their link,
+  * or by the SHA-256 of their content for data URIs. Every document gets its own copy of a cached image, sharing the
+  * decoded bytes, so one ResourceCache can be used by any number of threads
+  *
+  * @param maxImages - Optional parameter - The maximum number of decoded images kept
+  * @throws IllegalArgumentException If maxImages is not positive
+  */
+@throws[IllegalArgumentException]
+class ResourceCache(maxImages: Int = 64) {
+  require(maxImages > 0, "The number of cached images should be positive")
+
+  private val images = new LRUCache[String, PdfImage](maxImages, "generator.images")
+
+  /**
+    * The font provider used by XMLWorker and by the direct renderer
+    */
+  val fontProvider: XMLWorkerFontProvider = {
+    val provider = new XMLWorkerFontProvider(XMLWorkerFontProvider.DONTLOOKFORFONTS)
+    provider.registerDirectories() //the system font directories, like the default provider, but only once
+    provider
+  }
+
+  /**
+    * The image provider used by XMLWorker. Images that were fetched and decoded for one document are retrieved from
+    * the cache by the next ones
+    */
+  val imageProvider: AbstractImageProvider = new AbstractImageProvider {
+    override def getImageRootPath: String = null //links are resolved as they are written, like XMLWorkerHelper does
+
+    override def retrieve(src: String): PdfImage = images.get(imageKey(src)).map(PdfImage.getInstance(_)).orNull
+
+    override def store(src: String, img: PdfImage): Unit = images.put(imageKey(src), PdfImage.getInstance(img))
+
+    override def reset(): Unit = images.clear()
+  }
+
+  /**
+    * Method that registers a TrueType, OpenType or Type 1 font file (.ttf, .otf, .ttc, .afm or .pfm), so it can be used
+    * as a fontFamily in Configs and CSS. An alias can't be given to a TrueType collection (.ttc)
+    *
+    * @param fontFile - The font file
+    * @param alias    - Optional parameter - Another name the font can be used by
+    * @return a Boolean with information specifying if the font was registered or not
+    */
+  def registerFont(fontFile: File, alias: String = ""): Boolean = {
+    val path = fontFile.getPath
+    val extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase
+    if (!ResourceCache.FontExtensions.contains(extension)) false //the provider silently ignores any other file
+    else {
+      try {
+        if (alias.isEmpty) fontProvider.register(path) else fontProvider.register(path, alias)
+        val names =
+          if (alias.nonEmpty) List(alias)
+          else BaseFont.getFullFontName(if (extension == "ttc") path + ",0" else path, BaseFont.WINANSI, null).map(_(3)).toList
+        names.exists(fontProvider.isRegistered)
+      } catch {
+        case e: Exception => e.printStackTrace(); false
+      }
+    }
+  }
+
+  /**
+    * Method that registers all the font files in a directory and its subdirectories
+    *
+    * @param directory - The directory with the font files
+    * @return the number of fonts registered
+    */
+  def registerFontDirectory(directory: File): Int = fontProvider.registerDirectory(directory.getPath, true)
+
+  /**
+    * Method that returns an image, fetching and decoding it only if it isn't cached yet
+    *
+    * @param link - The URL, path or data URI of the image
+    * @return an Option with a copy of the image, or None if it could not be loaded
+    */
+  def image(link: String): Option[PdfImage] = {
+    try {
+      Some(PdfImage.getInstance(images.getOrElseUpdate(imageKey(link), loadImage(link))))
+    } catch {
+      case e: Exception => e.printStackTrace(); None
+    }
+  }
+
+  /**
+    * Method that removes every cached image. Registered fonts are kept
+    */
+  def clearImages(): Unit = images.clear()
+
+  /**
+    * Auxiliary method that fetches and decodes an image. Data URIs are decoded from their base64 content
+    */
+  private def loadImage(link: String): PdfImage = {
+    if (link.startsWith("data:")) PdfImage.getInstance(Base64.getMimeDecoder.decode(link.substring(link.indexOf(',') + 1)))
+    else PdfImage.getInstance(link)
+  }
+
+  /**
+    * Auxiliary method that returns the key of an image in the cache: its link, or the SHA-256 of a data URI,
+    * so large data URIs aren't kept as keys
+    */
+  private def imageKey(link: String): String = {
+    if (link.startsWith("data:")) {
+      val digest = MessageDigest.getInstance("SHA-256").digest(link.getBytes(StandardCharsets.UTF_8))
+      "sha-256:" + digest.map(b => "%02x".format(b & 0xff)).mkString
+    } else link
+  }
+}
+
+object ResourceCache {
+
+  /**
+    * The resources shared by every document Generator renders
+    */
+  lazy val shared: ResourceCache = new ResourceCache()
+
+  /**
+    * The extensions of the font files the font provider can register
+    */
+  private val FontExtensions = Set("ttf", "otf", "ttc", "afm", "pfm")
+}
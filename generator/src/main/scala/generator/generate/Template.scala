@@ -0,0 +1,102 @@
+package generator.generate
+
+import java.io.{ByteArrayOutputStream, OutputStream}
+
+import com.itextpdf.text.Document
+import generator.generate.Generator.{ConfigMap, Keyword}
+import generator.utils.{Configuration, Content}
+import instrumentation.AsyncExecution
+
+/**
+  * Class that represents a layout compiled once and filled with the values of many records, as in a mail merge.
+  *
+  * The keywords, FieldTypes and formattingIDs of the skeleton, and the fonts and alignments of their Configs, are worked
+  * out when the template is compiled. Rendering a record only lays out its values. The fieldValues of the skeleton are
+  * used for the keywords a record doesn't have, so fixed text (like titles) only has to be in the skeleton.
+  * A Template can be used by any number of threads at once
+  *
+  * @param layouts - The keywords of the skeleton, with their Content and Layout, in the order they are rendered
+  * @param profile - How the PDF documents are compressed
+  */
+class Template private(layouts: List[(Keyword, Content, DirectRenderer.Layout)], profile: OutputProfile) {
+
+  /**
+    * Method that renders a record into a PDF document written to the given OutputStream. The stream is not closed
+    *
+    * @param record - The values of the keywords for this record
+    * @param out    - The OutputStream to write the PDF document to
+    * @return a Boolean with information specifying if the rendering was successful or not
+    */
+  def render(record: Map[Keyword, Any], out: OutputStream): Boolean = {
+    DirectRenderer.renderDocument(out, profile)(fill(record, _))
+  }
+
+  /**
+    * Method that renders a record into the bytes of a PDF document
+    *
+    * @param record - The values of the keywords for this record
+    * @return an Option with the bytes of the PDF document, or None if the rendering failed
+    */
+  def renderBytes(record: Map[Keyword, Any]): Option[Array[Byte]] = {
+    val out = new ByteArrayOutputStream()
+    if (render(record, out)) Some(out.toByteArray) else None
+  }
+
+  /**
+    * Method that renders each record into its own PDF document, as the returned Iterator is consumed
+    *
+    * @param records - The records to be rendered
+    * @return an Iterator with an Option of the bytes of each record's PDF document, or None if its rendering failed
+    */
+  def renderEach(records: Iterator[Map[Keyword, Any]]): Iterator[Option[Array[Byte]]] = {
+    records.map(renderBytes)
+  }
+
+  /**
+    * Method that renders all the records into a single PDF document written to the given OutputStream, each record
+    * starting on a new page. The records are read as they are rendered. The stream is not closed
+    *
+    * @param records - The records to be rendered
+    * @param out     - The OutputStream to write the PDF document to
+    * @return a Boolean with information specifying if the rendering was successful or not
+    */
+  def renderCombined(records: Iterator[Map[Keyword, Any]], out: OutputStream): Boolean = {
+    DirectRenderer.renderDocument(out, profile) { document =>
+      records.foreach { record =>
+        AsyncExecution.checkInterrupted()
+        document.newPage() //ignored for the first record, while the page is still empty
+        fill(record, document)
+      }
+    }
+  }
+
+  /**
+    * Auxiliary method that adds the values of a record to the document, laid out like the skeleton
+    *
+    * @param record   - The values of the keywords for this record
+    * @param document - The document the values are added to
+    */
+  private def fill(record: Map[Keyword, Any], document: Document): Unit = {
+    layouts.foreach { case (keyword, skeleton, layout) => layout.add(record.getOrElse(keyword, skeleton.fieldValue), document) }
+  }
+}
+
+object Template {
+
+  /**
+    * Method that compiles a skeleton and its formatting into a Template. The keywords are rendered in the skeleton's
+    * iteration order, so an ordered Seq keeps its order
+    *
+    * @param skeleton   - The keywords and their Content, in the order they are displayed. Their fieldValues are the defaults for records that don't have them
+    * @param formatting - Optional parameter - An object containing all the user defined formattings specifying how each keyword in the content object
+    * @param profile    - Optional parameter - How the PDF documents are compressed, like OutputProfile.ArchiveCompact or OutputProfile.Fast
+    * @throws IllegalArgumentException If the skeleton is empty
+    * @return the compiled Template
+    */
+  @throws[IllegalArgumentException]
+  def compile(skeleton: Iterable[(Keyword, Content)], formatting: ConfigMap = Map[String, Configuration](),
+              profile: OutputProfile = OutputProfile.Default): Template = {
+    require(skeleton.nonEmpty, "The skeleton should have at least one keyword")
+    new Template(skeleton.toList.map { case (keyword, content) => (keyword, content, DirectRenderer.layout(content, formatting)) }, profile)
+  }
+}
@@ -32,3 +32,5 @@ case class Code() extends FieldType
 case class Link(link: String) extends FieldType
 
 case class Image(link: String) extends FieldType
+
+case class PageBreak() extends FieldType
@@ -4,9 +4,22 @@ import generator.utils.*;
 import junit.framework.TestCase;
 import org.junit.Test;
 
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GeneratorJavaSuite extends TestCase {
     protected GeneratorJava gj = new GeneratorJava();
@@ -213,5 +226,104 @@ public class GeneratorJavaSuite extends TestCase {
         assert (!emptyContent && !emptyConfig && !invalidFile && !nullfile);
     }
 
+    /**
+     * Tests that convertJSONtoPDFAsync completes with the bytes of the PDF document, and an empty array for an empty content
+     */
+    @Test
+    public void testConvertJSONtoPDFAsync() throws Exception {
+        byte[] pdf = gj.convertJSONtoPDFAsync(contentJSON).get();
+        assertTrue(pdf.length > 0 && pdf[0] == '%' && pdf[1] == 'P');
+        assertEquals(0, gj.convertJSONtoPDFAsync("").get().length);
+    }
+
+    /**
+     * Tests that cancelling convertMapToPDFAsync while it renders stops the rendering before the next content
+     */
+    @Test
+    public void testConvertMapToPDFAsyncCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicInteger rendered = new AtomicInteger();
+
+        LinkedHashMap<String, Content> ordered = new LinkedHashMap<>();
+        ordered.put("first", new Content("", new Iterator<Object>() { //blocks the rendering until the future is cancelled
+            private boolean waited = false;
+
+            public boolean hasNext() {
+                if (!waited) {
+                    waited = true;
+                    started.countDown();
+                    try {
+                        cancelled.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return false;
+            }
+
+            public Object next() {
+                throw new NoSuchElementException();
+            }
+        }, new UnorderedList(), ""));
+        for (int i = 0; i < 200; i++)
+            ordered.put("item" + i, new Content("", new Iterator<Object>() { //counts the contents that are rendered
+                private boolean read = false;
+
+                public boolean hasNext() {
+                    if (!read)
+                        rendered.incrementAndGet();
+                    return !read;
+                }
+
+                public Object next() {
+                    read = true;
+                    return "item";
+                }
+            }, new UnorderedList(), ""));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CompletableFuture<byte[]> future = gj.convertMapToPDFAsync(ordered, "", executor);
+        assertTrue(started.await(1, TimeUnit.MINUTES));
+        future.cancel(true);
+        cancelled.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertTrue(future.isCancelled());
+        assertEquals(0, rendered.get());
+    }
+
+    /**
+     * Tests that convertJSONtoPDFBytes returns the PDF document in memory, and an empty array for an empty content
+     */
+    @Test
+    public void testConvertJSONtoPDFBytes() {
+        byte[] pdf = gj.convertJSONtoPDFBytes(contentJSON);
+        assertTrue(pdf.length > 0 && pdf[0] == '%' && pdf[1] == 'P');
+        assertEquals(0, gj.convertJSONtoPDFBytes("").length);
+    }
+
+    /**
+     * Tests that the bytes, direct and template conversions keep the insertion order of a LinkedHashMap
+     */
+    @Test
+    public void testLinkedHashMapOrder() throws Exception {
+        LinkedHashMap<String, Content> ordered = new LinkedHashMap<>();
+        for (int i = 0; i < 8; i++)
+            ordered.put("line" + i, new Content("", "Line " + i, new Paragraph(), ""));
 
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        assertTrue(gj.convertMapToPDFDirect(ordered, new HashMap<>(), direct));
+        ByteArrayOutputStream template = new ByteArrayOutputStream();
+        assertTrue(gj.renderTemplate(gj.compileTemplate(ordered, new HashMap<>()), new HashMap<>(), template));
+
+        for (byte[] pdf : new byte[][]{gj.convertMapToPDFBytes(ordered, ""), direct.toByteArray(), template.toByteArray()}) {
+            String text;
+            try (PDDocument document = PDDocument.load(pdf)) {
+                text = new PDFTextStripper().getText(document);
+            }
+            for (int i = 1; i < 8; i++)
+                assertTrue(text.indexOf("Line " + (i - 1)) >= 0 && text.indexOf("Line " + (i - 1)) < text.indexOf("Line " + i));
+        }
+    }
 }
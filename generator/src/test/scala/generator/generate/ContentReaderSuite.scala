@@ -0,0 +1,95 @@
+package generator.generate
+
+import java.io.{ByteArrayOutputStream, StringReader}
+
+import generator.utils._
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class ContentReaderSuite extends FunSuite {
+
+  val contentJSON =
+    """{
+      |  "name" : { "fieldName" : "name", "fieldValue" : "John Doe", "fieldType" : "Header1", "formattingID" : "bigHeader" },
+      |  "ages" : { "fieldValue" : [20, 30.5, true, null, "a \"quoted\" é"], "fieldType" : "OrderedList" },
+      |  "site" : { "fieldName" : "", "fieldValue" : "example", "fieldType" : { "type" : "link", "link" : "http://www.example.com" } },
+      |  "ignored" : "not an object"
+      |}""".stripMargin
+
+  /**
+    * Tests that the content is read into the same Content objects convertJSONtoPDF builds
+    */
+  test("readContent") {
+    val content = ContentReader.readContent(new StringReader(contentJSON)).toList
+    assert(content == List(
+      "name" -> Content("name", "John Doe", Header1(), "bigHeader"),
+      "ages" -> Content("N/A", List(BigInt(20), 30.5, true, null, "a \"quoted\" é"), OrderedList(), ""),
+      "site" -> Content("", "example", Link("http://www.example.com"), "")
+    ))
+  }
+
+  /**
+    * Tests that the content is read one keyword at a time, so the first keywords are available before a later error
+    */
+  test("readContent is incremental") {
+    val content = ContentReader.readContent(new StringReader(
+      """{ "name" : { "fieldValue" : "John Doe", "fieldType" : "Header1" },
+        |  "age" : { "fieldValue" : 20, "fieldType" : "Header1" """.stripMargin))
+    assert(content.next()._1 == "name")
+    val error = intercept[JSONParseException](content.next())
+    assert(error.line == 2)
+  }
+
+  /**
+    * Tests that malformed JSON and unsupported fieldTypes are reported with their line and column
+    */
+  test("readContent reports the position of errors") {
+    val missingComma = intercept[JSONParseException](ContentReader.readContent(new StringReader("{ \"a\" : {}\n \"b\" : {} }")).toList)
+    assert(missingComma.line == 2 && missingComma.column == 2)
+
+    val badFieldType = intercept[JSONParseException] {
+      ContentReader.readContent(new StringReader("{\n  \"a\" : { \"fieldType\" : \"Blink\" }\n}")).toList
+    }
+    assert(badFieldType.line == 2 && badFieldType.column == 9 && badFieldType.getMessage.contains("line 2, column 9"))
+
+    assertThrows[JSONParseException](ContentReader.readContent(new StringReader("not a json")))
+    assertThrows[JSONParseException](ContentReader.readContent(new StringReader("{ \"a\" : [1, 2 }")).toList)
+    assertThrows[JSONParseException](ContentReader.readContent(new StringReader("{ \"a\" : 01 }")).toList)
+    assertThrows[JSONParseException](ContentReader.readContent(new StringReader("{ } }")).toList)
+  }
+
+  /**
+    * Tests that unicode escapes are read, and that escapes with characters other than hex digits or that end the JSON are reported
+    */
+  test("readConfig with unicode escapes") {
+    val config = ContentReader.readConfig(new StringReader("{ \"big\" : { \"color\" : \"r\\u00E9d\\u0021\" } }"))
+    assert(config == Map("big" -> Config("réd!")))
+
+    val signed = intercept[JSONParseException](ContentReader.readConfig(new StringReader("{ \"big\" : { \"color\" : \"\\u-001\" } }")))
+    assert(signed.getMessage.startsWith("Invalid unicode escape character '-'"))
+    val notHex = intercept[JSONParseException](ContentReader.readConfig(new StringReader("{ \"big\" : { \"color\" : \"\\u00g1\" } }")))
+    assert(notHex.getMessage.startsWith("Invalid unicode escape character 'g'"))
+    val unterminated = intercept[JSONParseException](ContentReader.readConfig(new StringReader("{ \"big\" : { \"color\" : \"\\u00")))
+    assert(unterminated.getMessage.startsWith("Unterminated string"))
+  }
+
+  /**
+    * Tests that the config is read into Config objects
+    */
+  test("readConfig") {
+    val config = ContentReader.readConfig(new StringReader("""{ "big" : { "color" : "red", "fontSize" : "30" }, "x" : 1 }"""))
+    assert(config == Map("big" -> Config("red", "30")))
+  }
+
+  /**
+    * Tests that the generator renders the content as it is read
+    */
+  test("convertJSONtoPDFDirect from Readers") {
+    val out = new ByteArrayOutputStream()
+    assert(Generator.convertJSONtoPDFDirect(new StringReader(contentJSON), out, Some(new StringReader("""{ "bigHeader" : { "color" : "blue" } }"""))))
+    assert(out.size > 0)
+    assertThrows[JSONParseException](Generator.convertJSONtoPDFDirect(new StringReader("{ \"a\" : }"), new ByteArrayOutputStream()))
+  }
+}
@@ -0,0 +1,92 @@
+package generator.generate
+
+import java.io.{ByteArrayOutputStream, StringReader}
+
+import generator.utils._
+import org.apache.pdfbox.pdmodel.PDDocument
+import org.apache.pdfbox.text.PDFTextStripper
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class DirectRendererSuite extends FunSuite {
+
+  val content =
+    Map(
+      "name" -> Content("name", "John Doe", Header1(), "bigHeader"),
+      "age" -> Content("age", List(20, 30), OrderedList(), "small"),
+      "pets" -> Content("", Map("dog" -> List("Rex", "Bobby"), "cat" -> List("Tom")), Table()),
+      "site" -> Content("", "example site", Link("http://www.example.com")),
+      "about" -> Content("about", "something", Paragraph()),
+      "snippet" -> Content("", "val x = 1", Code())
+    )
+  val formatting: Generator.ConfigMap =
+    Map(
+      "bigHeader" -> Config("blue", "20", "center", "corbel", "bold"),
+      "small" -> Config("#ff0000", "10")
+    )
+
+  private def text(bytes: Array[Byte]): String = {
+    val document = PDDocument.load(bytes)
+    try new PDFTextStripper().getText(document)
+    finally document.close()
+  }
+
+  /**
+    * Tests that every FieldType is rendered with the same text the HTML renderer would show
+    */
+  test("render maps every FieldType to PDF elements") {
+    val out = new ByteArrayOutputStream()
+    assert(DirectRenderer.render(content, formatting, out))
+    val rendered = text(out.toByteArray)
+    assert(Seq("name : John Doe", "20", "30", "dog", "cat", "Rex", "Bobby", "Tom", "example site", "about : something", "val x = 1")
+      .forall(rendered.contains))
+  }
+
+  /**
+    * Tests that an image that can't be loaded is left out instead of failing the whole document
+    */
+  test("render with an image that can't be loaded") {
+    val withImage = content + ("photo" -> Content("", "", Image("non existing URI")))
+    assert(DirectRenderer.render(withImage, Map(), new ByteArrayOutputStream()))
+  }
+
+  /**
+    * Tests that converting JSON directly works with and without a configuration, and fails for an invalid JSON
+    */
+  test("convertJSONtoPDFDirect") {
+    val contentJSON = """{ "name" : { "fieldName" : "name", "fieldValue" : "something", "fieldType" : "Header1", "formattingID" : "big" } }"""
+    val configJSON = """{ "big" : { "color" : "red", "fontSize" : "30", "textAlignment" : "center" } }"""
+    val out = new ByteArrayOutputStream()
+    assert(Generator.convertJSONtoPDFDirect(new StringReader(contentJSON), out, Some(new StringReader(configJSON))) &&
+      text(out.toByteArray).contains("name : something"))
+    assert(Generator.convertJSONtoPDFDirect(new StringReader(contentJSON), new ByteArrayOutputStream()))
+    assertThrows[JSONParseException](Generator.convertJSONtoPDFDirect(new StringReader("not a json"), new ByteArrayOutputStream()))
+  }
+
+  /**
+    * Tests that tables and lists read from iterators and streams are written whole, a few rows at a time,
+    * and that ordered lists keep their numbering across the chunks
+    */
+  test("render tables and lists from iterators and streams") {
+    val streamed =
+      Map(
+        "rows" -> Content("row", Iterator.range(0, 5000).map("row " + _), Table()),
+        "columns" -> Content("", Map("id" -> Iterator.range(0, 450), "name" -> List("first", "second")), Table()),
+        "items" -> Content("", java.util.stream.IntStream.range(0, 450).boxed(), OrderedList())
+      )
+    val out = new ByteArrayOutputStream()
+    assert(DirectRenderer.render(streamed, Map(), out))
+    val rendered = text(out.toByteArray)
+    assert(rendered.contains("row 4999") && rendered.contains("449") && rendered.contains("second") && rendered.contains("450."))
+  }
+
+  /**
+    * Tests that the HTML renderer reads iterator values whole instead of printing the iterator
+    */
+  test("HTML rendering of iterator values") {
+    val bytes = Generator.toBytes(Generator.convertMapToPDF(Map("items" -> Content("", Iterator("first", "second"), UnorderedList())), _))
+    assert(bytes.exists(b => text(b).contains("second")))
+  }
+}
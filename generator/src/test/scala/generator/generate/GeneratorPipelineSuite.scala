@@ -0,0 +1,66 @@
+package generator.generate
+
+import java.io.{ByteArrayOutputStream, File, PrintWriter, StringReader}
+
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class GeneratorPipelineSuite extends FunSuite {
+
+  val cssString = ".bigHeader{ color: blue; font-size: 20pt; }"
+
+  /**
+    * Tests that the same CSS code is only parsed once, and that the least recently used stylesheet is the one dropped
+    */
+  test("stylesheet caches the parsed CSS code") {
+    val pipeline = new GeneratorPipeline(maxStylesheets = 1)
+    val parsed = pipeline.stylesheet(cssString)
+    assert(pipeline.stylesheet(cssString) eq parsed)
+
+    pipeline.stylesheet(".small{ color: red; }") //evicts the first stylesheet
+    assert(!(pipeline.stylesheet(cssString) eq parsed))
+  }
+
+  /**
+    * Tests that a CSS file is only parsed again when it changes
+    */
+  test("stylesheet caches the parsed CSS file until it changes") {
+    val pipeline = new GeneratorPipeline()
+    val file = File.createTempFile("pipeline", ".css")
+    file.deleteOnExit()
+    def write(css: String): Unit = {
+      val writer = new PrintWriter(file)
+      try writer.write(css) finally writer.close()
+    }
+
+    write(cssString)
+    val parsed = pipeline.stylesheet(file)
+    assert(parsed.isDefined && pipeline.stylesheet(file).exists(_ eq parsed.get))
+
+    write(cssString + " .small{ color: red; }")
+    file.setLastModified(file.lastModified + 2000)
+    assert(pipeline.stylesheet(file).exists(css => !(css eq parsed.get)))
+    assert(pipeline.stylesheet(new File("non existing URI")).isEmpty)
+  }
+
+  /**
+    * Tests that rendering writes a PDF document and leaves the stream open
+    */
+  test("render writes a PDF document") {
+    val pipeline = new GeneratorPipeline()
+    val out = new ByteArrayOutputStream()
+    pipeline.render(new StringReader("<html><head></head><body><h1 class=\"bigHeader\">John Doe</h1></body></html>"),
+      pipeline.stylesheet(cssString), out)
+    out.write('\n')
+    assert(new String(out.toByteArray.take(5), "ISO-8859-1") == "%PDF-")
+  }
+
+  /**
+    * Tests that a pipeline can't be created without room for any stylesheet
+    */
+  test("GeneratorPipeline with no cached stylesheets") {
+    assertThrows[IllegalArgumentException](new GeneratorPipeline(0))
+  }
+}
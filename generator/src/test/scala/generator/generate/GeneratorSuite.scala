@@ -1,6 +1,6 @@
 package generator
 
-import java.io.File
+import java.io.{ByteArrayOutputStream, File}
 
 import org.junit.runner.RunWith
 import org.scalatest.FunSuite
@@ -8,6 +8,10 @@ import org.scalatest.junit.JUnitRunner
 import generate.Generator._
 import generator.utils._
 
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+import scala.concurrent.{Await, Future}
+
 
 @RunWith(classOf[JUnitRunner])
 class GeneratorSuite extends FunSuite {
@@ -184,4 +188,25 @@ class GeneratorSuite extends FunSuite {
 
     assert(!emptyConfig && !emptyContent && !invalidFile)
   }
+
+  /**
+    * Tests that converting into an OutputStream writes a PDF document and leaves the stream open
+    */
+  test("convertMapToPDF into an OutputStream") {
+    val out = new ByteArrayOutputStream()
+    assert(convertMapToPDF(content, out, cssString))
+    out.write('\n') //the stream is still open
+    assert(new String(out.toByteArray.take(5), "ISO-8859-1") == "%PDF-")
+  }
+
+  /**
+    * Tests that concurrent conversions into byte arrays don't interfere with each other
+    */
+  test("Concurrent conversions into byte arrays") {
+    val results = (1 to 8).map { i =>
+      Future(toBytes(convertMapToPDF(Map("name" -> Content("name", "John Doe " + i, Header1(), "bigHeader")), _, cssString)))
+    }.map(Await.result(_, 1.minute))
+    assert(results.forall(_.exists(bytes => new String(bytes.take(5), "ISO-8859-1") == "%PDF-")))
+    assert(toBytes(convertJSONtoPDF("not a json", _)).isEmpty)
+  }
 }
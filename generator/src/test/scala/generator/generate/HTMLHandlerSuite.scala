@@ -124,4 +124,46 @@ class HTMLHandlerSuite extends FunSuite {
     val cssString = ".bigHeader{ color: blue; text-align: center; font-weight: bold; font-family: corbel; font-size: 20pt;} "
     assert(writeHTMLString(emptyMap, cssString) equals expectedHTML)
   }
+
+  /**
+    * Tests that the HTML keeps the order of ordered content, and that each formattingID gets a single CSS class
+    */
+  test("writeHTMLString keeps the order of the content") {
+    val ordered = (1 to 10).map(i => ("keyword" + i) -> Content("", "Item " + i, Paragraph(), "bigHeader"))
+    val html = writeHTMLString(ordered, createCssString(ordered, configMap))
+    val positions = (1 to 10).map(i => html.indexOf(">Item " + i + "<"))
+    assert(positions.forall(_ >= 0) && positions == positions.sorted)
+    assert(createCssString(ordered, configMap) == createCssString(content, configMap))
+  }
+
+  /**
+    * Tests that lists and tables are written the same way whatever collection holds their values, and that text is escaped
+    */
+  test("writeHTMLString writes lists and tables") {
+    val lists =
+      List(
+        "list" -> Content("", Iterator("a < b", "c"), OrderedList()),
+        "table" -> Content("", Map("x" -> List(1, 2), "y" -> java.util.stream.Stream.of(3)), Table(), "small"),
+        "break" -> Content("", "", PageBreak())
+      )
+    val expected = "<html><head> <style>  </style> </head><body><ol class=\"\"><li>a &lt; b</li><li>c</li></ol>" +
+      "<table class=\"small\"><tr><th>xy</th></tr><tr><td>1</td><td>3</td></tr><tr><td>2</td><td></td></tr></table>" +
+      "<div style=\"page-break-before: always\"></div></body></html>"
+    assert(writeHTMLString(lists, "") == expected)
+  }
+
+  /**
+    * Tests that reading the HTML through a HTMLReader gives the same document writeHTMLString does
+    */
+  test("htmlReader reads the same HTML") {
+    val reader = htmlReader(content, "")
+    val read = new java.io.StringWriter()
+    val buffer = new Array[Char](7)
+    var count = reader.read(buffer)
+    while (count != -1) {
+      read.write(buffer, 0, count)
+      count = reader.read(buffer)
+    }
+    assert(read.toString == writeHTMLString(content, "") && reader.length == read.toString.length)
+  }
 }
@@ -0,0 +1,88 @@
+package generator.generate
+
+import java.awt.image.BufferedImage
+import java.io.{ByteArrayOutputStream, File}
+
+import generator.utils._
+import javax.imageio.ImageIO
+import org.apache.pdfbox.pdmodel.PDDocument
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class OutputProfileSuite extends FunSuite {
+
+  val content: Generator.ContentMap =
+    Map(
+      "title" -> Content("", "Quarterly report", Header1()),
+      "rows" -> Content("rows", (1 to 300).map("Row " + _).toList, Table())
+    )
+
+  private lazy val photo: File = {
+    val file = File.createTempFile("photo", ".png")
+    file.deleteOnExit()
+    val image = new BufferedImage(2000, 1500, BufferedImage.TYPE_INT_RGB)
+    for (x <- 0 until 2000; y <- 0 until 1500) image.setRGB(x, y, (x * 7 + y * 13) % 0xffffff)
+    ImageIO.write(image, "png", file)
+    file
+  }
+
+  private def isObjectStream(bytes: Array[Byte]): Boolean = new String(bytes, "ISO-8859-1").contains("/ObjStm")
+
+  private def imageWidths(bytes: Array[Byte]): List[Int] = {
+    val document = PDDocument.load(bytes)
+    try {
+      val resources = document.getPage(0).getResources
+      resources.getXObjectNames.asScala.toList.map(resources.getXObject).collect { case image: PDImageXObject => image.getWidth }
+    } finally document.close()
+  }
+
+  /**
+    * Tests that the predefined profiles are found by their names
+    */
+  test("named profiles") {
+    assert(OutputProfile.named("archive-compact").contains(OutputProfile.ArchiveCompact))
+    assert(OutputProfile.named(" Fast ").contains(OutputProfile.Fast))
+    assert(OutputProfile.named("default").contains(OutputProfile.Default))
+    assert(OutputProfile.named("smallest").isEmpty)
+  }
+
+  /**
+    * Tests that the values of a profile are checked
+    */
+  test("OutputProfile with invalid values") {
+    assertThrows[IllegalArgumentException](OutputProfile(compressionLevel = 10))
+    assertThrows[IllegalArgumentException](OutputProfile(maxImageSize = -1))
+    assertThrows[IllegalArgumentException](OutputProfile(imageQuality = 0))
+  }
+
+  /**
+    * Tests that the archive profile writes object streams and a smaller document than the default one
+    */
+  test("archive-compact writes object streams") {
+    val (default, compact) = (new ByteArrayOutputStream(), new ByteArrayOutputStream())
+    assert(Generator.convertMapToPDF(content, default, profile = OutputProfile.Default))
+    assert(Generator.convertMapToPDF(content, compact, profile = OutputProfile.ArchiveCompact))
+
+    assert(!isObjectStream(default.toByteArray) && isObjectStream(compact.toByteArray))
+    assert(compact.size < default.size)
+  }
+
+  /**
+    * Tests that the archive profile scales down large images, and that the default profile keeps them as they are
+    */
+  test("archive-compact scales down large images") {
+    val withPhoto = Map("photo" -> Content("", "", Image(photo.getPath)))
+    val (default, compact) = (new ByteArrayOutputStream(), new ByteArrayOutputStream())
+    assert(Generator.convertMapToPDFDirect(withPhoto, default, profile = OutputProfile.Default))
+    assert(Generator.convertMapToPDFDirect(withPhoto, compact, profile = OutputProfile.ArchiveCompact))
+
+    assert(imageWidths(default.toByteArray) == List(2000))
+    assert(imageWidths(compact.toByteArray) == List(1240))
+    assert(compact.size < default.size)
+  }
+}
@@ -0,0 +1,83 @@
+package generator.generate
+
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.Executors
+
+import generator.utils._
+import org.apache.pdfbox.pdmodel.PDDocument
+import org.apache.pdfbox.text.PDFTextStripper
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class ParallelRendererSuite extends FunSuite {
+
+  val formatting: Generator.ConfigMap = Map("bigHeader" -> Config("blue", "20", "center"))
+
+  private def section(i: Int): List[(String, Content)] =
+    List(
+      ("title" + i) -> Content("", "Section " + i, Header1(), "bigHeader"),
+      ("text" + i) -> Content("text", "Marker" + i, Paragraph())
+    )
+
+  private def pageTexts(bytes: Array[Byte]): List[String] = {
+    val document = PDDocument.load(bytes)
+    try {
+      val stripper = new PDFTextStripper()
+      (1 to document.getNumberOfPages).map { page =>
+        stripper.setStartPage(page)
+        stripper.setEndPage(page)
+        stripper.getText(document)
+      }.toList
+    } finally document.close()
+  }
+
+  /**
+    * Tests that the sections are merged in their original order, each one starting on a new page
+    */
+  test("sections are merged in order") {
+    val content = (0 until 6).toList.flatMap(i => ("break" + i) -> Content("", "", PageBreak()) :: section(i))
+    val executor = Executors.newFixedThreadPool(3)
+    val out = new ByteArrayOutputStream()
+    try assert(Generator.convertMapToPDFParallel(content, out, formatting, executor))
+    finally executor.shutdown()
+
+    val pages = pageTexts(out.toByteArray)
+    assert(pages.size == 6)
+    pages.zipWithIndex.foreach { case (text, i) => assert(text.contains("Marker" + i) && text.contains("Section " + i)) }
+  }
+
+  /**
+    * Tests that PageBreaks at the edges or next to each other don't produce empty sections
+    */
+  test("splitSections skips empty sections") {
+    val break = "break" -> Content("", "", PageBreak())
+    val sections = ParallelRenderer.splitSections(List(break, break) ++ section(0) ++ List(break, break) ++ section(1) :+ break)
+    assert(sections == List(section(0), section(1)))
+  }
+
+  /**
+    * Tests that nothing is written when a section fails, even after the sections before it were rendered
+    */
+  test("a failed section writes nothing") {
+    val failing = new java.util.Iterator[String] {
+      override def hasNext: Boolean = true
+
+      override def next(): String = throw new IllegalStateException("The values could not be read")
+    }
+    val content = section(0) ++ List("break" -> Content("", "", PageBreak()), "items" -> Content("items", failing, UnorderedList()))
+    val executor = Executors.newFixedThreadPool(2)
+    val out = new ByteArrayOutputStream()
+    try assert(!Generator.convertMapToPDFParallel(content, out, formatting, executor))
+    finally executor.shutdown()
+    assert(out.size == 0)
+  }
+
+  /**
+    * Tests that content with no sections is not rendered
+    */
+  test("render with no content") {
+    assert(!Generator.convertMapToPDFParallel(List(), new ByteArrayOutputStream(), formatting))
+  }
+}
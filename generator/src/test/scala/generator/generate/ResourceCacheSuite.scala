@@ -0,0 +1,119 @@
+package generator.generate
+
+import java.awt.image.BufferedImage
+import java.io.{ByteArrayOutputStream, File, StringReader}
+import java.nio.file.Files
+import java.util.Base64
+
+import com.itextpdf.text.pdf.BaseFont
+import javax.imageio.ImageIO
+import org.apache.pdfbox.pdmodel.PDDocument
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class ResourceCacheSuite extends FunSuite {
+
+  private def pngFile(): File = {
+    val file = File.createTempFile("logo", ".png")
+    file.deleteOnExit()
+    ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "png", file)
+    file
+  }
+
+  /**
+    * Tests that an image is only read once, and that each call gets its own copy
+    */
+  test("image caches the decoded image") {
+    val resources = new ResourceCache()
+    val file = pngFile()
+    val first = resources.image(file.getPath)
+    file.delete() //the next calls can only succeed if the image is cached
+
+    val second = resources.image(file.getPath)
+    assert(first.isDefined && second.isDefined && !(first.get eq second.get))
+    assert(second.get.getWidth == 20 && second.get.getHeight == 10)
+  }
+
+  /**
+    * Tests that the least recently used image is the one dropped, and that images that can't be loaded are not cached
+    */
+  test("image keeps at most maxImages images") {
+    val resources = new ResourceCache(maxImages = 1)
+    val (logo, banner) = (pngFile(), pngFile())
+    assert(resources.image(logo.getPath).isDefined && resources.image(banner.getPath).isDefined)
+    logo.delete()
+    banner.delete()
+
+    assert(resources.image(banner.getPath).isDefined)
+    assert(resources.image(logo.getPath).isEmpty)
+    assert(resources.image("non existing URI").isEmpty)
+  }
+
+  /**
+    * Tests that data URIs are decoded
+    */
+  test("image decodes data URIs") {
+    val bytes = Files.readAllBytes(pngFile().toPath)
+    val image = new ResourceCache().image("data:image/png;base64," + Base64.getEncoder.encodeToString(bytes))
+    assert(image.exists(_.getWidth == 20))
+  }
+
+  /**
+    * Tests that a file that isn't a font is not registered
+    */
+  test("registerFont with an invalid font") {
+    val resources = new ResourceCache()
+    assert(!resources.registerFont(pngFile()))
+    assert(!resources.registerFont(pngFile(), "logo"))
+
+    val notAFont = File.createTempFile("font", ".ttf")
+    notAFont.deleteOnExit()
+    Files.write(notAFont.toPath, "not a font".getBytes)
+    assert(!resources.registerFont(notAFont, "not a font"))
+    assert(!resources.fontProvider.isRegistered("not a font"))
+  }
+
+  /**
+    * Tests that the system fonts are available without registering them, when the system has TrueType fonts
+    */
+  test("the font provider finds the system fonts") {
+    val directories = List("/usr/share/fonts", "/Library/Fonts", "C:/Windows/Fonts").map(new File(_)).filter(_.isDirectory)
+    def fonts(file: File): List[File] =
+      if (file.isDirectory) Option(file.listFiles).toList.flatten.flatMap(fonts)
+      else if (file.getName.toLowerCase.endsWith(".ttf")) List(file) else Nil
+    val systemFont = directories.flatMap(fonts).headOption
+    assume(systemFont.isDefined, "there are no TrueType system fonts")
+
+    val name = BaseFont.getFullFontName(systemFont.get.getPath, BaseFont.WINANSI, null)(0)(3)
+    assert(new ResourceCache().fontProvider.isRegistered(name))
+  }
+
+  /**
+    * Tests that XMLWorker retrieves the images of the HTML from the cache
+    */
+  test("the pipeline retrieves images from the cache") {
+    val pipeline = new GeneratorPipeline(resources = new ResourceCache())
+    val file = pngFile()
+    def render(): PDDocument = {
+      val out = new ByteArrayOutputStream()
+      pipeline.render(new StringReader("<html><head></head><body><img src=\"" + file.getPath + "\"/></body></html>"),
+        pipeline.stylesheet(""), out)
+      PDDocument.load(out.toByteArray)
+    }
+
+    render().close()
+    file.delete()
+    val document = render()
+    try assert(document.getPage(0).getResources.getXObjectNames.iterator.hasNext)
+    finally document.close()
+  }
+
+  /**
+    * Tests that the number of cached images must be positive
+    */
+  test("ResourceCache with no images") {
+    assertThrows[IllegalArgumentException](new ResourceCache(0))
+  }
+}
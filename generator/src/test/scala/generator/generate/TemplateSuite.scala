@@ -0,0 +1,81 @@
+package generator.generate
+
+import java.io.ByteArrayOutputStream
+
+import generator.utils._
+import org.apache.pdfbox.pdmodel.PDDocument
+import org.apache.pdfbox.text.PDFTextStripper
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class TemplateSuite extends FunSuite {
+
+  val skeleton =
+    Map(
+      "title" -> Content("", "Monthly statement", Header1(), "bigHeader"),
+      "name" -> Content("name", "", Paragraph()),
+      "items" -> Content("items", List(), Table(), "small")
+    )
+  val formatting: Generator.ConfigMap = Map("bigHeader" -> Config("blue", "20", "center"), "small" -> Config("", "10"))
+  lazy val template = Template.compile(skeleton, formatting)
+
+  private def pages(bytes: Array[Byte]): (Int, String) = {
+    val document = PDDocument.load(bytes)
+    try (document.getNumberOfPages, new PDFTextStripper().getText(document))
+    finally document.close()
+  }
+
+  /**
+    * Tests that each record is rendered with its own values and the skeleton's values for the keywords it doesn't have
+    */
+  test("renderEach fills the template with each record") {
+    val records = Iterator(Map("name" -> "John Doe", "items" -> List("tea", "milk")), Map("name" -> "Jane Doe"))
+    val documents = template.renderEach(records).toList.map(_.map(pages))
+
+    assert(documents.size == 2 && documents.forall(_.isDefined))
+    val (_, first) = documents.head.get
+    val (_, second) = documents(1).get
+    assert(first.contains("Monthly statement") && first.contains("name : John Doe") && first.contains("milk"))
+    assert(second.contains("Monthly statement") && second.contains("name : Jane Doe") && !second.contains("milk"))
+  }
+
+  /**
+    * Tests that combining the records puts each one on its own page of a single document
+    */
+  test("renderCombined puts each record on a new page") {
+    val out = new ByteArrayOutputStream()
+    val records = Iterator.range(0, 3).map(i => Map[String, Any]("name" -> ("Customer " + i)))
+    assert(template.renderCombined(records, out))
+    val (numberOfPages, text) = pages(out.toByteArray)
+    assert(numberOfPages == 3 && (0 until 3).forall(i => text.contains("Customer " + i)))
+  }
+
+  /**
+    * Tests that an ordered skeleton is rendered in its order, even with more keywords than a small Map keeps in order
+    */
+  test("compile keeps the order of an ordered skeleton") {
+    val ordered = (0 until 8).map(i => ("line" + i) -> Content("", "Line " + i, Paragraph())) :+ ("title" -> Content("", "Closing", Header1()))
+    val bytes = Template.compile(ordered).renderBytes(Map())
+    val (_, text) = pages(bytes.get)
+    val positions = ((0 until 8).map("Line " + _) :+ "Closing").map(text.indexOf)
+    assert(positions.forall(_ >= 0) && positions == positions.sorted)
+  }
+
+  /**
+    * Tests that the template's documents are compressed as its OutputProfile says
+    */
+  test("compile with an OutputProfile") {
+    val compact = Template.compile(skeleton, formatting, OutputProfile.ArchiveCompact).renderBytes(Map("name" -> "John Doe"))
+    assert(compact.exists(bytes => new String(bytes, "ISO-8859-1").contains("/ObjStm")))
+    assert(template.renderBytes(Map("name" -> "John Doe")).exists(bytes => !new String(bytes, "ISO-8859-1").contains("/ObjStm")))
+  }
+
+  /**
+    * Tests that a template can't be compiled from an empty skeleton
+    */
+  test("compile with an empty skeleton") {
+    assertThrows[IllegalArgumentException](Template.compile(Map()))
+  }
+}
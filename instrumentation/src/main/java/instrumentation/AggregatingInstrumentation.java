@@ -0,0 +1,105 @@
+package instrumentation;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation that keeps running totals of everything reported to it, to be read by tests or exported as metrics
+ */
+public class AggregatingInstrumentation implements Instrumentation {
+
+    private final Map<String, LongAdder> stageCalls = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> stageNanos = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cacheHits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cacheMisses = new ConcurrentHashMap<>();
+
+    @Override
+    public void stage(String stage, long nanos) {
+        adder(stageCalls, stage).increment();
+        adder(stageNanos, stage).add(nanos);
+    }
+
+    @Override
+    public void count(String counter, long amount) {
+        adder(counters, counter).add(amount);
+    }
+
+    @Override
+    public void cacheHit(String cache) {
+        adder(cacheHits, cache).increment();
+    }
+
+    @Override
+    public void cacheMiss(String cache) {
+        adder(cacheMisses, cache).increment();
+    }
+
+    /**
+     * @param stage - The name of the stage
+     * @return the number of times the stage finished
+     */
+    public long stageCalls(String stage) {
+        return total(stageCalls, stage);
+    }
+
+    /**
+     * @param stage - The name of the stage
+     * @return the total time spent in the stage, in nanoseconds
+     */
+    public long stageNanos(String stage) {
+        return total(stageNanos, stage);
+    }
+
+    /**
+     * @param counter - The name of the counter
+     * @return the total amount reported to the counter
+     */
+    public long counter(String counter) {
+        return total(counters, counter);
+    }
+
+    /**
+     * @param cache - The name of the cache
+     * @return the number of hits reported by the cache
+     */
+    public long cacheHits(String cache) {
+        return total(cacheHits, cache);
+    }
+
+    /**
+     * @param cache - The name of the cache
+     * @return the number of misses reported by the cache
+     */
+    public long cacheMisses(String cache) {
+        return total(cacheMisses, cache);
+    }
+
+    /**
+     * Method that copies all the totals into a sorted map, with keys such as "stage.reader.ocr.calls", "stage.reader.ocr.nanos",
+     * "counter.reader.pages", "cache.css.hits" and "cache.css.misses"
+     *
+     * @return a SortedMap with the current value of every total
+     */
+    public SortedMap<String, Long> snapshot() {
+        SortedMap<String, Long> snapshot = new TreeMap<>();
+        stageCalls.forEach((name, adder) -> snapshot.put("stage." + name + ".calls", adder.sum()));
+        stageNanos.forEach((name, adder) -> snapshot.put("stage." + name + ".nanos", adder.sum()));
+        counters.forEach((name, adder) -> snapshot.put("counter." + name, adder.sum()));
+        cacheHits.forEach((name, adder) -> snapshot.put("cache." + name + ".hits", adder.sum()));
+        cacheMisses.forEach((name, adder) -> snapshot.put("cache." + name + ".misses", adder.sum()));
+        return snapshot;
+    }
+
+    private static LongAdder adder(Map<String, LongAdder> totals, String name) {
+        return totals.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    private static long total(Map<String, LongAdder> totals, String name) {
+        LongAdder adder = totals.get(name);
+        return adder == null ? 0 : adder.sum();
+    }
+}
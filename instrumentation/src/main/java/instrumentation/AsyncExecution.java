@@ -0,0 +1,116 @@
+package instrumentation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Support for the asynchronous variants of the Java API of the reader, generator and converter.
+ * <p>
+ * Tasks run on the caller's executor or, by default, on a pool of daemon threads bounded by the number of processors,
+ * since the tasks (OCR, spell-checking, tagging, converting and rendering) are bound by the CPU and hold whole documents in
+ * memory: the tasks beyond that wait in the pool's queue. Cancelling the returned future interrupts the thread running
+ * the task, and the long running stages check for that interruption and stop as soon as they can.
+ */
+public final class AsyncExecution {
+
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    private AsyncExecution() {
+    }
+
+    /**
+     * @return the executor used when the caller does not supply one
+     */
+    public static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * Method that runs a task asynchronously on the given executor
+     *
+     * @param task     - The task to be run
+     * @param executor - The executor in which to run the task
+     * @param <T>      - The type of the task's result
+     * @return a CompletableFuture completed with the task's result. Cancelling it interrupts the task
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor) {
+        CancellableTask<T> cancellable = new CancellableTask<>(task);
+        executor.execute(cancellable);
+        return cancellable.future;
+    }
+
+    /**
+     * Method that stops the current task if it was cancelled, called between the stages of the long running operations
+     *
+     * @throws CancellationException If the current thread was interrupted
+     */
+    public static void checkInterrupted() throws CancellationException {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("The operation was cancelled");
+    }
+
+    /**
+     * Method that creates the default executor, with a daemon thread per processor (stopped after a minute idle) and an
+     * unbounded queue for the tasks waiting for one
+     *
+     * @return the default executor
+     */
+    private static Executor createDefaultExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "flipper-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Task that completes a future with the result of a supplier and interrupts its thread if the future is cancelled
+     *
+     * @param <T> - The type of the task's result
+     */
+    private static final class CancellableTask<T> implements Runnable {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private Thread runner; //guarded by this
+
+        CancellableTask(Supplier<T> task) {
+            this.task = task;
+            future.whenComplete((result, error) -> {
+                if (future.isCancelled())
+                    interruptRunner();
+            });
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (future.isDone()) //cancelled before it started
+                    return;
+                runner = Thread.currentThread();
+            }
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    Thread.interrupted(); //don't leak the cancellation into the executor's next task
+                }
+            }
+        }
+
+        private synchronized void interruptRunner() {
+            if (runner != null)
+                runner.interrupt();
+        }
+    }
+}
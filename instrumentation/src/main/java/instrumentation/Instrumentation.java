@@ -0,0 +1,52 @@
+package instrumentation;
+
+/**
+ * Listener through which the reader, generator and converter report where their time goes.
+ * <p>
+ * Every stage of a call (loading the document, stripping its text, running the OCR, spell-checking, building the HTML,
+ * rendering the PDF...) reports its duration, and the amount of work done (bytes, pages, images, tokens) is reported
+ * through counters. Every method has an empty default, so implementations only override what they need.
+ * Implementations are called from the threads doing the work and should be thread safe and cheap.
+ */
+public interface Instrumentation {
+
+    /**
+     * The default instrumentation, which ignores everything it is told
+     */
+    Instrumentation NO_OP = new Instrumentation() {
+    };
+
+    /**
+     * Method called when a stage of a call finishes
+     *
+     * @param stage - The name of the stage, as in "reader.ocr"
+     * @param nanos - The time the stage took, in nanoseconds
+     */
+    default void stage(String stage, long nanos) {
+    }
+
+    /**
+     * Method called when a call does some countable amount of work
+     *
+     * @param counter - The name of the counter, as in "reader.pages"
+     * @param amount  - The amount to add to the counter
+     */
+    default void count(String counter, long amount) {
+    }
+
+    /**
+     * Method called when a cache already had the value being looked up
+     *
+     * @param cache - The name of the cache
+     */
+    default void cacheHit(String cache) {
+    }
+
+    /**
+     * Method called when a cache didn't have the value being looked up
+     *
+     * @param cache - The name of the cache
+     */
+    default void cacheMiss(String cache) {
+    }
+}
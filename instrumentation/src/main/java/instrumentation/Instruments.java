@@ -0,0 +1,152 @@
+package instrumentation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Holder of the Instrumentation installed for the whole JVM, and the helpers the modules use to report to it.
+ * Until another one is installed the no-op instrumentation is used, so reporting costs a volatile read per call.
+ * A task can also report to its own Instrumentation through withInstrumentation, which only affects the thread running it
+ */
+public final class Instruments {
+
+    private static volatile Instrumentation current = Instrumentation.NO_OP;
+
+    private static final ThreadLocal<Instrumentation> SCOPED = new ThreadLocal<>();
+    private static final AtomicInteger SCOPES = new AtomicInteger(); //the tasks running withInstrumentation, on any thread
+
+    private Instruments() {
+    }
+
+    /**
+     * @return the Instrumentation the current thread reports to: the one given to withInstrumentation while its task runs,
+     * otherwise the one currently installed
+     */
+    public static Instrumentation get() {
+        if (SCOPES.get() == 0)
+            return current;
+        Instrumentation scoped = SCOPED.get();
+        return scoped == null ? current : scoped;
+    }
+
+    /**
+     * Method that runs a task reporting to the given Instrumentation instead of the installed one. Only the current thread
+     * is affected, and the Instrumentation it reported to before is restored when the task ends, even if it throws
+     *
+     * @param instrumentation - The Instrumentation the task reports to
+     * @param task            - The task to run
+     * @param <T>             - The type of the task's result
+     * @return the result of the task
+     * @throws IllegalArgumentException If the instrumentation is null
+     */
+    public static <T> T withInstrumentation(Instrumentation instrumentation, Supplier<T> task) throws IllegalArgumentException {
+        if (instrumentation == null)
+            throw new IllegalArgumentException("The instrumentation should not be null, use Instrumentation.NO_OP instead");
+        Instrumentation previous = SCOPED.get();
+        SCOPED.set(instrumentation);
+        SCOPES.incrementAndGet();
+        try {
+            return task.get();
+        } finally {
+            SCOPES.decrementAndGet();
+            if (previous == null)
+                SCOPED.remove();
+            else
+                SCOPED.set(previous);
+        }
+    }
+
+    /**
+     * Method that installs the Instrumentation to which all the modules will report from now on
+     *
+     * @param instrumentation - The Instrumentation to install
+     * @throws IllegalArgumentException If the instrumentation is null
+     */
+    public static synchronized void install(Instrumentation instrumentation) throws IllegalArgumentException {
+        if (instrumentation == null)
+            throw new IllegalArgumentException("The instrumentation should not be null, use Instrumentation.NO_OP instead");
+        current = instrumentation;
+    }
+
+    /**
+     * Method that goes back to the no-op instrumentation
+     */
+    public static synchronized void reset() {
+        current = Instrumentation.NO_OP;
+    }
+
+    /**
+     * Method that attaches an Instrumentation to the one currently installed, so both are reported to from now on
+     * (through a TeeInstrumentation) until it is detached
+     *
+     * @param instrumentation - The Instrumentation to attach
+     * @throws IllegalArgumentException If the instrumentation is null
+     */
+    public static synchronized void attach(Instrumentation instrumentation) throws IllegalArgumentException {
+        if (instrumentation == null)
+            throw new IllegalArgumentException("The instrumentation should not be null");
+        current = current == Instrumentation.NO_OP ? instrumentation : new TeeInstrumentation(current, instrumentation);
+    }
+
+    /**
+     * Method that detaches an attached Instrumentation, leaving the installed one and any others attached as they were.
+     * Nothing changes if it isn't attached, as when another instrumentation was installed since
+     *
+     * @param instrumentation - The Instrumentation to detach
+     */
+    public static synchronized void detach(Instrumentation instrumentation) {
+        if (current == instrumentation)
+            current = Instrumentation.NO_OP;
+        else if (current instanceof TeeInstrumentation)
+            current = ((TeeInstrumentation) current).without(instrumentation);
+    }
+
+    /**
+     * Method that runs a stage and reports its duration, even if the stage throws
+     *
+     * @param stage - The name of the stage
+     * @param task  - The work done by the stage
+     * @param <T>   - The type of the stage's result
+     * @return the result of the stage
+     */
+    public static <T> T time(String stage, Supplier<T> task) {
+        Instrumentation instrumentation = get();
+        if (instrumentation == Instrumentation.NO_OP)
+            return task.get();
+
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            instrumentation.stage(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Method that reports some countable amount of work
+     *
+     * @param counter - The name of the counter
+     * @param amount  - The amount to add to the counter
+     */
+    public static void count(String counter, long amount) {
+        get().count(counter, amount);
+    }
+
+    /**
+     * Method that reports a cache hit
+     *
+     * @param cache - The name of the cache
+     */
+    public static void cacheHit(String cache) {
+        get().cacheHit(cache);
+    }
+
+    /**
+     * Method that reports a cache miss
+     *
+     * @param cache - The name of the cache
+     */
+    public static void cacheMiss(String cache) {
+        get().cacheMiss(cache);
+    }
+}
@@ -0,0 +1,98 @@
+package instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Instrumentation that turns every report into a Java Flight Recorder event, so the latency of each stage can be
+ * attributed in production from a recording (jcmd &lt;pid&gt; JFR.start) without attaching a profiler.
+ * <p>
+ * The events are named "flipper.Stage", "flipper.Counter" and "flipper.Cache" and are only built when they are enabled
+ * in the running recording. Requires a JVM with JFR (JDK 11, or JDK 8 from update 262)
+ */
+public class JfrInstrumentation implements Instrumentation {
+
+    @Override
+    public void stage(String stage, long nanos) {
+        StageEvent event = new StageEvent();
+        if (event.isEnabled()) {
+            event.stage = stage;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void count(String counter, long amount) {
+        CounterEvent event = new CounterEvent();
+        if (event.isEnabled()) {
+            event.counter = counter;
+            event.amount = amount;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void cacheHit(String cache) {
+        cacheEvent(cache, true);
+    }
+
+    @Override
+    public void cacheMiss(String cache) {
+        cacheEvent(cache, false);
+    }
+
+    private static void cacheEvent(String cache, boolean hit) {
+        CacheEvent event = new CacheEvent();
+        if (event.isEnabled()) {
+            event.cache = cache;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    @Name("flipper.Stage")
+    @Label("Flipper Stage")
+    @Description("A stage of a Flipper call finished")
+    @Category("Flipper")
+    @StackTrace(false)
+    static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("flipper.Counter")
+    @Label("Flipper Counter")
+    @Description("A Flipper call did some countable amount of work")
+    @Category("Flipper")
+    @StackTrace(false)
+    static class CounterEvent extends Event {
+        @Label("Counter")
+        String counter;
+
+        @Label("Amount")
+        long amount;
+    }
+
+    @Name("flipper.Cache")
+    @Label("Flipper Cache")
+    @Description("A Flipper cache was looked up")
+    @Category("Flipper")
+    @StackTrace(false)
+    static class CacheEvent extends Event {
+        @Label("Cache")
+        String cache;
+
+        @Label("Hit")
+        boolean hit;
+    }
+}
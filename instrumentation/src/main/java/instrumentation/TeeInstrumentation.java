@@ -0,0 +1,60 @@
+package instrumentation;
+
+/**
+ * Instrumentation that reports everything it is told to two instrumentations, so a component (like the extraction
+ * daemon) can keep its own metrics without replacing the instrumentation the application installed
+ */
+public final class TeeInstrumentation implements Instrumentation {
+
+    private final Instrumentation first;
+    private final Instrumentation second;
+
+    /**
+     * @param first  - The instrumentation that was installed before
+     * @param second - The instrumentation attached to it
+     */
+    public TeeInstrumentation(Instrumentation first, Instrumentation second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public void stage(String stage, long nanos) {
+        first.stage(stage, nanos);
+        second.stage(stage, nanos);
+    }
+
+    @Override
+    public void count(String counter, long amount) {
+        first.count(counter, amount);
+        second.count(counter, amount);
+    }
+
+    @Override
+    public void cacheHit(String cache) {
+        first.cacheHit(cache);
+        second.cacheHit(cache);
+    }
+
+    @Override
+    public void cacheMiss(String cache) {
+        first.cacheMiss(cache);
+        second.cacheMiss(cache);
+    }
+
+    /**
+     * Method that removes an attached instrumentation from this chain of tees, keeping the others attached in the same order
+     *
+     * @param attached - The instrumentation to remove
+     * @return the instrumentation without the removed one, which is this one if it wasn't attached
+     */
+    Instrumentation without(Instrumentation attached) {
+        if (second == attached)
+            return first;
+        if (first instanceof TeeInstrumentation) {
+            Instrumentation rest = ((TeeInstrumentation) first).without(attached);
+            return rest == first ? this : new TeeInstrumentation(rest, second);
+        }
+        return first == attached ? second : this;
+    }
+}
@@ -0,0 +1,118 @@
+package instrumentation;
+
+import org.junit.Test;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+public class InstrumentationJavaSuite {
+
+    /**
+     * Tests that the aggregating instrumentation keeps the totals of the stages, counters and caches reported to it
+     */
+    @Test
+    public void testAggregatingInstrumentation() {
+        AggregatingInstrumentation instrumentation = new AggregatingInstrumentation();
+        instrumentation.stage("reader.ocr", 10);
+        instrumentation.stage("reader.ocr", 5);
+        instrumentation.count("reader.pages", 3);
+        instrumentation.cacheHit("css");
+        instrumentation.cacheMiss("css");
+        instrumentation.cacheMiss("css");
+
+        assertTrue(instrumentation.stageCalls("reader.ocr") == 2 && instrumentation.stageNanos("reader.ocr") == 15);
+        assertTrue(instrumentation.counter("reader.pages") == 3 && instrumentation.counter("reader.images") == 0);
+        assertTrue(instrumentation.cacheHits("css") == 1 && instrumentation.cacheMisses("css") == 2);
+        assertEquals(Long.valueOf(15), instrumentation.snapshot().get("stage.reader.ocr.nanos"));
+    }
+
+    /**
+     * Tests that Instruments.time reports the stage to the thread's instrumentation and returns the stage's result
+     */
+    @Test
+    public void testTimeStage() {
+        AggregatingInstrumentation instrumentation = new AggregatingInstrumentation();
+        String result = Instruments.withInstrumentation(instrumentation, () -> Instruments.time("test.stage", () -> "done"));
+        assertTrue(result.equals("done") && instrumentation.stageCalls("test.stage") == 1);
+    }
+
+    /**
+     * Tests that withInstrumentation only affects its own thread, and restores the instrumentation reported to before it
+     */
+    @Test
+    public void testWithInstrumentation() throws InterruptedException {
+        AggregatingInstrumentation outer = new AggregatingInstrumentation();
+        AggregatingInstrumentation inner = new AggregatingInstrumentation();
+        Instrumentation[] seenByOtherThread = new Instrumentation[1];
+        Thread other = new Thread(() -> seenByOtherThread[0] = Instruments.get());
+        Instruments.withInstrumentation(outer, () -> {
+            Instruments.withInstrumentation(inner, () -> {
+                Instruments.count("test.counter", 1);
+                other.start();
+                return null;
+            });
+            Instruments.count("test.counter", 2);
+            return null;
+        });
+        other.join();
+
+        assertTrue(inner.counter("test.counter") == 1 && outer.counter("test.counter") == 2);
+        assertTrue(seenByOtherThread[0] != inner && seenByOtherThread[0] != outer);
+        assertTrue(Instruments.get() != inner && Instruments.get() != outer);
+    }
+
+    /**
+     * Tests that installing a null instrumentation is rejected
+     */
+    @Test
+    public void testInstallNull() {
+        try {
+            Instruments.install(null);
+            fail("Instruments.install accepted a null instrumentation");
+        } catch (Exception e) {
+            assertTrue(e instanceof IllegalArgumentException && Instruments.get() == Instrumentation.NO_OP);
+        }
+    }
+
+    /**
+     * Tests that attached instrumentations are reported to along with the installed one, and that detaching one in any
+     * order leaves the others as they were
+     */
+    @Test
+    public void testAttachAndDetach() {
+        AggregatingInstrumentation installed = new AggregatingInstrumentation();
+        AggregatingInstrumentation first = new AggregatingInstrumentation();
+        AggregatingInstrumentation second = new AggregatingInstrumentation();
+        Instruments.install(installed);
+        try {
+            Instruments.attach(first);
+            Instruments.attach(second);
+            Instruments.count("test.counter", 1);
+            Instruments.detach(first);
+            Instruments.count("test.counter", 1);
+            Instruments.detach(second);
+            Instruments.count("test.counter", 1);
+
+            assertTrue(installed.counter("test.counter") == 3 && first.counter("test.counter") == 1 && second.counter("test.counter") == 2);
+            assertTrue(Instruments.get() == installed);
+        } finally {
+            Instruments.reset();
+        }
+
+        Instruments.attach(first);
+        Instruments.detach(first);
+        assertTrue(Instruments.get() == Instrumentation.NO_OP);
+    }
+
+    /**
+     * Tests that the default executor has at most one thread per processor, however many tasks are waiting
+     */
+    @Test
+    public void testDefaultExecutorIsBounded() {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) AsyncExecution.defaultExecutor();
+        assertEquals(Runtime.getRuntime().availableProcessors(), pool.getMaximumPoolSize());
+    }
+}
@@ -0,0 +1,156 @@
+package loadtest
+
+import java.awt.image.BufferedImage
+import java.awt.{Color, Font, RenderingHints}
+import java.io.File
+
+import org.apache.pdfbox.pdmodel.common.PDRectangle
+import org.apache.pdfbox.pdmodel.font.PDType1Font
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory
+import org.apache.pdfbox.pdmodel.{PDDocument, PDPage, PDPageContentStream}
+
+import scala.util.Random
+
+/**
+  * Class that represents a generated PDF document and the values the reader is expected to find in it
+  *
+  * @param file         - The generated PDF document
+  * @param expectedName - The value expected for the "name" keyword
+  * @param expectedMail - The value expected for the "mail" keyword
+  * @param scanned      - If the text of the document is only in a page image, and so can only be read by the OCR
+  */
+case class CorpusDocument(file: File, expectedName: String, expectedMail: String, scanned: Boolean)
+
+/**
+  * Class that represents a content JSON for the generator and the marker the generated PDF is expected to contain
+  *
+  * @param json   - The content JSON
+  * @param marker - A value unique to this JSON that must be found in the PDF generated from it
+  */
+case class CorpusContent(json: String, marker: String)
+
+/**
+  * Class that represents a synthetic corpus generated locally
+  *
+  * @param documents - The text and scanned PDF documents
+  * @param contents  - The content JSONs for the generator
+  */
+case class Corpus(documents: Vector[CorpusDocument], contents: Vector[CorpusContent]) {
+  def textDocuments: Vector[CorpusDocument] = documents.filterNot(_.scanned)
+
+  def scannedDocuments: Vector[CorpusDocument] = documents.filter(_.scanned)
+}
+
+/**
+  * Singleton object that generates the synthetic corpus used by the load tests, so no real documents are needed
+  */
+object Corpus {
+
+  private val firstNames = Vector("Alice", "Bruno", "Carla", "Diogo", "Elisa", "Filipe", "Greta", "Hugo")
+  private val lastNames = Vector("Martins", "Ferreira", "Costa", "Almeida", "Ribeiro", "Pereira", "Santos", "Lopes")
+  private val filler = List(
+    "This document was generated for the load tests of the reader.",
+    "It contains a short letter written in plain English, with some information about a person.",
+    "The values in this letter are random, and the reader should find them all the same.",
+    "Please keep this letter with the rest of the records of the company.")
+
+  /**
+    * Method that generates a corpus in the given directory
+    *
+    * @param dir       - The directory in which to write the documents
+    * @param documents - The number of documents of each kind (text and scanned) and of content JSONs to generate
+    * @param seed      - The seed of the random values, so the same corpus can be generated again
+    * @throws IllegalArgumentException If the number of documents is not positive
+    * @return the generated Corpus
+    */
+  @throws[IllegalArgumentException]
+  def generate(dir: File, documents: Int, seed: Long = 42L): Corpus = {
+    require(documents > 0, "The number of documents should be positive")
+    if (!dir.exists) dir.mkdirs
+    val random = new Random(seed)
+
+    val generated = (0 until documents).flatMap { i =>
+      val name = firstNames(random.nextInt(firstNames.length)) + " " + lastNames(random.nextInt(lastNames.length))
+      val mail = name.toLowerCase.replace(' ', '.') + i + "@example.com"
+      val lines = ("My name is " + name + " and my mail is " + mail) :: filler
+      List(
+        CorpusDocument(writeTextPDF(new File(dir, "text_" + i + ".pdf"), lines), name, mail, scanned = false),
+        CorpusDocument(writeScannedPDF(new File(dir, "scanned_" + i + ".pdf"), lines), name, mail, scanned = true))
+    }.toVector
+
+    val contents = (0 until documents).map { i =>
+      val marker = "Record" + i + "x" + random.nextInt(1000000)
+      val json =
+        "{ \"title\" : { \"fieldName\" : \"title\", \"fieldValue\" : \"" + marker + "\", \"fieldType\" : \"Header1\" }," +
+          " \"body\" : { \"fieldName\" : \"body\", \"fieldValue\" : \"" + filler.mkString(" ") + "\", \"fieldType\" : \"Paragraph\" }," +
+          " \"items\" : { \"fieldName\" : \"items\", \"fieldValue\" : [\"one\", \"two\", \"three\"], \"fieldType\" : \"UnorderedList\" } }"
+      CorpusContent(json, marker)
+    }.toVector
+
+    Corpus(generated, contents)
+  }
+
+  /**
+    * Auxiliary method that writes a PDF document with the given lines in its text layer
+    *
+    * @param file  - The file to write
+    * @param lines - The lines of text of the document
+    * @return the written file
+    */
+  private def writeTextPDF(file: File, lines: List[String]): File = {
+    val document = new PDDocument()
+    try {
+      val page = new PDPage(PDRectangle.A4)
+      document.addPage(page)
+      val contents = new PDPageContentStream(document, page)
+      contents.beginText()
+      contents.setFont(PDType1Font.HELVETICA, 11)
+      contents.setLeading(16)
+      contents.newLineAtOffset(50, 780)
+      lines.foreach { line =>
+        contents.showText(line)
+        contents.newLine()
+      }
+      contents.endText()
+      contents.close()
+      document.save(file)
+    } finally {
+      document.close()
+    }
+    file
+  }
+
+  /**
+    * Auxiliary method that writes a PDF document whose only page is an image of the given lines, as a scanner would
+    *
+    * @param file  - The file to write
+    * @param lines - The lines of text drawn in the page image
+    * @return the written file
+    */
+  private def writeScannedPDF(file: File, lines: List[String]): File = {
+    val scale = 200f / 72 //draw the page at 200 dpi
+    val pageSize = PDRectangle.A4
+    val image = new BufferedImage((pageSize.getWidth * scale).toInt, (pageSize.getHeight * scale).toInt, BufferedImage.TYPE_BYTE_GRAY)
+    val graphics = image.createGraphics()
+    graphics.setColor(Color.WHITE)
+    graphics.fillRect(0, 0, image.getWidth, image.getHeight)
+    graphics.setColor(Color.BLACK)
+    graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON)
+    graphics.setFont(new Font(Font.SERIF, Font.PLAIN, (11 * scale).toInt))
+    lines.zipWithIndex.foreach { case (line, i) => graphics.drawString(line, 50 * scale, (62 + 16 * i) * scale) }
+    graphics.dispose()
+
+    val document = new PDDocument()
+    try {
+      val page = new PDPage(pageSize)
+      document.addPage(page)
+      val contents = new PDPageContentStream(document, page)
+      contents.drawImage(LosslessFactory.createFromImage(document, image), 0, 0, pageSize.getWidth, pageSize.getHeight)
+      contents.close()
+      document.save(file)
+    } finally {
+      document.close()
+    }
+    file
+  }
+}
@@ -0,0 +1,247 @@
+package loadtest
+
+import java.lang.management.{ManagementFactory, MemoryType}
+import java.nio.file.{Files, Path}
+import java.util.Comparator
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{Callable, Executors, TimeUnit}
+
+import generator.generate.Generator
+import javax.imageio.ImageIO
+import org.apache.pdfbox.pdmodel.PDDocument
+import org.apache.pdfbox.text.PDFTextStripper
+import org.odftoolkit.simple.TextDocument
+import parser.conversion.{Converter, PNG}
+import parser.extraction.Extractor
+import parser.utils.{Noun, ProperNoun}
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+import scala.io.Source
+
+/**
+  * Class that represents the outcome of a load test
+  *
+  * @param scenario      - The name of the scenario that was run
+  * @param threads       - The number of threads that ran the scenario
+  * @param operations    - The number of operations that finished
+  * @param failures      - The number of operations that threw or reported a failure
+  * @param incorrect     - The number of operations that finished but whose output wasn't the expected one
+  * @param elapsedMillis - The time the load test took, in milliseconds
+  * @param latencies     - The latency of each operation, in nanoseconds, sorted
+  * @param heapPeakBytes - The highest heap usage seen during the load test, in bytes
+  */
+case class LoadReport(scenario: String, threads: Int, operations: Int, failures: Int, incorrect: Int,
+                      elapsedMillis: Long, latencies: Vector[Long], heapPeakBytes: Long) {
+
+  /**
+    * @return the number of operations finished per second
+    */
+  def throughput: Double = if (elapsedMillis == 0) 0 else operations * 1000.0 / elapsedMillis
+
+  /**
+    * Method that finds a percentile of the latencies, using the nearest rank
+    *
+    * @param p - The percentile, between 0 and 100
+    * @return the latency of that percentile in milliseconds, or 0 if no operation finished
+    */
+  def percentileMillis(p: Double): Double =
+    if (latencies.isEmpty) 0
+    else {
+      val rank = math.ceil(p / 100 * latencies.length).toInt
+      latencies(math.min(latencies.length - 1, math.max(0, rank - 1))) / 1e6
+    }
+
+  /**
+    * @return a human readable summary of the report
+    */
+  def format: String =
+    f"$scenario%-16s threads=$threads%-3d ops=$operations%-6d failed=$failures%-4d incorrect=$incorrect%-4d " +
+      f"throughput=$throughput%.2f ops/s p50=${percentileMillis(50)}%.1f ms p90=${percentileMillis(90)}%.1f ms " +
+      f"p99=${percentileMillis(99)}%.1f ms max=${percentileMillis(100)}%.1f ms heap peak=${heapPeakBytes / (1024 * 1024)} MB"
+}
+
+/**
+  * Singleton object that drives the reader, generator and converter at a given concurrency over a generated corpus
+  */
+object LoadRunner {
+
+  val scenarios: List[String] = List("extract", "extract-scanned", "generate", "convert", "convert-html", "convert-odt", "mixed")
+
+  /**
+    * Method that runs a scenario over the corpus with a fixed number of threads, for the given duration
+    *
+    * @param scenario - One of the scenarios: extract, extract-scanned, generate, convert, convert-html, convert-odt or mixed
+    * @param corpus   - The corpus the operations are run over
+    * @param threads  - The number of threads running operations at the same time
+    * @param duration - How long to keep running operations, in seconds. Operations started before the end are allowed to finish
+    * @throws IllegalArgumentException If the scenario is not supported, or the number of threads or the duration are not positive
+    * @return the LoadReport of the run
+    */
+  @throws[IllegalArgumentException]
+  def run(scenario: String, corpus: Corpus, threads: Int, duration: Int): LoadReport = {
+    require(scenarios.contains(scenario), "The scenario should be one of " + scenarios.mkString(", "))
+    require(threads > 0 && duration > 0, "The number of threads and the duration should be positive")
+
+    val operation = operationFor(scenario, corpus)
+    val heapPools = ManagementFactory.getMemoryPoolMXBeans.asScala.filter(_.getType == MemoryType.HEAP)
+    heapPools.foreach(_.resetPeakUsage())
+
+    val next = new AtomicInteger()
+    val pool = Executors.newFixedThreadPool(threads)
+    val start = System.nanoTime()
+    val deadline = start + TimeUnit.SECONDS.toNanos(duration)
+
+    val workers = (0 until threads).map { _ =>
+      pool.submit(new Callable[(Vector[Long], Int, Int)] {
+        override def call(): (Vector[Long], Int, Int) = {
+          val latencies = ArrayBuffer[Long]()
+          var failures = 0
+          var incorrect = 0
+          while (System.nanoTime() < deadline) {
+            val before = System.nanoTime()
+            val outcome =
+              try operation(next.getAndIncrement())
+              catch {
+                case e: Exception => e.printStackTrace(); None
+              }
+            latencies += System.nanoTime() - before
+            outcome match {
+              case None => failures += 1
+              case Some(false) => incorrect += 1
+              case Some(true) =>
+            }
+          }
+          (latencies.toVector, failures, incorrect)
+        }
+      })
+    }
+    val results = workers.map(_.get())
+    val elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+    pool.shutdown()
+
+    val latencies = results.flatMap(_._1).toVector.sorted
+    LoadReport(scenario, threads, latencies.length, results.map(_._2).sum, results.map(_._3).sum,
+      elapsedMillis, latencies, heapPools.map(_.getPeakUsage.getUsed).sum)
+  }
+
+  /**
+    * Auxiliary method that builds the operation run by a scenario. Each operation receives a sequence number, used to
+    * pick the corpus entry it runs over, and returns None if it failed or Some of whether its output was the expected one
+    *
+    * @param scenario - The name of the scenario
+    * @param corpus   - The corpus the operations are run over
+    * @return the operation of the scenario
+    */
+  private def operationFor(scenario: String, corpus: Corpus): Int => Option[Boolean] = scenario match {
+    case "extract" => i => extract(pick(corpus.textDocuments, i))
+    case "extract-scanned" => i => extract(pick(corpus.scannedDocuments, i))
+    case "generate" => i => generate(pick(corpus.contents, i))
+    case "convert" => i => convert(pick(corpus.textDocuments, i))
+    case "convert-html" => i => convertToHTML(pick(corpus.textDocuments, i))
+    case "convert-odt" => i => convertToODT(pick(corpus.textDocuments, i))
+    case "mixed" =>
+      val operations = scenarios.filterNot(_ == "mixed").toVector.map(operationFor(_, corpus))
+      i => operations(i % operations.length)(i / operations.length)
+  }
+
+  private def pick[A](entries: Vector[A], i: Int): A = entries(i % entries.length)
+
+  /**
+    * Auxiliary method that reads a document and checks the values found for its keywords
+    */
+  private def extract(document: CorpusDocument): Option[Boolean] = {
+    val text = Extractor.readPDF(document.file, readImages = document.scanned)
+    if (text.isEmpty) None
+    else {
+      val matched = Extractor.getAllMatchedValues(text, Map("name" -> ProperNoun(), "mail" -> Noun()), includeDuplicates = false)
+      Some(matched.get("name").exists(_.contains(document.expectedName)) &&
+        matched.get("mail").exists(_.contains(document.expectedMail)))
+    }
+  }
+
+  /**
+    * Auxiliary method that generates a PDF from a content JSON in memory and checks the generated PDF contains its marker
+    */
+  private def generate(content: CorpusContent): Option[Boolean] = {
+    Generator.toBytes(Generator.convertJSONtoPDF(content.json, _)).map { bytes =>
+      val document = PDDocument.load(bytes)
+      try new PDFTextStripper().getText(document).contains(content.marker)
+      finally document.close()
+    }
+  }
+
+  /**
+    * Auxiliary method that converts a document into images and checks an image of the size of each page was written.
+    * Each conversion writes into its own temporary directory, so it only sees its own images
+    */
+  private def convert(document: CorpusDocument): Option[Boolean] = withTempDir { dir =>
+    if (!Converter.convertPDFtoIMG(document.file, PNG(), dir.toFile)) None
+    else {
+      val pdf = PDDocument.load(document.file)
+      val pageSizes = //the size of each page's image, rendered at 72 dpi
+        try (0 until pdf.getNumberOfPages).map(pdf.getPage(_).getCropBox).map(box => (box.getWidth.toInt, box.getHeight.toInt))
+        finally pdf.close()
+      val written = Option(dir.toFile.listFiles).toList.flatten
+      Some(written.length == pageSizes.length && pageSizes.zipWithIndex.forall { case ((width, height), i) =>
+        val page = ("Converted_Page" + i + "_\\d+\\.png").r
+        written.exists { file =>
+          file.getName match {
+            case page() => Option(ImageIO.read(file)).exists(image => image.getWidth == width && image.getHeight == height)
+            case _ => false
+          }
+        }
+      })
+    }
+  }
+
+  /**
+    * Auxiliary method that converts a document into an HTML file of its own and checks it has the document's name and mail
+    */
+  private def convertToHTML(document: CorpusDocument): Option[Boolean] = withTempDir { dir =>
+    val out = dir.resolve("out.html").toFile
+    if (!Converter.convertPDFtoHTML(document.file, out)) None
+    else {
+      val html = Source.fromFile(out, "utf-8")
+      try Some(hasValues(html.mkString.replaceAll("<[^>]*>", ""), document))
+      finally html.close()
+    }
+  }
+
+  /**
+    * Auxiliary method that converts a document into an ODT file of its own and checks it has the document's name and mail
+    */
+  private def convertToODT(document: CorpusDocument): Option[Boolean] = withTempDir { dir =>
+    val out = dir.resolve("out.odt").toFile
+    if (!Converter.convertPDFtoODT(document.file, out)) None
+    else {
+      val odt = TextDocument.loadDocument(out)
+      try Some(hasValues(odt.getContentRoot.getTextContent, document))
+      finally odt.close()
+    }
+  }
+
+  /**
+    * Auxiliary method that runs an operation with a temporary directory of its own, deleted with everything in it afterwards
+    *
+    * @param operation - The operation, receiving the temporary directory
+    * @return the outcome of the operation
+    */
+  private def withTempDir(operation: Path => Option[Boolean]): Option[Boolean] = {
+    val dir = Files.createTempDirectory("flipper-load")
+    try operation(dir)
+    finally {
+      val paths = Files.walk(dir)
+      try paths.sorted(Comparator.reverseOrder[Path]()).forEach(path => Files.deleteIfExists(path))
+      finally paths.close()
+    }
+  }
+
+  /**
+    * Auxiliary method that checks a converted text has the name and the mail of the document, wherever the converter broke its lines
+    */
+  private def hasValues(text: String, document: CorpusDocument): Boolean = {
+    val compact = text.replaceAll("\\s", "")
+    compact.contains(document.expectedName.replaceAll("\\s", "")) && compact.contains(document.expectedMail)
+  }
+}
@@ -0,0 +1,67 @@
+package loadtest
+
+import java.io.File
+
+/**
+  * Command line entry point for the load tests.
+  *
+  * Usage: LoadTestMain [--scenario extract|extract-scanned|generate|convert|convert-html|convert-odt|mixed|all] [--threads n[,n...]]
+  * [--duration seconds] [--documents n] [--corpus directory]
+  *
+  * Example: LoadTestMain --scenario all --threads 1,4,16 --duration 60
+  */
+object LoadTestMain {
+
+  private val usage = "Usage: LoadTestMain [--scenario extract|extract-scanned|generate|convert|convert-html|convert-odt|mixed|all] " +
+    "[--threads n[,n...]] [--duration seconds] [--documents n] [--corpus directory]"
+
+  /**
+    * Class that holds the options given on the command line
+    */
+  private case class Options(scenarios: List[String] = List("mixed"), threads: List[Int] = List(Runtime.getRuntime.availableProcessors),
+                             duration: Int = 30, documents: Int = 20, corpus: File = new File("./target/loadtest/corpus"))
+
+  def main(args: Array[String]): Unit = {
+    val options =
+      try parseArgs(args.toList, Options())
+      catch {
+        case e: IllegalArgumentException => System.err.println(e.getMessage); System.err.println(usage); sys.exit(2)
+      }
+
+    val corpus = Corpus.generate(options.corpus, options.documents)
+    println(s"Generated ${corpus.documents.length} documents and ${corpus.contents.length} content JSONs in ${options.corpus}")
+
+    for (scenario <- options.scenarios; threads <- options.threads) {
+      println(LoadRunner.run(scenario, corpus, threads, options.duration).format)
+    }
+  }
+
+  /**
+    * Auxiliary method that parses the command line arguments
+    *
+    * @param args    - The remaining arguments to be parsed
+    * @param options - The options parsed so far
+    * @throws IllegalArgumentException If an argument is not supported or is missing its value
+    * @return the options given on the command line
+    */
+  @throws[IllegalArgumentException]
+  private def parseArgs(args: List[String], options: Options): Options = args match {
+    case Nil => options
+    case "--scenario" :: "all" :: tail => parseArgs(tail, options.copy(scenarios = LoadRunner.scenarios))
+    case "--scenario" :: scenario :: tail =>
+      if (!LoadRunner.scenarios.contains(scenario)) throw new IllegalArgumentException("Unsupported scenario " + scenario)
+      parseArgs(tail, options.copy(scenarios = List(scenario)))
+    case "--threads" :: threads :: tail =>
+      val counts = threads.split(',').toList.map(_.trim.toIntOption.filter(_ > 0))
+      if (counts.exists(_.isEmpty)) throw new IllegalArgumentException("The numbers of threads should be positive numbers")
+      parseArgs(tail, options.copy(threads = counts.flatten))
+    case "--duration" :: seconds :: tail =>
+      val n = seconds.toIntOption.filter(_ > 0).getOrElse(throw new IllegalArgumentException("The duration should be a positive number"))
+      parseArgs(tail, options.copy(duration = n))
+    case "--documents" :: documents :: tail =>
+      val n = documents.toIntOption.filter(_ > 0).getOrElse(throw new IllegalArgumentException("The number of documents should be a positive number"))
+      parseArgs(tail, options.copy(documents = n))
+    case "--corpus" :: dir :: tail => parseArgs(tail, options.copy(corpus = new File(dir)))
+    case arg :: _ => throw new IllegalArgumentException("Unsupported or incomplete option " + arg)
+  }
+}
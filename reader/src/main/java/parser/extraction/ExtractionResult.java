@@ -0,0 +1,128 @@
+package parser.extraction;
+
+import scala.Option;
+import scala.collection.JavaConverters;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view over the values the Extractor found for each keyword.
+ * <p>
+ * Nothing is copied or converted when the result is created, the java collections returned by its methods are views
+ * over the underlying scala collections.
+ */
+public final class ExtractionResult {
+
+    private final scala.collection.immutable.Map<String, scala.collection.immutable.Seq<String>> values;
+
+    ExtractionResult(scala.collection.immutable.Map values) {
+        this.values = values;
+    }
+
+    /**
+     * Method that returns all the values found for a keyword
+     *
+     * @param keyword - The keyword to get the values of
+     * @return a view of the values found for the keyword. Empty if none was found or the keyword is not part of the result
+     */
+    public List<String> get(String keyword) {
+        Option<scala.collection.immutable.Seq<String>> found = values.get(keyword);
+        if (found.isDefined())
+            return JavaConverters.seqAsJavaList(found.get());
+        else
+            return Collections.emptyList();
+    }
+
+    /**
+     * Method that returns the first value found for a keyword
+     *
+     * @param keyword - The keyword to get the value of
+     * @return the first value found for the keyword, or null if none was found
+     */
+    public String first(String keyword) {
+        Option<scala.collection.immutable.Seq<String>> found = values.get(keyword);
+        if (found.isDefined() && found.get().nonEmpty())
+            return found.get().head();
+        else
+            return null;
+    }
+
+    /**
+     * @return a view of the keywords in this result
+     */
+    public Set<String> keywords() {
+        return JavaConverters.setAsJavaSet(values.keySet());
+    }
+
+    /**
+     * @return true if this result has no keywords
+     */
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * @return a view of this result as a java.util.Map of keywords and their values
+     */
+    public Map<String, List<String>> asMap() {
+        return new AbstractMap<String, List<String>>() {
+            @Override
+            public List<String> get(Object key) {
+                return (key instanceof String && values.contains((String) key)) ? ExtractionResult.this.get((String) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && values.contains((String) key);
+            }
+
+            @Override
+            public Set<Entry<String, List<String>>> entrySet() {
+                return new AbstractSet<Entry<String, List<String>>>() {
+                    @Override
+                    public Iterator<Entry<String, List<String>>> iterator() {
+                        Iterator<String> keys = keywords().iterator();
+                        return new Iterator<Entry<String, List<String>>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return keys.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, List<String>> next() {
+                                String key = keys.next();
+                                return new SimpleImmutableEntry<>(key, ExtractionResult.this.get(key));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return values.size();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Method that creates a string in JSON format with all the keywords and their values
+     *
+     * @param flag - Flag with information on how to return non-existing values ("empty", "null" or "remove")
+     * @return a JSON string
+     */
+    public String toJSON(String flag) {
+        return Extractor.makeJSONString(values, flag);
+    }
+
+    @Override
+    public String toString() {
+        return toJSON("empty");
+    }
+}
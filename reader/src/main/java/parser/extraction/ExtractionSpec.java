@@ -0,0 +1,101 @@
+package parser.extraction;
+
+import parser.utils.Specification;
+import scala.collection.JavaConverters;
+import scala.util.matching.Regex;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, reusable description of what to extract from a document: the keywords with their Specifications and the
+ * client's Regular Expressions.
+ * <p>
+ * All the conversions to scala collections and the compilation of the Regular Expressions happen once, when the spec
+ * is created, so the same spec can be shared between threads and passed to any number of ExtractorJava calls at no extra cost.
+ */
+public final class ExtractionSpec {
+
+    private final scala.collection.immutable.Map<String, Specification> keywords;
+    private final scala.collection.immutable.Map<String, Regex> clientRegEx;
+
+    private ExtractionSpec(scala.collection.immutable.Map<String, Specification> keywords, scala.collection.immutable.Map<String, Regex> clientRegEx) {
+        this.keywords = keywords;
+        this.clientRegEx = clientRegEx;
+    }
+
+    /**
+     * Static factory method that creates a spec with no client Regular Expressions
+     *
+     * @param keywords - Map containing all the keywords we want to find values for
+     * @return the spec for the given keywords
+     * @throws IllegalArgumentException If the keywords map is empty
+     */
+    public static ExtractionSpec of(Map<String, Specification> keywords) throws IllegalArgumentException {
+        return of(keywords, Collections.emptyMap());
+    }
+
+    /**
+     * Static factory method that creates a spec with the given client Regular Expressions
+     *
+     * @param keywords    - Map containing all the keywords we want to find values for
+     * @param clientRegEx - If the client already has a predefined Regular Expression for a given key, use that regular expression instead of ours
+     * @return the spec for the given keywords
+     * @throws IllegalArgumentException If the keywords map is empty
+     */
+    public static ExtractionSpec of(Map<String, Specification> keywords, Map<String, String> clientRegEx) throws IllegalArgumentException {
+        if (keywords.isEmpty())
+            throw new IllegalArgumentException("The list of keywords should not be empty");
+        return new ExtractionSpec(keywordsToScala(keywords), regexToScala(clientRegEx));
+    }
+
+    /**
+     * @return the keywords of this spec as the scala Map the Extractor works with
+     */
+    scala.collection.immutable.Map<String, Specification> keywords() {
+        return keywords;
+    }
+
+    /**
+     * @return the compiled client Regular Expressions of this spec as the scala Map the Extractor works with
+     */
+    scala.collection.immutable.Map<String, Regex> clientRegEx() {
+        return clientRegEx;
+    }
+
+    /**
+     * Method that receives a keywords java.util.Map and processes it to return a scala.collection.immutable.Map
+     *
+     * @param keywords - The java.util.Map to be converted
+     * @return a scala.collection.immutable.Map converted from the input parameter
+     */
+    static scala.collection.immutable.Map keywordsToScala(Map<String, Specification> keywords) {
+
+        //Convert javaMap to a scala mutable map
+        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(keywords).asScala();
+
+        //Convert scala mutable map to scala immutable map by concatenating it with an empty immutable HashMap
+        return (scala.collection.immutable.Map) new scala.collection.immutable.HashMap<>().$plus$plus(mutableMap);
+    }
+
+    /**
+     * Method that receives a regex java.util.Map, compiles every Regular Expression and returns a scala.collection.immutable.Map
+     *
+     * @param clientRegEx - The java.util.Map to be converted
+     * @return a scala.collection.immutable.Map converted from the input parameter
+     */
+    static scala.collection.immutable.Map regexToScala(Map<String, String> clientRegEx) {
+        scala.collection.immutable.List<String> noGroupNames = JavaConverters.asScalaBuffer(Collections.<String>emptyList()).toList();
+
+        //Mimic a scala Map[String, Regex]
+        HashMap<String, Regex> regexMap = new HashMap<>();
+        for (Map.Entry<String, String> entry : clientRegEx.entrySet()) {
+            regexMap.put(entry.getKey(), new Regex(entry.getValue(), noGroupNames));
+        }
+
+        //convert java.util.Map to scala.collection.mutable.Map, then to scala.collection.immutable.Map
+        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(regexMap).asScala();
+        return (scala.collection.immutable.Map) new scala.collection.immutable.HashMap<>().$plus$plus(mutableMap);
+    }
+}
@@ -1,16 +1,23 @@
 package parser.extraction;
 
+import instrumentation.AsyncExecution;
+import parser.utils.Budget;
+import parser.utils.PartialResult;
+import parser.utils.Region;
 import parser.utils.Specification;
 import scala.Option;
 import scala.Some;
 import scala.collection.JavaConverters;
-import scala.util.matching.Regex;
 
 import java.io.File;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class ExtractorJava {
 
@@ -38,6 +45,116 @@ public class ExtractorJava {
             throw new NullPointerException(); //TODO maybe change this
     }
 
+    /**
+     * Method that loads a PDF file and reads its text page by page, stopping when the given budget runs out
+     *
+     * @param file       - File to be loaded and parsed
+     * @param readImages - If the text of the images in the document should be read
+     * @param budget     - The deadline and cancellation token of this call
+     * @return A PartialResult with the text read before the budget ran out (an empty String if none was read),
+     * marked as truncated if it did
+     */
+    public PartialResult<String> readPDF(File file, Boolean readImages, Budget budget) {
+        PartialResult<Option<String>> readResult = Extractor.readPDFWithin(file, budget, readImages);
+        String text = readResult.value().isDefined() ? readResult.value().get() : "";
+        return new PartialResult<>(text, readResult.truncated());
+    }
+
+    /**
+     * Asynchronous variant of readPDF, running on the default executor (a pool bounded by the number of processors).
+     * Cancelling the returned future stops the OCR and spell-checking of the document
+     *
+     * @param file - File to be loaded and parsed
+     * @return a CompletableFuture completed with all the text found in the document
+     */
+    public CompletableFuture<String> readPDFAsync(File file) {
+        return readPDFAsync(file, true, AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous variant of readPDF, running on the caller's executor.
+     * Cancelling the returned future stops the OCR and spell-checking of the document
+     *
+     * @param file       - File to be loaded and parsed
+     * @param readImages - If the text of the images in the document should be read
+     * @param executor   - The executor in which to read the document
+     * @return a CompletableFuture completed with all the text found in the document
+     */
+    public CompletableFuture<String> readPDFAsync(File file, Boolean readImages, Executor executor) {
+        return AsyncExecution.supplyAsync(() -> readPDF(file, readImages), executor);
+    }
+
+    /**
+     * Asynchronous variant of getAllMatchedValues with a prebuilt spec, running on the default executor.
+     * Cancelling the returned future stops the tagging of the text
+     *
+     * @param text - Text in which to look for values for the specified keywords
+     * @param spec - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @return a CompletableFuture completed with the values found for each keyword
+     */
+    public CompletableFuture<ExtractionResult> getAllMatchedValuesAsync(String text, ExtractionSpec spec) {
+        return getAllMatchedValuesAsync(text, spec, AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Asynchronous variant of getAllMatchedValues with a prebuilt spec, running on the caller's executor.
+     * Cancelling the returned future stops the tagging of the text
+     *
+     * @param text     - Text in which to look for values for the specified keywords
+     * @param spec     - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @param executor - The executor in which to search the text
+     * @return a CompletableFuture completed with the values found for each keyword
+     */
+    public CompletableFuture<ExtractionResult> getAllMatchedValuesAsync(String text, ExtractionSpec spec, Executor executor) {
+        return AsyncExecution.supplyAsync(() -> getAllMatchedValues(text, spec), executor);
+    }
+
+    /**
+     * Asynchronous variant of getJSONObjects with a prebuilt spec, running on the caller's executor.
+     * Cancelling the returned future stops the tagging of the text
+     *
+     * @param text     - Text in which to look for values for the specified keywords
+     * @param spec     - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @param flag     - Flag with information on how to return non-existing values
+     * @param executor - The executor in which to search the text
+     * @return a CompletableFuture completed with a JSON object for each object found
+     */
+    public CompletableFuture<List<String>> getJSONObjectsAsync(String text, ExtractionSpec spec, String flag, Executor executor) {
+        return AsyncExecution.supplyAsync(() -> getJSONObjects(text, spec, flag), executor);
+    }
+
+    /**
+     * Method that reads only the given areas of a PDF document instead of the whole document.
+     * Areas without a text layer (as in scanned pages) are rendered and read with the OCR
+     *
+     * @param file    - File to be loaded and parsed
+     * @param regions - Map of keywords and the area of the document in which to look for their values
+     * @return a Map of the keywords and the text found inside their areas
+     */
+    public Map<String, String> readPDFRegions(File file, Map<String, Region> regions) {
+        scala.collection.immutable.Map<String, String> result = Extractor.readPDFRegions(file, regionsToScala(regions), true);
+        return new HashMap<>(JavaConverters.mapAsJavaMap(result));
+    }
+
+    /**
+     * Method that will try to obtain values for the given keywords, looking for each keyword's value only inside its area of the document.
+     * Keywords that have no area specified are searched in the whole document
+     *
+     * @param file     - File to be loaded and parsed
+     * @param keywords - List containing all the keywords we want to find values for
+     * @param regions  - Map of keywords and the area of the document in which to look for their values
+     * @return List containing pairs of Keywords and a List (non-repeating) of values found for that keyword
+     * @throws IllegalArgumentException If the keywords list is empty
+     */
+    public Map getRegionMatchedValues(File file, Map<String, Specification> keywords, Map<String, Region> regions) throws IllegalArgumentException {
+        if (keywords.isEmpty())
+            throw new IllegalArgumentException("The list of keywords should not be empty");
+
+        scala.collection.immutable.Map result = Extractor.getRegionMatchedValues(file, keywordsToScala(keywords), regionsToScala(regions),
+                regexToScala(new HashMap<>()), false, true);
+        return scalaResultToJava(result);
+    }
+
     /**
      * Method that will iterate through a list of given keywords and will try to obtain a value for that keyword
      * Method overload representing the users decision to not pass in a Regex map.
@@ -223,6 +340,37 @@ public class ExtractorJava {
         return JavaConverters.seqAsJavaList(result);
     }
 
+    /**
+     * Method that encapsulates the entire process of finding values for the given keywords list and writing them as JSON objects,
+     * one object per line (NDJSON). The objects are written as they are assembled, so the result set is never held as strings
+     *
+     * @param text     - Text in which to look for values for the specified keywords
+     * @param keywords - List containing all the keywords we want to find values for
+     * @param out      - The Writer in which to write the JSON objects
+     * @throws IllegalArgumentException If the keywords list is empty
+     */
+    public void writeJSONObjects(String text, Map<String, Specification> keywords, Writer out) throws IllegalArgumentException {
+        writeJSONObjects(text, keywords, out, "empty");
+    }
+
+    /**
+     * Method that encapsulates the entire process of finding values for the given keywords list and writing them as JSON objects,
+     * one object per line (NDJSON). The objects are written as they are assembled, so the result set is never held as strings
+     *
+     * @param text     - Text in which to look for values for the specified keywords
+     * @param keywords - List containing all the keywords we want to find values for
+     * @param out      - The Writer in which to write the JSON objects
+     * @param flag     - Optional flag with information on how to return non-existing values
+     * @throws IllegalArgumentException If the keywords list is empty
+     */
+    public void writeJSONObjects(String text, Map<String, Specification> keywords, Writer out, String flag) throws IllegalArgumentException {
+        if (keywords.isEmpty())
+            throw new IllegalArgumentException("The list of keywords should not be empty");
+
+        Option<String> textOpt = (text != null && !text.equals("")) ? Some.apply(text) : Option.apply(null);
+        Extractor.writeJSONObjects(textOpt, keywordsToScala(keywords), out, flag, regexToScala(new HashMap<>()));
+    }
+
     /**
      * Method that encapsulates the process of making a single JSON object from all the information found in the text for the given keywords.
      * Method overload representing the users decision to not pass a String flag and a regex Map
@@ -277,6 +425,103 @@ public class ExtractorJava {
         return Extractor.getSingleJSON(textOpt, keywordsToScala(keywords), flag, regexToScala(clientRegEx));
     }
 
+    /**
+     * Method that will iterate through the keywords of a prebuilt spec and will try to obtain a value for each keyword.
+     * The spec is reused as it is and the result is a view over the values found, so no collections are converted in this call
+     *
+     * @param text - Text in which to look for values for the specified keywords
+     * @param spec - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @return the values found for each keyword
+     */
+    public ExtractionResult getAllMatchedValues(String text, ExtractionSpec spec) {
+        return new ExtractionResult(Extractor.getAllMatchedValues(textOption(text), spec.keywords(), spec.clientRegEx(), false));
+    }
+
+    /**
+     * Method that will iterate through the keywords of a prebuilt spec and will try to obtain values for them,
+     * stopping when the given budget runs out
+     *
+     * @param text   - Text in which to look for values for the specified keywords
+     * @param spec   - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @param budget - The deadline and cancellation token of this call
+     * @return A PartialResult with the values found for each keyword, marked as truncated if the budget ran out
+     */
+    public PartialResult<ExtractionResult> getAllMatchedValues(String text, ExtractionSpec spec, Budget budget) {
+        PartialResult<scala.collection.immutable.Map<String, scala.collection.immutable.Seq<String>>> matched =
+                Extractor.getAllMatchedValuesWithin(textOption(text), spec.keywords(), budget, spec.clientRegEx(), false);
+        return new PartialResult<>(new ExtractionResult(matched.value()), matched.truncated());
+    }
+
+    /**
+     * Method that will iterate through the keywords of a prebuilt spec and will try to obtain only the first value it finds
+     * for each keyword, representing a single JSON object
+     *
+     * @param text - Text in which to look for values for the specified keywords
+     * @param spec - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @return the single value found for each keyword
+     */
+    public ExtractionResult getSingleMatchedValue(String text, ExtractionSpec spec) {
+        return new ExtractionResult(Extractor.getSingleMatchedValue(textOption(text), spec.keywords(), spec.clientRegEx()));
+    }
+
+    /**
+     * Method that will iterate through the keywords of a prebuilt spec and will try to obtain a list of objects
+     * that have all keywords and only one value for each of them
+     *
+     * @param text - Text in which to look for values for the specified keywords
+     * @param spec - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @return a List with the values of each object
+     */
+    public List<ExtractionResult> getAllObjects(String text, ExtractionSpec spec) {
+        Option<String> textOpt = textOption(text);
+        List<ExtractionResult> objects = new ArrayList<>();
+        if (textOpt.isDefined()) {
+            scala.collection.immutable.Map matched = Extractor.getAllMatchedValues(textOpt, spec.keywords(), spec.clientRegEx(), false);
+            Iterator rows = JavaConverters.asJavaIterator(Extractor.assembleObjects(matched, spec.keywords()));
+            while (rows.hasNext()) {
+                objects.add(new ExtractionResult((scala.collection.immutable.Map) rows.next()));
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Method that encapsulates the entire process of finding values for the keywords of a prebuilt spec and converting them to JSON Objects
+     *
+     * @param text - Text in which to look for values for the specified keywords
+     * @param spec - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @param flag - Flag with information on how to return non-existing values
+     * @return a List of Strings representing a JSON object for each object found
+     */
+    public List<String> getJSONObjects(String text, ExtractionSpec spec, String flag) {
+        return JavaConverters.seqAsJavaList(Extractor.getJSONObjects(textOption(text), spec.keywords(), flag, spec.clientRegEx()));
+    }
+
+    /**
+     * Method that encapsulates the process of making a single JSON object from all the information found in the text
+     * for the keywords of a prebuilt spec
+     *
+     * @param text - Text in which to look for values for the specified keywords
+     * @param spec - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @param flag - Flag with information on how to return non-existing values
+     * @return a Single JSON string containing all the information
+     */
+    public String getSingleJSON(String text, ExtractionSpec spec, String flag) {
+        return Extractor.getSingleJSON(textOption(text), spec.keywords(), flag, spec.clientRegEx());
+    }
+
+    /**
+     * Method that finds values for the keywords of a prebuilt spec and writes them as JSON objects, one object per line (NDJSON)
+     *
+     * @param text - Text in which to look for values for the specified keywords
+     * @param spec - The prebuilt spec with the keywords (and client Regular Expressions) we want to find values for
+     * @param out  - The Writer in which to write the JSON objects
+     * @param flag - Flag with information on how to return non-existing values
+     */
+    public void writeJSONObjects(String text, ExtractionSpec spec, Writer out, String flag) {
+        Extractor.writeJSONObjects(textOption(text), spec.keywords(), out, flag, spec.clientRegEx());
+    }
+
     /**
      * Method that given a List of pairs of keywords and their respective values will create a string in JSON format
      * <p>
@@ -310,8 +555,14 @@ public class ExtractorJava {
      */
     public String makeJSONString(Map<String, List<String>> listJSON, String flag) {
 
+        //Convert the inner java lists to scala lists
+        HashMap<String, scala.collection.immutable.List<String>> scalaLists = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : listJSON.entrySet()) {
+            scalaLists.put(entry.getKey(), JavaConverters.asScalaBuffer(entry.getValue()).toList());
+        }
+
         //convert input map to a scala mutable map
-        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(listJSON).asScala();
+        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(scalaLists).asScala();
 
         //Convert scala mutable map to scala immutable map by concatenating it with an empty immutable HashMap
         scala.collection.immutable.Map immutableMap = (scala.collection.immutable.Map) new scala.collection.immutable.HashMap<>().$plus$plus(mutableMap);
@@ -331,17 +582,44 @@ public class ExtractorJava {
     }
 
     /**
-     * Private method that receives a keywords java.util.Map and processes it to return a scala.collection.immutable.List
+     * Method that reads all the fields and respective values from a PDF form and returns a JSON string.
+     * Falls back to searching the document's text for key-value pairs in case the form was flattened
+     *
+     * @param file - The PDF form to be loaded and parsed
+     * @return - A JSON String containing all the fields found in the form
+     */
+    public String getJSONFromForm(File file) {
+        return Extractor.getJSONFromForm(file);
+    }
+
+    /**
+     * Private method that wraps the text in an Option, an empty or null text being None
+     *
+     * @param text - The text to be wrapped
+     * @return an Option wrapping the text
+     */
+    private Option<String> textOption(String text) {
+        return (text != null && !text.equals("")) ? Some.apply(text) : Option.apply(null);
+    }
+
+    /**
+     * Private method that receives a keywords java.util.Map and processes it to return a scala.collection.immutable.Map
      *
      * @param keywords - The java.util.Map to be converted
-     * @return a scala.collection.immutable.List converted from the input parameter
+     * @return a scala.collection.immutable.Map converted from the input parameter
      */
     private scala.collection.immutable.Map keywordsToScala(Map<String, Specification> keywords) {
+        return ExtractionSpec.keywordsToScala(keywords);
+    }
 
-        //Convert javaMap to a scala mutable map
-        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(keywords).asScala();
-
-        //Convert scala mutable map to scala immutable map by concatenating it with an empty immutable HashMap
+    /**
+     * Private method that receives a regions java.util.Map and processes it to return a scala.collection.immutable.Map
+     *
+     * @param regions - The java.util.Map to be converted
+     * @return a scala.collection.immutable.Map converted from the input parameter
+     */
+    private scala.collection.immutable.Map regionsToScala(Map<String, Region> regions) {
+        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(regions).asScala();
         return (scala.collection.immutable.Map) new scala.collection.immutable.HashMap<>().$plus$plus(mutableMap);
     }
 
@@ -352,19 +630,7 @@ public class ExtractorJava {
      * @return a scala.collection.immutable.Map converted from the input parameter
      */
     private scala.collection.immutable.Map regexToScala(Map<String, String> clientRegEx) {
-
-        //Mimic a scala Map[String, Regex]
-        HashMap<String, Regex> regexMap = new HashMap<>();
-
-        //Populate regexMap
-        for (Map.Entry<String, String> entry : clientRegEx.entrySet()) {
-            Regex r = new Regex(entry.getValue(), null); //TODO probably not null
-            regexMap.put(entry.getKey(), r);
-        }
-
-        //convert java.util.Map to scala.collection.mutable.Map, then to scala.collection.immutable.Map
-        scala.collection.mutable.Map mutableMap = JavaConverters.mapAsScalaMapConverter(regexMap).asScala();
-        return (scala.collection.immutable.Map) new scala.collection.immutable.HashMap<>().$plus$plus(mutableMap);
+        return ExtractionSpec.regexToScala(clientRegEx);
     }
 
 
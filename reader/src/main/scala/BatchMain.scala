@@ -0,0 +1,78 @@
+import java.io.{BufferedWriter, FileOutputStream, IOException, OutputStream, OutputStreamWriter}
+import java.nio.charset.StandardCharsets
+
+import parser.extraction.BatchExtractor._
+import parser.utils.Specification
+
+/**
+  * Command line entry point for the batch extraction of PDF documents.
+  *
+  * Usage: BatchMain <directory | glob | @manifest | file> --keyword <keyword>=<specification> [--keyword ...]
+  * [--out <file>] [--threads <n>] [--no-images] [--flag empty|null|remove]
+  *
+  * Example: BatchMain ./intake --keyword name=ProperNoun --keyword "marital status=OneOf(single|married)" --out results.ndjson
+  */
+object BatchMain {
+
+  private val usage = "Usage: BatchMain <directory | glob | @manifest | file> --keyword <keyword>=<specification> [--keyword ...] " +
+    "[--out <file>] [--threads <n>] [--no-images] [--flag empty|null|remove]"
+
+  /**
+    * Class that holds the options given on the command line
+    */
+  private case class Options(source: Option[String] = None, keywords: Map[String, Specification] = Map(),
+                             out: Option[String] = None, threads: Int = Runtime.getRuntime.availableProcessors,
+                             readImages: Boolean = true, flag: String = "empty")
+
+  def main(args: Array[String]): Unit = {
+    val options =
+      try parseArgs(args.toList, Options())
+      catch {
+        case e: IllegalArgumentException => System.err.println(e.getMessage); System.err.println(usage); sys.exit(2)
+      }
+
+    if (options.source.isEmpty || options.keywords.isEmpty) {
+      System.err.println(usage)
+      sys.exit(2)
+    }
+
+    val stream: OutputStream = options.out.map(new FileOutputStream(_)).getOrElse(System.out)
+    val out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))
+    try {
+      val summary = run(listInputs(options.source.get), options.keywords, out, options.threads, options.readImages, options.flag)
+      System.err.println(s"Processed ${summary.documents} documents (${summary.failed} failed) in ${summary.elapsedMillis} ms")
+    } catch {
+      case e: IOException => System.err.println("The results could not be written: " + e.getMessage); sys.exit(1)
+    } finally {
+      out.flush()
+      if (options.out.isDefined) out.close()
+    }
+  }
+
+  /**
+    * Auxiliary method that parses the command line arguments
+    *
+    * @param args    - The remaining arguments to be parsed
+    * @param options - The options parsed so far
+    * @throws IllegalArgumentException If an argument is not supported or is missing its value
+    * @return the options given on the command line
+    */
+  @throws[IllegalArgumentException]
+  private def parseArgs(args: List[String], options: Options): Options = args match {
+    case Nil => options
+    case "--keyword" :: keyword :: tail =>
+      val separator = keyword.indexOf('=')
+      if (separator <= 0) throw new IllegalArgumentException("Keywords should be given as <keyword>=<specification>: " + keyword)
+      val spec = Specification.parse(keyword.substring(separator + 1))
+      parseArgs(tail, options.copy(keywords = options.keywords + (keyword.substring(0, separator).trim -> spec)))
+    case "--out" :: file :: tail => parseArgs(tail, options.copy(out = Some(file)))
+    case "--threads" :: threads :: tail =>
+      val n = threads.toIntOption.filter(_ > 0).getOrElse(throw new IllegalArgumentException("The number of threads should be a positive number"))
+      parseArgs(tail, options.copy(threads = n))
+    case "--no-images" :: tail => parseArgs(tail, options.copy(readImages = false))
+    case "--flag" :: flag :: tail => parseArgs(tail, options.copy(flag = flag))
+    case arg :: _ if arg.startsWith("--") => throw new IllegalArgumentException("Unsupported or incomplete option " + arg)
+    case source :: tail if options.source.isEmpty => parseArgs(tail, options.copy(source = Some(source)))
+    case arg :: _ => throw new IllegalArgumentException("Unexpected argument " + arg)
+  }
+}
@@ -0,0 +1,64 @@
+import java.io.IOException
+
+import parser.extraction.ExtractionServer
+
+/**
+  * Command line entry point for the extraction daemon, that keeps the models loaded and answers requests on the loopback address.
+  *
+  * Usage: ServerMain [--port <port>] [--threads <n>] [--max-body <bytes>] [--no-preload]
+  *
+  * Example: ServerMain --port 8765 --threads 4, then
+  * curl --data-binary @document.pdf "http://127.0.0.1:8765/extract?keyword=name%3DProperNoun&images=false"
+  */
+object ServerMain {
+
+  private val usage = "Usage: ServerMain [--port <port>] [--threads <n>] [--max-body <bytes>] [--no-preload]"
+
+  /**
+    * Class that holds the options given on the command line
+    */
+  private case class Options(port: Int = 8765, threads: Int = Runtime.getRuntime.availableProcessors, preload: Boolean = true,
+                             maxBodyBytes: Long = ExtractionServer.DefaultMaxBodyBytes)
+
+  def main(args: Array[String]): Unit = {
+    val options =
+      try parseArgs(args.toList, Options())
+      catch {
+        case e: IllegalArgumentException => System.err.println(e.getMessage); System.err.println(usage); sys.exit(2)
+      }
+
+    val startedAt = System.currentTimeMillis()
+    val server =
+      try ExtractionServer.start(options.port, options.threads, options.preload, options.maxBodyBytes)
+      catch {
+        case e: IOException => System.err.println("The server could not listen on port " + options.port + ": " + e.getMessage); sys.exit(1)
+      }
+    sys.addShutdownHook(server.stop())
+    System.err.println(s"Extraction server listening on 127.0.0.1:${server.port} with ${options.threads} workers " +
+      s"(ready in ${System.currentTimeMillis() - startedAt} ms)")
+  }
+
+  /**
+    * Auxiliary method that parses the command line arguments
+    *
+    * @param args    - The remaining arguments to be parsed
+    * @param options - The options parsed so far
+    * @throws IllegalArgumentException If an argument is not supported or is missing its value
+    * @return the options given on the command line
+    */
+  @throws[IllegalArgumentException]
+  private def parseArgs(args: List[String], options: Options): Options = args match {
+    case Nil => options
+    case "--port" :: port :: tail =>
+      val p = port.toIntOption.filter(p => p >= 0 && p <= 65535).getOrElse(throw new IllegalArgumentException("The port should be a number between 0 and 65535"))
+      parseArgs(tail, options.copy(port = p))
+    case "--threads" :: threads :: tail =>
+      val n = threads.toIntOption.filter(_ > 0).getOrElse(throw new IllegalArgumentException("The number of threads should be a positive number"))
+      parseArgs(tail, options.copy(threads = n))
+    case "--max-body" :: bytes :: tail =>
+      val n = bytes.toLongOption.filter(_ > 0).getOrElse(throw new IllegalArgumentException("The maximum body size should be a positive number of bytes"))
+      parseArgs(tail, options.copy(maxBodyBytes = n))
+    case "--no-preload" :: tail => parseArgs(tail, options.copy(preload = false))
+    case arg :: _ => throw new IllegalArgumentException("Unsupported or incomplete option " + arg)
+  }
+}
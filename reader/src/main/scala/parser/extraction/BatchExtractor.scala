@@ -0,0 +1,254 @@
+package parser.extraction
+
+import java.io.{File, IOException, StringWriter, Writer}
+import java.nio.file.{FileSystems, Files, LinkOption, Path, Paths}
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.{Executors, Semaphore, TimeUnit}
+
+import parser.extraction.Extractor.{Keyword, assembleObjects, getAllMatchedValues, readPDF}
+import parser.extraction.JSONWriter.{writeObject, writeString}
+import parser.utils.Specification
+
+import scala.collection.JavaConverters._
+import scala.io.Source
+import scala.util.matching.Regex
+
+/**
+  * Singleton object that implements the extraction of information from many PDF documents at once.
+  *
+  * Documents are read by a fixed number of workers and at most a bounded number of documents is waiting to be processed,
+  * so the list of inputs is consumed only as fast as the workers can keep up. The result of each document is written
+  * as soon as it is ready, as a single line of JSON (NDJSON):
+  *
+  * {"file" : "path/to/doc.pdf", "status" : "ok", "objects" : [{...}, {...}]}
+  * {"file" : "path/to/bad.pdf", "status" : "error", "error" : "reason"}
+  *
+  * A document that fails, even with an Error, is recorded as an error line and never stops the batch. Failing to write
+  * the results does: no more documents are started and the error is thrown once the running ones finish
+  */
+object BatchExtractor {
+
+  /**
+    * Class that summarizes the run of a batch
+    *
+    * @param documents     - The number of documents processed
+    * @param failed        - The number of documents that were recorded as errors
+    * @param elapsedMillis - The time the batch took, in milliseconds
+    */
+  case class BatchSummary(documents: Int, failed: Int, elapsedMillis: Long)
+
+  /**
+    * Method that lists the PDF documents to be processed from a textual source, which can be:
+    * a directory (all the PDF files inside it and its sub directories), a glob pattern (as in "invoice-2020-??.pdf"),
+    * a manifest file prefixed with "@" (one document path per line, blank lines and lines starting with # are ignored)
+    * or the path of a single document
+    *
+    * The documents are listed lazily, as they are consumed: a manifest is read a line at a time and closed once it is
+    * exhausted (or by run, if the batch stops early), and a directory is only listed when the walk reaches it
+    *
+    * @param source - The directory, glob pattern, manifest or file to list the documents from
+    * @return an Iterator over the documents, sorted by name within each directory when listed from a directory or a glob pattern
+    */
+  def listInputs(source: String): Iterator[File] = {
+    if (source.startsWith("@")) {
+      new ManifestIterator(Source.fromFile(source.substring(1)))
+    } else if (new File(source).isDirectory) {
+      walk(Paths.get(source)).filter(_.getName.toLowerCase.endsWith(".pdf"))
+    } else if (source.exists(isGlobChar)) {
+      val matcher = FileSystems.getDefault.getPathMatcher("glob:" + source)
+      val fixedPart = source.takeWhile(c => !isGlobChar(c)) //The directory part of the pattern before any wildcard
+      val lastSeparator = math.max(fixedPart.lastIndexOf('/'), fixedPart.lastIndexOf(File.separatorChar))
+      val base = if (lastSeparator >= 0) fixedPart.substring(0, lastSeparator + 1) else "."
+      walk(Paths.get(base)).filter(file => matcher.matches(file.toPath) || matcher.matches(file.toPath.normalize))
+    } else {
+      Iterator(new File(source))
+    }
+  }
+
+  /**
+    * Method that extracts the objects of every document and writes one line of NDJSON per document as soon as it is processed.
+    * Lines are written in the order the documents finish, which is not necessarily the order of the inputs
+    *
+    * @param inputs      - The documents to be processed
+    * @param keywords    - List containing all the keywords we want to find values for
+    * @param out         - The Writer in which to write the results
+    * @param parallelism - Optional parameter - The number of documents processed at the same time
+    * @param readImages  - Optional parameter - If the text of the images in the documents should be read
+    * @param flag        - Optional flag with information on how to return non-existing values
+    * @param clientRegEx - Optional parameter - If the client already has a predefined Regular Expression for a given key
+    * @throws IllegalArgumentException If the keywords list is empty or the parallelism is not positive
+    * @throws IOException              If the results could not be written to out (any other error writing them is thrown as well)
+    * @return a summary of the batch
+    */
+  @throws[IllegalArgumentException]
+  @throws[IOException]
+  def run(inputs: Iterator[File], keywords: Map[Keyword, Specification], out: Writer,
+          parallelism: Int = Runtime.getRuntime.availableProcessors, readImages: Boolean = true, flag: String = "empty",
+          clientRegEx: Map[Keyword, Regex] = Map()): BatchSummary = {
+    require(keywords.nonEmpty, "The list of keywords should not be empty")
+    require(parallelism > 0, "The parallelism should be positive")
+
+    val start = System.nanoTime()
+    val workers = Executors.newFixedThreadPool(parallelism)
+    val pending = new Semaphore(parallelism * 2) //Bounds the documents waiting for a worker, providing backpressure on the inputs
+    var documents = 0
+    var failed = 0
+    val outputError = new AtomicReference[Throwable]() //The first error writing to out, which stops the batch
+
+    try {
+      inputs.takeWhile(_ => outputError.get == null).foreach { file =>
+        pending.acquire()
+        workers.execute(() => {
+          try {
+            val (line, ok) = processDocument(file, keywords, readImages, flag, clientRegEx)
+            out.synchronized {
+              if (outputError.get == null) {
+                try {
+                  out.write(line)
+                  out.write('\n')
+                  out.flush()
+                  documents += 1
+                  if (!ok) failed += 1
+                } catch {
+                  case e: Throwable => outputError.set(e)
+                }
+              }
+            }
+          } finally {
+            pending.release()
+          }
+        })
+      }
+    } finally {
+      inputs match {
+        case closeable: AutoCloseable => closeable.close() //a manifest the batch stopped reading before its end
+        case _ =>
+      }
+      workers.shutdown()
+      workers.awaitTermination(Long.MaxValue, TimeUnit.NANOSECONDS)
+    }
+    Option(outputError.get).foreach(e => throw e)
+    out.synchronized(BatchSummary(documents, failed, (System.nanoTime() - start) / 1000000))
+  }
+
+  /**
+    * Auxiliary method that extracts the objects of a single document and returns its line of NDJSON.
+    * Any Throwable is recorded in the line instead of being thrown
+    *
+    * @param file        - The document to be processed
+    * @param keywords    - List containing all the keywords we want to find values for
+    * @param readImages  - If the text of the images in the document should be read
+    * @param flag        - Flag with information on how to return non-existing values
+    * @param clientRegEx - If the client already has a predefined Regular Expression for a given key
+    * @return the line of NDJSON with the result of the document, and if the document was processed successfully
+    */
+  private def processDocument(file: File, keywords: Map[Keyword, Specification], readImages: Boolean, flag: String,
+                              clientRegEx: Map[Keyword, Regex]): (String, Boolean) = {
+    try {
+      readPDF(file, readImages) match {
+        case Some(text) =>
+          val line = fileLine(file)
+          val objects = new StringWriter()
+          val matchedValues = getAllMatchedValues(Some(text), keywords, clientRegEx, includeDuplicates = false)
+          var first = true
+          assembleObjects(matchedValues, keywords).foreach { obj =>
+            if (!first) objects.write(", ")
+            first = false
+            writeObject(objects, obj, flag)
+          }
+          line.write(", \"status\" : \"ok\", \"objects\" : [")
+          line.write(objects.toString)
+          line.write("]}")
+          (line.toString, true)
+        case None => (errorLine(file, "The document could not be read or has no text"), false)
+      }
+    } catch {
+      //Errors too (like a native OCR library that can't be loaded), which would otherwise silently lose the document
+      case e: Throwable => (errorLine(file, e.getClass.getSimpleName + ": " + e.getMessage), false)
+    }
+  }
+
+  /**
+    * Auxiliary method that starts a line of NDJSON with the file of the document
+    *
+    * @param file - The document the line is about
+    * @return the Writer with the start of the line
+    */
+  private def fileLine(file: File): StringWriter = {
+    val line = new StringWriter()
+    line.write("{\"file\" : ")
+    writeString(line, file.getPath)
+    line
+  }
+
+  /**
+    * Auxiliary method that writes the line of NDJSON of a document that failed
+    *
+    * @param file    - The document that failed
+    * @param message - The reason the document failed
+    * @return the line
+    */
+  private def errorLine(file: File, message: String): String = {
+    val line = fileLine(file)
+    line.write(", \"status\" : \"error\", \"error\" : ")
+    writeString(line, String.valueOf(message))
+    line.write("}")
+    line.toString
+  }
+
+  /**
+    * Auxiliary method that checks if a character has a special meaning in a glob pattern
+    *
+    * @param c - The character to check
+    * @return true if the character is a wildcard or starts a group
+    */
+  private def isGlobChar(c: Char): Boolean = "*?[{".indexOf(c) >= 0
+
+  /**
+    * Auxiliary method that lists all the regular files inside a directory and its sub directories, depth first and
+    * sorted by name within each directory. Only one directory is listed at a time, when the iterator reaches it, and
+    * symbolic links to directories are not followed
+    *
+    * @param dir - The directory to walk
+    * @return an Iterator over the files found
+    */
+  private def walk(dir: Path): Iterator[File] = {
+    val stream = Files.newDirectoryStream(dir)
+    val entries =
+      try stream.asScala.toArray.sortBy(_.getFileName.toString)
+      finally stream.close()
+    entries.iterator.flatMap { path =>
+      if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) walk(path)
+      else if (Files.isRegularFile(path)) Iterator(path.toFile)
+      else Iterator.empty
+    }
+  }
+
+  /**
+    * Iterator over the documents of a manifest, one per line, that reads the manifest as it is consumed and closes it
+    * once every line was read. Blank lines and lines starting with # are skipped
+    *
+    * @param manifest - The manifest to read
+    */
+  private class ManifestIterator(manifest: Source) extends Iterator[File] with AutoCloseable {
+    private val files = manifest.getLines.map(_.trim).filter(line => line.nonEmpty && !line.startsWith("#")).map(new File(_))
+    private var open = true
+
+    override def hasNext: Boolean = open && {
+      val more =
+        try files.hasNext
+        catch {
+          case e: Throwable => close(); throw e
+        }
+      if (!more) close()
+      more
+    }
+
+    override def next(): File = if (hasNext) files.next() else Iterator.empty.next()
+
+    override def close(): Unit = if (open) {
+      open = false
+      manifest.close()
+    }
+  }
+}
@@ -0,0 +1,307 @@
+package parser.extraction
+
+import java.io.{ByteArrayOutputStream, IOException, InputStream, StringWriter}
+import java.net.{InetAddress, InetSocketAddress, URI, URLDecoder}
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{CountDownLatch, ExecutorService, Executors, TimeUnit}
+
+import com.sun.net.httpserver.{HttpExchange, HttpServer}
+import instrumentation.{AggregatingInstrumentation, Instruments, TeeInstrumentation}
+import parser.extraction.Extractor.{Keyword, assembleObjects, getAllMatchedValuesWithin, readPDFBytesWithin}
+import parser.extraction.JSONWriter.{streamWriter, writeObject, writeString}
+import parser.utils.{Budget, ImageProcessing, OpenNLP, Specification, SpellChecker}
+
+/**
+  * Class that represents a running extraction daemon: a local HTTP server that keeps the models loaded and its workers warm,
+  * so each document only costs its own processing time. The server only listens on the loopback address.
+  *
+  * POST /extract?keyword=name%3DProperNoun&keyword=...[&images=false][&flag=null][&timeout=5000]
+  * with the bytes of the PDF document as the body, answers with one line of JSON (NDJSON) per object found, written as
+  * soon as each object is assembled. The keywords use the same specifications as BatchMain. If the timeout (in milliseconds)
+  * runs out, the objects found so far are returned and the X-Flipper-Truncated header is set to true. Documents larger than
+  * the server's maximum body size are answered with 413, without reading past the limit.
+  *
+  * GET /health answers with the state of the server, and GET /metrics with the stage timings and counters reported by the
+  * reader since the server started, one "name value" pair per line. Each request reports to both the server's metrics and
+  * the instrumentation the application installed, which keeps receiving everything it did before
+  *
+  * @param server       - The underlying HTTP server
+  * @param workers      - The warm workers that handle the requests
+  * @param metrics      - The instrumentation the reader reports to while handling the requests
+  * @param maxBodyBytes - The largest document accepted, in bytes
+  */
+class ExtractionServer private(server: HttpServer, workers: ExecutorService, metrics: AggregatingInstrumentation,
+                               maxBodyBytes: Long) {
+
+  private val started = System.nanoTime()
+  private val active = new AtomicInteger()
+
+  server.createContext("/extract", exchange => handle(exchange)(extract))
+  server.createContext("/health", exchange => handle(exchange)(health))
+  server.createContext("/metrics", exchange => handle(exchange)(metricsReport))
+
+  /**
+    * @return the port the server is listening on
+    */
+  def port: Int = server.getAddress.getPort
+
+  /**
+    * Method that stops the server, letting the requests being handled finish for up to the given number of seconds
+    *
+    * @param delaySeconds - The maximum time to wait for the requests being handled
+    */
+  def stop(delaySeconds: Int = 5): Unit = {
+    server.stop(delaySeconds)
+    workers.shutdown()
+    workers.awaitTermination(delaySeconds, TimeUnit.SECONDS)
+  }
+
+  /**
+    * Auxiliary method that runs a handler, answering with an error if it throws.
+    * The handler reports to the server's metrics along with the installed instrumentation, on the worker's thread only
+    *
+    * @param exchange - The request and its response
+    * @param handler  - The handler of the request
+    */
+  private def handle(exchange: HttpExchange)(handler: HttpExchange => Unit): Unit =
+    Instruments.withInstrumentation[Unit](new TeeInstrumentation(Instruments.get(), metrics), () => handleReporting(exchange)(handler))
+
+  /**
+    * Auxiliary method that runs a handler within the request's instrumentation, answering with an error if it throws
+    *
+    * @param exchange - The request and its response
+    * @param handler  - The handler of the request
+    */
+  private def handleReporting(exchange: HttpExchange)(handler: HttpExchange => Unit): Unit = {
+    active.incrementAndGet()
+    try {
+      Instruments.count("server.requests", 1)
+      handler(exchange)
+    } catch {
+      case e: IllegalArgumentException => respondError(exchange, 400, e.getMessage)
+      case e: Exception =>
+        e.printStackTrace()
+        Instruments.count("server.errors", 1)
+        respondError(exchange, 500, e.getClass.getSimpleName + ": " + e.getMessage)
+    } finally {
+      active.decrementAndGet()
+      exchange.close()
+    }
+  }
+
+  /**
+    * Auxiliary method that extracts the objects of the PDF document in the body of the request and streams them as NDJSON
+    *
+    * @param exchange - The request and its response
+    * @throws IllegalArgumentException If the request has no keywords or any of its parameters is invalid
+    */
+  @throws[IllegalArgumentException]
+  private def extract(exchange: HttpExchange): Unit = {
+    if (exchange.getRequestMethod != "POST") respondError(exchange, 405, "Send the PDF document in the body of a POST request")
+    else {
+      val parameters = ExtractionServer.queryParameters(exchange.getRequestURI)
+      val keywords = parameters.getOrElse("keyword", Nil).map(ExtractionServer.parseKeyword).toMap
+      require(keywords.nonEmpty, "The request should have at least one keyword parameter, as in keyword=name%3DProperNoun")
+      val readImages = !parameters.get("images").exists(_.contains("false"))
+      val flag = parameters.get("flag").flatMap(_.headOption).getOrElse("empty")
+      val budget = parameters.get("timeout").flatMap(_.headOption) match {
+        case Some(millis) => Budget.of(millis.toLongOption.getOrElse(throw new IllegalArgumentException("The timeout should be a number of milliseconds")))
+        case None => Budget.unlimited()
+      }
+
+      val tooLarge = "The document should have at most " + maxBodyBytes + " bytes"
+      val declaredLength = Option(exchange.getRequestHeaders.getFirst("Content-Length")).flatMap(_.toLongOption)
+      if (declaredLength.exists(_ > maxBodyBytes)) respondError(exchange, 413, tooLarge)
+      else ExtractionServer.readBody(exchange.getRequestBody, maxBodyBytes) match {
+        case None => respondError(exchange, 413, tooLarge)
+        case Some(bytes) => extractFrom(exchange, bytes, keywords, readImages, flag, budget)
+      }
+    }
+  }
+
+  /**
+    * Auxiliary method that extracts the objects of a PDF document and streams them as NDJSON
+    *
+    * @param exchange   - The request and its response
+    * @param bytes      - The bytes of the PDF document
+    * @param keywords   - The keywords to find values for
+    * @param readImages - If the text of the images in the document should be read
+    * @param flag       - Flag with information on how to return non-existing values
+    * @param budget     - The deadline of the request
+    */
+  private def extractFrom(exchange: HttpExchange, bytes: Array[Byte], keywords: Map[Keyword, Specification],
+                          readImages: Boolean, flag: String, budget: Budget): Unit = {
+    val text = Instruments.time("server.read", () => readPDFBytesWithin(bytes, budget, readImages))
+    text.value match {
+      case None => respondError(exchange, 422, "The document could not be read or has no text")
+      case someText =>
+        val matched = Instruments.time("server.match", () => getAllMatchedValuesWithin(someText, keywords, budget))
+        exchange.getResponseHeaders.set("Content-Type", "application/x-ndjson; charset=utf-8")
+        exchange.getResponseHeaders.set("X-Flipper-Truncated", String.valueOf(text.truncated || matched.truncated))
+        exchange.sendResponseHeaders(200, 0) //chunked, each object is sent as soon as it is written
+        val out = streamWriter(exchange.getResponseBody)
+        assembleObjects(matched.value, keywords).foreach { obj =>
+          writeObject(out, obj, flag)
+          out.write('\n')
+          out.flush()
+        }
+        out.close()
+    }
+  }
+
+  /**
+    * Auxiliary method that answers with the state of the server
+    *
+    * @param exchange - The request and its response
+    */
+  private def health(exchange: HttpExchange): Unit = {
+    val uptime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+    respond(exchange, 200, "application/json",
+      "{\"status\" : \"ok\", \"uptimeMillis\" : " + uptime + ", \"activeRequests\" : " + (active.get - 1) + "}")
+  }
+
+  /**
+    * Auxiliary method that answers with every metric reported since the server started
+    *
+    * @param exchange - The request and its response
+    */
+  private def metricsReport(exchange: HttpExchange): Unit = {
+    val report = new StringBuilder
+    metrics.snapshot().forEach((name, value) => report.append(name).append(' ').append(value).append('\n'))
+    respond(exchange, 200, "text/plain; charset=utf-8", report.toString)
+  }
+
+  private def respondError(exchange: HttpExchange, status: Int, message: String): Unit = {
+    if (exchange.getResponseCode < 0) { //once the objects started streaming the status can no longer change
+      val body = new StringWriter()
+      body.write("{\"status\" : \"error\", \"error\" : ")
+      writeString(body, String.valueOf(message))
+      body.write("}")
+      respond(exchange, status, "application/json", body.toString)
+    }
+  }
+
+  private def respond(exchange: HttpExchange, status: Int, contentType: String, body: String): Unit = {
+    val bytes = body.getBytes(StandardCharsets.UTF_8)
+    exchange.getResponseHeaders.set("Content-Type", contentType)
+    exchange.sendResponseHeaders(status, bytes.length)
+    exchange.getResponseBody.write(bytes)
+  }
+}
+
+object ExtractionServer {
+
+  /**
+    * Method that starts an extraction daemon on the loopback address.
+    * Before accepting requests, the models are loaded and every worker runs a warm up, so the first requests are as fast as the rest.
+    * The port is bound first, so a port already in use fails before anything else is started
+    *
+    * @param port         - Optional parameter - The port to listen on. Use 0 to pick any free port
+    * @param workers      - Optional parameter - The number of requests handled at the same time
+    * @param preload      - Optional parameter - If the models should be loaded and the workers warmed up before accepting requests
+    * @param maxBodyBytes - Optional parameter - The largest document accepted, in bytes
+    * @throws IllegalArgumentException If the number of workers or the maximum body size are not positive
+    * @throws IOException              If the port could not be bound
+    * @return the running ExtractionServer
+    */
+  @throws[IllegalArgumentException]
+  @throws[IOException]
+  def start(port: Int = 8765, workers: Int = Runtime.getRuntime.availableProcessors, preload: Boolean = true,
+            maxBodyBytes: Long = DefaultMaxBodyBytes): ExtractionServer = {
+    require(workers > 0, "The number of workers should be positive")
+    require(maxBodyBytes > 0, "The maximum body size should be positive")
+    val server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress, port), 0)
+    val metrics = new AggregatingInstrumentation
+    val pool = Executors.newFixedThreadPool(workers)
+    try {
+      if (preload) warmUp(pool, workers)
+      server.setExecutor(pool)
+      val extractionServer = new ExtractionServer(server, pool, metrics, maxBodyBytes)
+      server.start()
+      extractionServer
+    } catch {
+      case e: Throwable => //nothing may be left running, or the daemon's process would never exit
+        server.stop(0)
+        pool.shutdownNow()
+        throw e
+    }
+  }
+
+  /**
+    * The largest document accepted by default, in bytes
+    */
+  val DefaultMaxBodyBytes: Long = 64L * 1024 * 1024
+
+  /**
+    * Auxiliary method that loads the shared models and has every worker add a warm LanguageTool instance of each language
+    * to the spell checker's pools (up to their size). Each warm up task waits for all the others, so they run at the same time
+    *
+    * @param pool    - The workers to warm up
+    * @param workers - The number of workers
+    */
+  private def warmUp(pool: ExecutorService, workers: Int): Unit = {
+    OpenNLP.preload()
+    ImageProcessing.preload()
+    val ready = new CountDownLatch(workers)
+    val done = new CountDownLatch(workers)
+    for (_ <- 0 until workers) {
+      pool.execute(() => {
+        try {
+          ready.countDown()
+          ready.await()
+          SpellChecker.preload()
+        } finally {
+          done.countDown()
+        }
+      })
+    }
+    done.await()
+  }
+
+  /**
+    * Auxiliary method that parses a keyword given as "keyword=specification", as in "name=ProperNoun"
+    *
+    * @param keyword - The keyword and its specification
+    * @throws IllegalArgumentException If the keyword has no specification or the specification is not supported
+    * @return the keyword and its Specification
+    */
+  @throws[IllegalArgumentException]
+  private[extraction] def parseKeyword(keyword: String): (Keyword, Specification) = {
+    val separator = keyword.indexOf('=')
+    if (separator <= 0) throw new IllegalArgumentException("Keywords should be given as <keyword>=<specification>: " + keyword)
+    (keyword.substring(0, separator).trim, Specification.parse(keyword.substring(separator + 1)))
+  }
+
+  /**
+    * Auxiliary method that decodes the query parameters of a request
+    *
+    * @param uri - The URI of the request
+    * @return a Map of each parameter and all its values
+    */
+  private[extraction] def queryParameters(uri: URI): Map[String, List[String]] = {
+    Option(uri.getRawQuery).toList.flatMap(_.split('&')).filter(_.nonEmpty).map { pair =>
+      val separator = pair.indexOf('=')
+      val (name, value) = if (separator < 0) (pair, "") else (pair.substring(0, separator), pair.substring(separator + 1))
+      (URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"))
+    }.groupBy(_._1).map { case (name, values) => (name, values.map(_._2)) }
+  }
+
+  /**
+    * Auxiliary method that reads the body of a request, stopping as soon as it is larger than the given size
+    *
+    * @param in       - The body of the request
+    * @param maxBytes - The largest body accepted, in bytes
+    * @return an Option with the bytes of the body, or None if it is larger than maxBytes
+    */
+  private[extraction] def readBody(in: InputStream, maxBytes: Long): Option[Array[Byte]] = {
+    val body = new ByteArrayOutputStream()
+    val buffer = new Array[Byte](64 * 1024)
+    var read = in.read(buffer)
+    while (read >= 0 && body.size + read <= maxBytes) {
+      body.write(buffer, 0, read)
+      read = in.read(buffer)
+    }
+    if (read >= 0) None else Some(body.toByteArray)
+  }
+}
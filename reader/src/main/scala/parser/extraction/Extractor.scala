@@ -1,9 +1,13 @@
 package parser.extraction
 
-import java.io.File
-import java.text.Normalizer
-
-import org.apache.pdfbox.text.PDFTextStripper
+import java.awt.geom.Rectangle2D
+import java.io.{File, OutputStream, StringWriter, Writer}
+
+import instrumentation.{AsyncExecution, Instruments}
+import org.apache.pdfbox.pdmodel.PDDocument
+import org.apache.pdfbox.pdmodel.interactive.form.{PDChoice, PDPushButton, PDSignatureField, PDTerminalField}
+import org.apache.pdfbox.rendering.PDFRenderer
+import org.apache.pdfbox.text.{PDFTextStripper, PDFTextStripperByArea}
 import parser.extraction.FileHandler._
 import parser.utils.ImageProcessing._
 import parser.utils.OpenNLP._
@@ -11,6 +15,7 @@ import parser.utils.SpellChecker._
 import parser.utils._
 
 import scala.annotation.tailrec
+import scala.collection.JavaConverters._
 import scala.io.Source
 import scala.util.matching.Regex
 
@@ -28,27 +33,175 @@ object Extractor {
     * @param file - File to be loaded and parsed
     * @return An Option wrapping a String containing all the text found in the document. Returns None in case of Exception
     */
-  def readPDF(file: File, readImages: Boolean = true): Option[String] = {
-    val pdfOption = loadPDF(file)
+  def readPDF(file: File, readImages: Boolean = true): Option[String] =
+    readPDFWithin(file, Budget.unlimited(), readImages).value
+
+  /**
+    * Method that loads a PDF file and reads its text page by page, stopping when the given budget runs out.
+    * The budget is checked before each page, before each image read by the OCR and before spell-checking the text of the images
+    *
+    * @param file       - File to be loaded and parsed
+    * @param budget     - The deadline and cancellation token of this call
+    * @param readImages - Optional parameter - If the text of the images in the document should be read
+    * @return A PartialResult with an Option wrapping the text read before the budget ran out, marked as truncated if it did.
+    *         The text of the images is returned without spell-checking if the budget ran out before it
+    */
+  def readPDFWithin(file: File, budget: Budget, readImages: Boolean = true): PartialResult[Option[String]] =
+    readDocument(Instruments.time("reader.load", () => loadPDF(file)), file.length, budget, readImages)
+
+  /**
+    * Method that reads the text of a PDF document received in memory (as the body of a request), stopping when the given budget runs out
+    *
+    * @param bytes      - The bytes of the PDF document
+    * @param budget     - The deadline and cancellation token of this call
+    * @param readImages - Optional parameter - If the text of the images in the document should be read
+    * @return A PartialResult with an Option wrapping the text read before the budget ran out, marked as truncated if it did
+    */
+  def readPDFBytesWithin(bytes: Array[Byte], budget: Budget, readImages: Boolean = true): PartialResult[Option[String]] =
+    readDocument(Instruments.time("reader.load", () => loadPDF(bytes)), bytes.length, budget, readImages)
+
+  /**
+    * Auxiliary method that reads the text of a loaded PDF document page by page, and closes it
+    *
+    * @param pdfOption  - The loaded document, or None if it couldn't be loaded
+    * @param size       - The size of the document in bytes
+    * @param budget     - The deadline and cancellation token of the call
+    * @param readImages - If the text of the images in the document should be read
+    * @return A PartialResult with an Option wrapping the text read before the budget ran out, marked as truncated if it did
+    */
+  private def readDocument(pdfOption: Option[PDDocument], size: Long, budget: Budget, readImages: Boolean): PartialResult[Option[String]] = {
     pdfOption match {
       case Some(pdf) =>
-        val document: PDFTextStripper = new PDFTextStripper
-        val str = Normalizer.normalize(document.getText(pdf), Normalizer.Form.NFD)
-          .replaceAll("[\\p{InCombiningDiacriticalMarks}]", "")
-        val imgText =
-          if (readImages) {
-            val imageList = extractImgs(pdf).getOrElse(List())
-            val imageTexts = imageList.map(img => readImageText(img).getOrElse("")).mkString
-            correctText(imageTexts)
-          } else ""
-
-        pdf.close()
-        cleanImageDir()
-        val joinedText = imgText + str
-        if (joinedText.nonEmpty) Some(joinedText)
-        else None
-      case _ => None
+        try {
+          Instruments.count("reader.bytes", size)
+          val document: PDFTextStripper = new PDFTextStripper
+          val text = new java.lang.StringBuilder //every page is normalized straight into this buffer
+          val pagesTruncated = readWithin((1 to pdf.getNumberOfPages).iterator, budget) { pageNumber =>
+            document.setStartPage(pageNumber)
+            document.setEndPage(pageNumber)
+            val pageText = Instruments.time("reader.strip", () => document.getText(pdf))
+            Instruments.count("reader.pages", 1)
+            Instruments.time("reader.normalize", () => TextNormalizer.pageText.normalizeInto(pageText, text))
+          }
+          val images =
+            if (readImages && !pagesTruncated) {
+              val imageList = pdf.getPages.asScala.iterator.flatMap { page =>
+                val pageImages = Instruments.time("reader.images", () => extractPageImages(page))
+                Instruments.count("reader.images", pageImages.length)
+                pageImages
+              }
+              val imageTexts = new java.lang.StringBuilder
+              val imagesTruncated = readWithin(imageList, budget) { img =>
+                imageTexts.append(Instruments.time("reader.ocr", () => readImageText(img).getOrElse("")))
+              }
+              if (imagesTruncated || outOfBudget(budget)) PartialResult(imageTexts.toString, truncated = true)
+              else PartialResult(Instruments.time("reader.spellcheck", () => correctText(imageTexts.toString)), truncated = false)
+            } else PartialResult("", pagesTruncated)
+
+          val joinedText = text.insert(0, images.value).toString
+          PartialResult(if (joinedText.nonEmpty) Some(joinedText) else None, images.truncated)
+        } finally {
+          pdf.close()
+        }
+      case _ => PartialResult(None, truncated = false)
+    }
+  }
+
+  /**
+    * Auxiliary method that reads the given items one by one, checking the budget before each of them
+    *
+    * @param items  - The items to be read
+    * @param budget - The deadline and cancellation token of the call
+    * @param read   - The function that reads an item
+    * @tparam A - The type of the items
+    * @return true if the budget ran out before all the items were read
+    */
+  private def readWithin[A](items: Iterator[A], budget: Budget)(read: A => Unit): Boolean = {
+    var truncated = false
+    while (items.hasNext && !truncated) {
+      if (outOfBudget(budget)) truncated = true
+      else read(items.next())
     }
+    truncated
+  }
+
+  /**
+    * Auxiliary method that checks if the budget of a call ran out, stopping the call if its thread was interrupted
+    *
+    * @param budget - The deadline and cancellation token of the call
+    * @return if the budget was cancelled or its deadline has passed
+    */
+  private def outOfBudget(budget: Budget): Boolean = {
+    AsyncExecution.checkInterrupted()
+    budget.isExhausted
+  }
+
+  /**
+    * Method that reads only the given areas of a PDF document instead of the whole document.
+    * The text layer of each area is read with PDFBox's PDFTextStripperByArea. If an area has no text layer (as in scanned pages)
+    * and readImages is set, only that area of the page is rendered and passed through the OCR
+    *
+    * @param file       - File to be loaded and parsed
+    * @param regions    - Map of keywords and the area of the document in which to look for their values
+    * @param readImages - Optional parameter - If the areas without a text layer should be read with the OCR
+    * @return a Map of the keywords and the text found inside their areas. Areas on pages the document doesn't have are left out.
+    *         Returns an empty Map in case the document can't be loaded
+    */
+  def readPDFRegions(file: File, regions: Map[Keyword, Region], readImages: Boolean = true): Map[Keyword, String] = {
+    loadPDF(file) match {
+      case Some(pdf) =>
+        try {
+          lazy val renderer = new PDFRenderer(pdf)
+          val pageRegions = regions.filter(_._2.page <= pdf.getNumberOfPages).groupBy(_._2.page)
+          pageRegions.flatMap { case (pageNumber, areas) =>
+            val stripper = new PDFTextStripperByArea
+            areas.foreach { case (key, region) =>
+              stripper.addRegion(key, new Rectangle2D.Float(region.x, region.y, region.width, region.height))
+            }
+            stripper.extractRegions(pdf.getPage(pageNumber - 1))
+
+            areas.map { case (key, region) =>
+              val str = TextNormalizer.pageText.normalize(stripper.getTextForRegion(key))
+              if (str.trim.isEmpty && readImages) (key, correctText(readRegionText(renderer, region).getOrElse("")))
+              else (key, str)
+            }
+          }
+        } finally {
+          pdf.close()
+        }
+      case None => Map()
+    }
+  }
+
+  /**
+    * Method that will try to obtain values for the given keywords, looking for each keyword's value only inside its area of the document.
+    * Keywords that have no area specified are searched in the whole document, as in getAllMatchedValues
+    *
+    * @param file              - File to be loaded and parsed
+    * @param keywords          - List containing all the keywords we want to find values for
+    * @param regions           - Map of keywords and the area of the document in which to look for their values
+    * @param clientRegEx       - Optional parameter - If the client already has a predefined Regular Expression for a given key
+    *                          use that regular expression instead of ours
+    * @param includeDuplicates - Optional parameter - If repeated options of MultipleOf keywords should all be returned
+    * @param readImages        - Optional parameter - If the areas without a text layer should be read with the OCR
+    * @throws IllegalArgumentException If the keywords list is empty
+    * @return List containing pairs of Keywords and a List (non-repeating) of values found for that keyword
+    */
+  @throws[IllegalArgumentException]
+  def getRegionMatchedValues(file: File, keywords: Map[Keyword, Specification], regions: Map[Keyword, Region],
+                             clientRegEx: Map[Keyword, Regex] = Map(), includeDuplicates: Boolean = false,
+                             readImages: Boolean = true): MatchedPair = {
+    require(keywords.nonEmpty, "The list of keywords should not be empty")
+    val regionTexts = readPDFRegions(file, regions.filter(r => keywords.contains(r._1)), readImages)
+    val (scoped, unscoped) = keywords.partition(k => regionTexts.contains(k._1))
+
+    val scopedValues = scoped.map { case (key, spec) => //a region with no text still gives its keyword an empty list of values
+      key -> getAllMatchedValues(regionTexts.get(key), Map(key -> spec), clientRegEx, includeDuplicates).getOrElse(key, Nil)
+    }
+    val unscopedValues =
+      if (unscoped.nonEmpty) getAllMatchedValues(readPDF(file, readImages), unscoped, clientRegEx, includeDuplicates)
+      else Map()
+    scopedValues ++ unscopedValues
   }
 
   /**
@@ -63,11 +216,31 @@ object Extractor {
     */
   @throws[IllegalArgumentException]
   def getAllMatchedValues(text: Option[String], keywords: Map[Keyword, Specification],
-                          clientRegEx: Map[Keyword, Regex] = Map(), includeDuplicates: Boolean): MatchedPair = {
+                          clientRegEx: Map[Keyword, Regex] = Map(), includeDuplicates: Boolean): MatchedPair =
+    getAllMatchedValuesWithin(text, keywords, Budget.unlimited(), clientRegEx, includeDuplicates).value
+
+  /**
+    * Method that will iterate through a list of given keywords and will try to obtain a value for that keyword,
+    * stopping when the given budget runs out. The budget is checked before tagging the text for each keyword
+    *
+    * @param text              - Text in which to look for values for the specified keywords
+    * @param keywords          - List containing all the keywords we want to find values for
+    * @param budget            - The deadline and cancellation token of this call
+    * @param clientRegEx       - Optional parameter - If the client already has a predefined Regular Expression for a given key
+    *                          use that regular expression instead of ours
+    * @param includeDuplicates - Optional parameter - If repeated options of MultipleOf keywords should all be returned
+    * @throws IllegalArgumentException If the keywords list is empty
+    * @return A PartialResult with the values found for each keyword, marked as truncated if the budget ran out.
+    *         The keywords that weren't tagged before the budget ran out have no values
+    */
+  @throws[IllegalArgumentException]
+  def getAllMatchedValuesWithin(text: Option[String], keywords: Map[Keyword, Specification], budget: Budget,
+                                clientRegEx: Map[Keyword, Regex] = Map(), includeDuplicates: Boolean = false): PartialResult[MatchedPair] = {
     require(keywords.nonEmpty, "The list of keywords should not be empty")
     text match {
       case Some(t) =>
         if (t.nonEmpty) {
+          var truncated = false
           val knownRegEx: Map[String, Regex] = importRegExFile(t) //load correct RegEx map
           val matched: MatchedPair = keywords.map { case (key, spec) =>
             spec match {
@@ -81,6 +254,12 @@ object Extractor {
                 else if (knownRegEx.contains(key))
                   (key, knownRegEx(key).findAllIn(t).matchData.map(_.group(1)).toList.distinct)
 
+                //don't start tagging if the budget ran out
+                else if (truncated || outOfBudget(budget)) {
+                  truncated = true
+                  (key, Nil)
+                }
+
                 else findKeywordInText(key, tag, t) //to be changed, here we need to manually search for the keywords in the text
 
               case multiOp: MultipleOf =>
@@ -91,12 +270,12 @@ object Extractor {
                 (key, ext)
             }
           }
-          filterNewLines(matched)
+          PartialResult(filterNewLines(matched), truncated)
         }
         else {
-          Map()
+          PartialResult(Map(), truncated = false)
         }
-      case None => Map()
+      case None => PartialResult(Map(), truncated = false)
     }
   }
 
@@ -142,20 +321,7 @@ object Extractor {
       case Some(t) =>
         if (t.nonEmpty) {
           val matchedValues = getAllMatchedValues(text, keywords, clientRegEx, includeDuplicates = false)
-          val mostFound = matchedValues.filter(m => !isMulti(m._1, keywords)).maxBy(_._2.size)._2.size //Gets the size of the pair that has the most values
-          val mappedValues = for (i <- 0 until mostFound; (key, listMatched) <- matchedValues) yield {
-            if (isMulti(key, keywords) && listMatched.size > mostFound) {
-              val lst = listMatched.grouped(mostFound).toList
-              lst(i)
-            } else {
-              if (listMatched.size > i) //Prevent array out of bounds exception
-                List(listMatched(i))
-              else List()
-            }
-          }
-          val keywordList: List[String] = keywords.keys.toList
-          val joinedValues = mappedValues.zipWithIndex.map { case (value, index) => Map(keywordList(index % keywords.size) -> value) }.grouped(keywords.size).toList
-          joinedValues.map(_.flatten.toMap)
+          assembleObjects(matchedValues, keywords).toList
         }
         else {
           List()
@@ -164,6 +330,33 @@ object Extractor {
     }
   }
 
+  /**
+    * Method that assembles the values found for each keyword into objects, one object at a time.
+    * The number of objects is the number of values of the single valued keyword that found the most values, and the i-th
+    * object holds the i-th value of each keyword. Keywords flagged as multiple that found more values than there are objects
+    * have their values split into consecutive groups, one group per object.
+    *
+    * The values of each keyword are kept in an indexed column so every object is built in constant time per keyword,
+    * and the objects are only built as the returned iterator is consumed
+    *
+    * @param matchedValues - List of pairs of keywords and the values found for them
+    * @param keywords      - Map of the keywords with the original information passed by the user
+    * @return an Iterator over the objects, each containing all the keywords with their values for that object
+    */
+  def assembleObjects(matchedValues: MatchedPair, keywords: Map[Keyword, Specification]): Iterator[MatchedPair] = {
+    val columns = matchedValues.toArray.map { case (key, values) => (key, values.toIndexedSeq, isMulti(key, keywords)) }
+    val singleSizes = columns.collect { case (_, values, false) => values.size }
+    val mostFound = if (singleSizes.isEmpty) 0 else singleSizes.max //Gets the size of the pair that has the most values
+
+    Iterator.range(0, mostFound).map { i =>
+      columns.iterator.map { case (key, values, multi) =>
+        if (multi && values.size > mostFound) (key, values.slice(i * mostFound, (i + 1) * mostFound).toList)
+        else if (values.size > i) (key, List(values(i))) //Prevent array out of bounds exception
+        else (key, List[String]())
+      }.toMap
+    }
+  }
+
 
   /**
     * Method that chack if a keyword was passed with a isMultiple flag by the user
@@ -204,6 +397,48 @@ object Extractor {
   }
 
 
+  /**
+    * Method that encapsulates the entire process of finding values for the given keywords list and writing them as JSON objects,
+    * one object per line (NDJSON). The objects are written as they are assembled, so the result set is never held as strings
+    *
+    * @param text        - Text in which to look for values for the specified keywords
+    * @param keywords    - List containing all the keywords we want to find values for
+    * @param out         - The Writer in which to write the JSON objects
+    * @param flag        - Optional flag with information on how to return non-existing values
+    * @param clientRegEx - Optional parameter - If the client already has a predefined Regular Expression for a given key
+    * @throws IllegalArgumentException If the keywords list is empty
+    */
+  @throws[IllegalArgumentException]
+  def writeJSONObjects(text: Option[String], keywords: Map[Keyword, Specification], out: Writer, flag: String = "empty",
+                       clientRegEx: Map[Keyword, Regex] = Map()): Unit = {
+    require(keywords.nonEmpty, "The list of keywords should not be empty")
+    text match {
+      case Some(t) if t.nonEmpty =>
+        val matchedValues = getAllMatchedValues(text, keywords, clientRegEx, includeDuplicates = false)
+        JSONWriter.writeNDJSON(out, assembleObjects(matchedValues, keywords), flag)
+      case _ =>
+    }
+  }
+
+  /**
+    * Method that encapsulates the entire process of finding values for the given keywords list and writing them as JSON objects,
+    * one object per line (NDJSON), into an OutputStream encoded in UTF-8. The stream is flushed but not closed
+    *
+    * @param text        - Text in which to look for values for the specified keywords
+    * @param keywords    - List containing all the keywords we want to find values for
+    * @param out         - The OutputStream in which to write the JSON objects
+    * @param flag        - Flag with information on how to return non-existing values
+    * @param clientRegEx - If the client already has a predefined Regular Expression for a given key
+    * @throws IllegalArgumentException If the keywords list is empty
+    */
+  @throws[IllegalArgumentException]
+  def writeJSONObjects(text: Option[String], keywords: Map[Keyword, Specification], out: OutputStream, flag: String,
+                       clientRegEx: Map[Keyword, Regex]): Unit = {
+    val writer = JSONWriter.streamWriter(out)
+    writeJSONObjects(text, keywords, writer, flag, clientRegEx)
+    writer.flush()
+  }
+
   /**
     * Method that encapsulates the process of making a single JSON object from all the information found in the text for the given keywords.
     *
@@ -219,6 +454,22 @@ object Extractor {
     makeJSONString(mp, flag)
   }
 
+  /**
+    * Method that encapsulates the process of writing a single JSON object with all the information found in the text for the given keywords
+    *
+    * @param text        - Text in which to look for values for the specified keywords
+    * @param keywords    - List containing all the keywords we want to find values for
+    * @param out         - The Writer in which to write the JSON object
+    * @param flag        - Optional flag with information on how to return non-existing values
+    * @param clientRegEx - Optional parameter - If the client already has a predefined Regular Expression for a given key
+    */
+  def writeSingleJSON(text: Option[String], keywords: Map[Keyword, Specification], out: Writer, flag: String = "empty",
+                      clientRegEx: Map[Keyword, Regex] = Map()): Unit = {
+    require(keywords.nonEmpty, "The list of keywords should not be empty")
+    val mp = getAllMatchedValues(text, keywords, clientRegEx, includeDuplicates = false)
+    JSONWriter.writeObject(out, mp, flag)
+  }
+
   /**
     * Method that given a List of pairs of keywords and their respective values will create a string in JSON format
     *
@@ -233,47 +484,9 @@ object Extractor {
     * @return a JSON string
     */
   def makeJSONString(listJSON: MatchedPair, flag: String = "empty"): String = {
-    def isAllDigits(x: String) = try {
-      x.toDouble; true
-    } catch {
-      case _: Exception => false
-    }
-
-    lazy val quote = "\""
-
-    val pseudoJSON = listJSON.map { case (key, matchedList) =>
-      matchedList match {
-        case _: List[String] =>
-          if (matchedList.nonEmpty) {
-            if (matchedList.size > 1) {
-              val left = s"${quote + key + quote} : "
-              val right = "[" + matchedList.map(str => if (isAllDigits(str)) str + ", " else s"${quote + str + quote}, ").mkString + "]"
-              (left + right).replaceAll(", ]", "]") //Remove trailing commas
-            } else {
-              lazy val headValue = matchedList.head
-              if (isAllDigits(headValue))
-                s"${quote + key + quote} : $headValue"
-              else
-                s"${quote + key + quote} : ${quote + headValue + quote}"
-            }
-          } else {
-            flag match {
-              case "empty" => s"${quote + key + quote} : ${quote + quote}"
-              case "null" => s"${quote + key + quote} : null"
-            }
-          }
-        case _ =>
-          flag match {
-            case "empty" => s"${quote + key + quote} : ${quote + quote}"
-            case "null" => s"${quote + key + quote} : null"
-          }
-      }
-    }
-
-    flag match {
-      case "remove" => pseudoJSON.filter(_ != ()).mkString("{", ", ", "}")
-      case _ => pseudoJSON.mkString("{", ", ", "}")
-    }
+    val out = new StringWriter()
+    JSONWriter.writeObject(out, listJSON, flag)
+    out.toString
   }
 
   /**
@@ -289,6 +502,49 @@ object Extractor {
     makeJSONString(form)
   }
 
+  /**
+    * Method that gets all the fields and respective values from a PDF form and returns a JSON string.
+    * The values are read straight from the document's AcroForm, with no text stripping or OCR involved.
+    * If the document has no form fields (a flattened form) it falls back to searching the document's text for key-value pairs
+    *
+    * @param file - The PDF form to be loaded and parsed
+    * @return - A JSON String containing all the fields found in the form
+    */
+  def getJSONFromForm(file: File): String = {
+    loadPDF(file) match {
+      case Some(pdf) =>
+        try {
+          val fields = readFormFields(pdf)
+          if (fields.nonEmpty) makeJSONString(fields)
+          else getJSONFromForm(Some(new PDFTextStripper().getText(pdf)))
+        } finally {
+          pdf.close()
+        }
+      case None => getJSONFromForm(None)
+    }
+  }
+
+  /**
+    * Method that reads the name and value of every terminal field in the document's AcroForm.
+    * Signature fields and push buttons carry no data and are ignored, choice fields may have more than one value
+    *
+    * @param pdf - The loaded PDF document
+    * @return the fields found in the form paired with their values. Empty if the document has no AcroForm
+    */
+  private def readFormFields(pdf: PDDocument): MatchedPair = {
+    val acroForm = pdf.getDocumentCatalog.getAcroForm
+    if (acroForm == null) Map()
+    else {
+      acroForm.getFieldTree.asScala.toList.collect {
+        case choice: PDChoice if choice.getFullyQualifiedName != null =>
+          (choice.getFullyQualifiedName, choice.getValue.asScala.toList)
+        case field: PDTerminalField if field.getFullyQualifiedName != null &&
+          !field.isInstanceOf[PDSignatureField] && !field.isInstanceOf[PDPushButton] =>
+          (field.getFullyQualifiedName, List(field.getValueAsString).filter(_.nonEmpty))
+      }.toMap
+    }
+  }
+
   /**
     * Method that will remove all the new line characters from the list of values obtain from a keyword
     *
@@ -297,8 +553,7 @@ object Extractor {
     */
   private def filterNewLines(matchedValues: MatchedPair): MatchedPair = {
     matchedValues.map { case (key, matchedList) =>
-      val setOfValues = matchedList
-      (key, setOfValues.map(_.replaceAll("[\\r\\n]", "").trim)) //remove all new line characters and trim all elements
+      (key, matchedList.map(TextNormalizer.values.normalize)) //remove all new line characters and trim all elements
     }
   }
 
@@ -313,7 +568,9 @@ object Extractor {
     * @return A pair containing the keyword and a list of values found for that keyword
     */
   private def findKeywordInText(keyword: Keyword, tag: POSTag, text: String): (Keyword, List[String]) = {
-    val (splittedWords, tags) = tagText(text)
+    AsyncExecution.checkInterrupted() //don't start tagging if the extraction was cancelled
+    val (splittedWords, tags) = Instruments.time("reader.tag", () => tagText(text))
+    Instruments.count("reader.tokens", splittedWords.length)
 
     val arrLength = splittedWords.length
 
@@ -27,27 +27,30 @@ private[parser] object FileHandler {
   }
 
   /**
-    * Method that loads a picture from a file and returns a Scrimage Image object representing the loaded image
+    * Method that loads a PDF document received in memory, as the body of a request
     *
-    * @param file - The image file to be loaded
-    * @return an Image object representing the loaded image from the given file
+    * @param bytes - The bytes of the PDF document
+    * @return a PDDocument object representing the loaded PDF document
     */
-  def loadImage(file: File): Option[Image] = {
+  def loadPDF(bytes: Array[Byte]): Option[PDDocument] = {
     try {
-      Some(Image.fromFile(file))
+      Some(PDDocument.load(bytes))
     } catch {
       case e: Exception => e.printStackTrace(); None
     }
   }
 
   /**
-    * Method that deletes all files from the image folder
+    * Method that loads a picture from a file and returns a Scrimage Image object representing the loaded image
+    *
+    * @param file - The image file to be loaded
+    * @return an Image object representing the loaded image from the given file
     */
-  private[extraction] def cleanImageDir() {
-    val dir = new File("./target/images")
-    if (dir.exists) {
-      val files = dir.listFiles.filter(_.isFile).toList
-      files.foreach(_.delete)
+  def loadImage(file: File): Option[Image] = {
+    try {
+      Some(Image.fromFile(file))
+    } catch {
+      case e: Exception => e.printStackTrace(); None
     }
   }
 
@@ -0,0 +1,182 @@
+package parser.extraction
+
+import java.io.{BufferedWriter, OutputStream, OutputStreamWriter, Writer}
+import java.nio.charset.StandardCharsets
+
+import parser.extraction.Extractor.{Keyword, MatchedPair}
+
+import scala.annotation.tailrec
+
+/**
+  * Singleton object that writes the extraction results as JSON straight into a java.io.Writer or java.io.OutputStream,
+  * without building any intermediate strings.
+  *
+  * All methods receive an optional flag with information on how to write keywords with no values, this flag can be :
+  * "empty" (default) - writes an empty string
+  * "null" - writes the value null
+  * "remove" - removes that specific field altogether
+  */
+object JSONWriter {
+
+  /**
+    * Method that writes a single JSON object with all the keywords and their respective values.
+    * A keyword with a single value is written as that value, a keyword with more than one value is written as an array
+    *
+    * @param out    - The Writer in which to write the JSON object
+    * @param values - List of pairs of keywords and their respective values
+    * @param flag   - Optional flag with information on how to write non-existing values
+    */
+  def writeObject(out: Writer, values: MatchedPair, flag: String = "empty"): Unit = {
+    out.write('{')
+    var first = true
+    values.foreach { case (key, matchedList) =>
+      if (matchedList.nonEmpty || flag != "remove") {
+        if (!first) out.write(", ")
+        first = false
+        writeField(out, key, matchedList, flag)
+      }
+    }
+    out.write('}')
+  }
+
+  /**
+    * Method that writes each object as a single line of JSON (NDJSON), so that no more than one object is held in memory at once
+    *
+    * @param out     - The Writer in which to write the JSON objects
+    * @param objects - The objects to be written, in the order they should be written in
+    * @param flag    - Optional flag with information on how to write non-existing values
+    */
+  def writeNDJSON(out: Writer, objects: Iterator[MatchedPair], flag: String = "empty"): Unit = {
+    objects.foreach { obj =>
+      writeObject(out, obj, flag)
+      out.write('\n')
+    }
+  }
+
+  /**
+    * Method that writes each object as a single line of JSON (NDJSON) into an OutputStream, encoded in UTF-8.
+    * The stream is flushed but not closed
+    *
+    * @param out     - The OutputStream in which to write the JSON objects
+    * @param objects - The objects to be written, in the order they should be written in
+    * @param flag    - Information on how to write non-existing values
+    */
+  def writeNDJSON(out: OutputStream, objects: Iterator[MatchedPair], flag: String): Unit = {
+    val writer = streamWriter(out)
+    writeNDJSON(writer, objects, flag)
+    writer.flush()
+  }
+
+  /**
+    * Method that wraps an OutputStream in a buffered Writer that encodes the characters in UTF-8
+    *
+    * @param out - The OutputStream to be wrapped
+    * @return a Writer that writes into the given OutputStream
+    */
+  def streamWriter(out: OutputStream): Writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))
+
+  /**
+    * Method that writes a String as a JSON string, escaping the quotation marks, the backslashes and all control characters
+    *
+    * @param out - The Writer in which to write the string
+    * @param str - The String to be written
+    */
+  def writeString(out: Writer, str: String): Unit = {
+    out.write('"')
+    var start = 0
+    for (i <- 0 until str.length) {
+      val c = str.charAt(i)
+      if (c == '"' || c == '\\' || c < 0x20) {
+        out.write(str, start, i - start)
+        c match {
+          case '"' => out.write("\\\"")
+          case '\\' => out.write("\\\\")
+          case '\n' => out.write("\\n")
+          case '\r' => out.write("\\r")
+          case '\t' => out.write("\\t")
+          case '\b' => out.write("\\b")
+          case '\f' => out.write("\\f")
+          case _ =>
+            out.write('\\')
+            out.write('u')
+            out.write(String.format("%04x", Int.box(c.toInt)))
+        }
+        start = i + 1
+      }
+    }
+    out.write(str, start, str.length - start)
+    out.write('"')
+  }
+
+  /**
+    * Method that checks if a String is a valid JSON number, following the JSON grammar:
+    * an optional minus sign, an integer part with no leading zeros, an optional fraction and an optional exponent
+    *
+    * @param str - The String to be checked
+    * @return true if the String can be written as a JSON number as it is
+    */
+  def isNumber(str: String): Boolean = {
+    val length = str.length
+
+    @tailrec def digits(i: Int): Int = if (i < length && str.charAt(i) >= '0' && str.charAt(i) <= '9') digits(i + 1) else i
+
+    def integer(i: Int): Int =
+      if (i < length && str.charAt(i) == '0') i + 1
+      else if (i < length && str.charAt(i) >= '1' && str.charAt(i) <= '9') digits(i + 1)
+      else -1
+
+    def fraction(i: Int): Int =
+      if (i < length && str.charAt(i) == '.') {
+        val end = digits(i + 1)
+        if (end > i + 1) end else -1
+      } else i
+
+    def exponent(i: Int): Int =
+      if (i < length && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+        val sign = if (i + 1 < length && (str.charAt(i + 1) == '+' || str.charAt(i + 1) == '-')) i + 2 else i + 1
+        val end = digits(sign)
+        if (end > sign) end else -1
+      } else i
+
+    val intEnd = integer(if (length > 0 && str.charAt(0) == '-') 1 else 0)
+    val fracEnd = if (intEnd < 0) -1 else fraction(intEnd)
+    val expEnd = if (fracEnd < 0) -1 else exponent(fracEnd)
+    expEnd == length
+  }
+
+  /**
+    * Auxiliary method that writes a single field of a JSON object
+    *
+    * @param out         - The Writer in which to write the field
+    * @param key         - The keyword to be used as the field's name
+    * @param matchedList - The values found for the keyword
+    * @param flag        - Information on how to write non-existing values
+    */
+  private def writeField(out: Writer, key: Keyword, matchedList: Seq[String], flag: String): Unit = {
+    writeString(out, key)
+    out.write(" : ")
+    if (matchedList.isEmpty) {
+      if (flag == "null") out.write("null") else out.write("\"\"")
+    } else if (matchedList.lengthCompare(1) == 0) {
+      writeValue(out, matchedList.head)
+    } else {
+      out.write('[')
+      var first = true
+      matchedList.foreach { value =>
+        if (!first) out.write(", ")
+        first = false
+        writeValue(out, value)
+      }
+      out.write(']')
+    }
+  }
+
+  /**
+    * Auxiliary method that writes a value as a JSON number if it is one, and as a JSON string otherwise
+    *
+    * @param out   - The Writer in which to write the value
+    * @param value - The value to be written
+    */
+  private def writeValue(out: Writer, value: String): Unit =
+    if (isNumber(value)) out.write(value) else writeString(out, value)
+}
@@ -0,0 +1,69 @@
+package parser.utils
+
+import java.util.concurrent.TimeUnit
+
+/**
+  * Class that represents the latency budget of a reader call, working both as a deadline and as a cancellation token.
+  * The long running stages of the extraction (reading each page, running the OCR on each image, spell-checking and tagging)
+  * check the budget before starting, and once it is exhausted the call stops and returns what it has read so far,
+  * marked as truncated
+  *
+  * @param deadline - The System.nanoTime at which the budget runs out, or None if the budget has no deadline
+  */
+final class Budget private(deadline: Option[Long]) {
+
+  @volatile private var cancelled = false
+
+  /**
+    * Method that cancels the call using this budget. The call stops at its next check and returns a truncated result
+    */
+  def cancel(): Unit = cancelled = true
+
+  /**
+    * @return if the budget was cancelled
+    */
+  def isCancelled: Boolean = cancelled
+
+  /**
+    * @return if the budget was cancelled or its deadline has passed
+    */
+  def isExhausted: Boolean = cancelled || deadline.exists(System.nanoTime() - _ >= 0)
+
+  /**
+    * @return the milliseconds left before the deadline, or Long.MaxValue if the budget has no deadline
+    */
+  def remainingMillis: Long = deadline match {
+    case Some(d) => math.max(0L, TimeUnit.NANOSECONDS.toMillis(d - System.nanoTime()))
+    case None => Long.MaxValue
+  }
+}
+
+object Budget {
+
+  /**
+    * Method that creates a budget that runs out the given number of milliseconds from now
+    *
+    * @param millis - The number of milliseconds the call is allowed to take
+    * @throws IllegalArgumentException If the number of milliseconds is negative
+    * @return a new Budget with that deadline
+    */
+  @throws[IllegalArgumentException]
+  def of(millis: Long): Budget = {
+    require(millis >= 0, "The budget should not be negative")
+    new Budget(Some(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis)))
+  }
+
+  /**
+    * @return a new Budget without a deadline, that only runs out if it is cancelled
+    */
+  def unlimited(): Budget = new Budget(None)
+}
+
+/**
+  * Class that represents the result of a reader call made with a Budget
+  *
+  * @param value     - The result of the call, containing only what was read before the budget ran out if it was truncated
+  * @param truncated - If the budget ran out before the call could finish
+  * @tparam A - The type of the result
+  */
+case class PartialResult[A](value: A, truncated: Boolean)
@@ -0,0 +1,63 @@
+package parser.utils
+
+import java.util
+
+import org.apache.pdfbox.contentstream.PDFStreamEngine
+import org.apache.pdfbox.contentstream.operator.state.{Concatenate, Restore, Save, SetGraphicsStateParameters, SetMatrix}
+import org.apache.pdfbox.contentstream.operator.{DrawObject, Operator}
+import org.apache.pdfbox.cos.{COSBase, COSName, COSStream}
+import org.apache.pdfbox.pdmodel.PDPage
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject
+
+import scala.collection.mutable
+
+/**
+  * Class that walks the content stream of a page to find where each of its images is drawn, and at which resolution.
+  * The effective resolution of an image is the number of its pixels per inch of the page, given by the size the image
+  * is drawn at (its transformation matrix), so a 2550 pixels wide scan drawn across a letter page has 300 DPI
+  */
+private[utils] class ImageLocator extends PDFStreamEngine {
+
+  addOperator(new Concatenate)
+  addOperator(new DrawObject)
+  addOperator(new SetGraphicsStateParameters)
+  addOperator(new Save)
+  addOperator(new Restore)
+  addOperator(new SetMatrix)
+
+  private val resolutions = mutable.Map[COSStream, Float]()
+
+  /**
+    * Method that finds the effective resolution of every image drawn on a page, including the ones inside forms
+    *
+    * @param page - The page whose images to locate
+    * @return a Map of the images' streams and their horizontal resolution in DPI. When an image is drawn more than once,
+    *         the highest resolution is kept
+    */
+  def locate(page: PDPage): Map[COSStream, Float] = {
+    resolutions.clear()
+    processPage(page)
+    resolutions.toMap
+  }
+
+  override protected def processOperator(operator: Operator, operands: util.List[COSBase]): Unit = {
+    if (operator.getName == "Do" && !operands.isEmpty) {
+      operands.get(0) match {
+        case name: COSName =>
+          getResources.getXObject(name) match {
+            case image: PDImageXObject =>
+              val widthInPoints = math.abs(getGraphicsState.getCurrentTransformationMatrix.getScalingFactorX)
+              if (widthInPoints > 0) {
+                val dpi = image.getWidth / (widthInPoints / 72)
+                val stream = image.getCOSObject
+                resolutions(stream) = math.max(dpi, resolutions.getOrElse(stream, 0f))
+              }
+            case _: PDFormXObject => super.processOperator(operator, operands) //look for images inside the form
+            case _ =>
+          }
+        case _ =>
+      }
+    } else super.processOperator(operator, operands)
+  }
+}
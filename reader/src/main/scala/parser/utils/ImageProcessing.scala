@@ -1,22 +1,30 @@
 package parser.utils
 
+import java.awt.{Color, RenderingHints}
+import java.awt.image.{BufferedImage, DataBufferByte}
 import java.io.{File, IOException}
 import java.util.Iterator
 
-import parser.extraction.FileHandler._
-import com.sksamuel.scrimage.filter._
-import com.sksamuel.scrimage.nio.PngWriter
 import javax.imageio.ImageIO
-import net.sourceforge.tess4j.Tesseract
-import org.apache.pdfbox.cos.COSName
+import net.sourceforge.tess4j.{Tesseract, TesseractException}
+import org.apache.pdfbox.cos.{COSName, COSStream}
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject
-import org.apache.pdfbox.pdmodel.{PDDocument, PDResources}
+import org.apache.pdfbox.pdmodel.{PDDocument, PDPage, PDResources}
+import org.apache.pdfbox.rendering.PDFRenderer
+
+import scala.collection.JavaConverters._
 
 /**
   * Singleton Object that implements all the image processing functionalities
   */
 private[parser] object ImageProcessing {
 
+  /**
+    * The most pixels an image is scaled to for the OCR, an A3 page at 300 DPI (about 17 megapixels). Larger images are
+    * scaled down to it, which bounds the memory of the scaled images each OCR call holds
+    */
+  private[utils] val MaxScaledPixels: Long = 3508L * 4961
+
   /**
     * Method that upon receiving a text file will try to read the text from it using Tess4J tesseract library
     *
@@ -24,34 +32,287 @@ private[parser] object ImageProcessing {
     * @return an Option wrapping a String containing the images text. Returns None in case of exception
     */
   def readImageText(file: File): Option[String] = {
-    val imageOption = loadImage(file) //Create Scrimage Image from a file input stream
-
-    imageOption match {
-
-      case Some(image) =>
-        val resized = image.scaleToWidth((image.width * 2.0).toInt) //scale the image to be 100% wider
-        val instance = new Tesseract() //Initialize Tesseract
-        val filterBW = ThresholdFilter(150) //Filter the image to black and white
-        val dir = new File("./target/tempImages")
-        if (!dir.exists) dir.mkdirs
-        //Obtain the processed image file
-        val resizedFile = resized.filter(filterBW).output(new File("./target/tempImages/temp_" + System.nanoTime() + ".png"))(PngWriter.MaxCompression)
-        val extractedText = Some(instance.doOCR(resizedFile)) //Apply the OCR to the processed image
-
-        cleanImageDir()
-        extractedText
-      case _ => None
+    try {
+      Option(ImageIO.read(file)).flatMap(image => readImageText(image))
+    } catch {
+      case e: Exception => e.printStackTrace(); None
+    }
+  }
+
+  /**
+    * Method that upon receiving an image will try to read the text from it using Tess4J tesseract library.
+    * The image is processed in memory, so concurrent calls don't share any files.
+    * As its resolution is unknown, the image is scaled to be twice as wide before the OCR
+    *
+    * @param image - The image to read
+    * @return an Option wrapping a String containing the images text. Returns None in case of exception
+    */
+  def readImageText(image: BufferedImage): Option[String] = readImageText(PageImage(image, None, isBilevel(image)))
+
+  /**
+    * Method that upon receiving an image found on a page will try to read the text from it using Tess4J tesseract library.
+    * The image is first scaled to the resolution that works best for the OCR, according to its resolution on the page,
+    * and turned into black and white with an adaptive threshold, unless it already is black and white
+    *
+    * @param image - The image to read, along with its resolution on the page
+    * @return an Option wrapping a String containing the images text. Returns None in case of exception
+    */
+  def readImageText(image: PageImage): Option[String] = {
+    try {
+      Some(ocr(preprocess(image)))
+    } catch {
+      case e: TesseractException => e.printStackTrace(); None
+    }
+  }
+
+  /**
+    * Auxiliary method that reads the text of a prepared image, shared by the images of the pages and the areas of a page so
+    * both are read by the same OCR. A Tesseract can't be used by two threads at once, and creating one only holds its
+    * settings (the native library and language data are loaded once, by preload or the first image), so each call has its own
+    *
+    * @param prepared - The black and white image returned by preprocess
+    * @throws TesseractException If the OCR failed
+    * @return the text of the image
+    */
+  @throws[TesseractException]
+  private def ocr(prepared: BufferedImage): String = new Tesseract().doOCR(prepared)
+
+  /**
+    * Method that loads the OCR's native library and language data up front, by reading a blank image,
+    * so the first image read doesn't pay for loading them
+    */
+  def preload(): Unit = {
+    try {
+      ocr(new BufferedImage(32, 32, BufferedImage.TYPE_BYTE_BINARY))
+    } catch {
+      case e @ (_: TesseractException | _: LinkageError) => e.printStackTrace()
+    }
+  }
+
+  /**
+    * Method that receives a document (PDF File) and extracts all the images from it, keeping them in memory.
+    * Pages are read in order, the document is left open
+    *
+    * @param document - The PDF file to extract the images from
+    * @return a List containing all the images found in the document. Images that can't be decoded are left out
+    */
+  def extractImages(document: PDDocument): List[BufferedImage] =
+    document.getPages.asScala.toList.flatMap(extractPageImages).map(_.image)
+
+  /**
+    * Method that decodes the images drawn directly on a page of a PDF document, along with their resolution on the page
+    *
+    * @param page - The page of the PDF document from which to extract the images
+    * @return a List with the page's images, in the order they appear in its resources
+    */
+  def extractPageImages(page: PDPage): List[PageImage] = {
+    val pageResources = page.getResources
+    lazy val resolutions =
+      try new ImageLocator().locate(page)
+      catch {
+        case io: IOException => io.printStackTrace(); Map[COSStream, Float]()
+      }
+
+    pageResources.getXObjectNames.asScala.toList.flatMap { name =>
+      try {
+        pageResources.getXObject(name) match {
+          case image: PDImageXObject =>
+            Option(image.getImage).map { decoded =>
+              val bilevel = !image.isStencil && (image.getBitsPerComponent == 1 || isBilevel(decoded))
+              PageImage(decoded, resolutions.get(image.getCOSObject), bilevel)
+            }
+          case _ => None
+        }
+      } catch {
+        case io: IOException => io.printStackTrace(); None
+      }
+    }
+  }
+
+  /**
+    * Method that prepares an image for the OCR. The image is scaled by the factor given by scaleFactor and turned into
+    * grayscale in the same pass, and then into black and white with an adaptive threshold.
+    * Images that are already black and white are only scaled, without smoothing, so they stay black and white
+    *
+    * @param pageImage - The image to prepare, along with its resolution on the page
+    * @return the black and white image to pass to the OCR
+    */
+  private[utils] def preprocess(pageImage: PageImage): BufferedImage = {
+    val factor = scaleFactor(pageImage.dpi)
+    if (pageImage.bilevel)
+      if (factor == 1) pageImage.image
+      else scale(pageImage.image, factor, BufferedImage.TYPE_BYTE_BINARY, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR)
+    else
+      adaptiveThreshold(scale(pageImage.image, factor, BufferedImage.TYPE_BYTE_GRAY, RenderingHints.VALUE_INTERPOLATION_BICUBIC))
+  }
+
+  /**
+    * Method that picks the factor by which an image should be scaled for the OCR to read it at about 300 DPI.
+    * Images whose resolution is unknown are scaled to be twice as wide, and images close enough to 300 DPI aren't scaled
+    *
+    * @param dpi - The resolution of the image on the page, if known
+    * @return the scale factor, between 0.25 and 4
+    */
+  private[utils] def scaleFactor(dpi: Option[Float]): Double = dpi match {
+    case Some(resolution) if resolution > 0 =>
+      val factor = 300.0 / resolution
+      if (math.abs(factor - 1) < 0.1) 1
+      else math.max(0.25, math.min(4, factor))
+    case _ => 2
+  }
+
+  /**
+    * Auxiliary method that checks if an image has only one bit per pixel, as the black and white scans
+    *
+    * @param image - The image to be checked
+    * @return true if the image is black and white
+    */
+  private def isBilevel(image: BufferedImage): Boolean = image.getColorModel.getPixelSize == 1
+
+  /**
+    * Auxiliary method that scales an image by the given factor, drawing it into a new image of the given type
+    *
+    * @param image         - The image to be scaled
+    * @param factor        - The factor by which to scale the image, lowered if the scaled image would be too large
+    * @param imageType     - The type of the scaled image, as in BufferedImage.TYPE_BYTE_GRAY
+    * @param interpolation - The interpolation rendering hint used to scale the image
+    * @return the scaled image
+    */
+  private def scale(image: BufferedImage, factor: Double, imageType: Int, interpolation: AnyRef): BufferedImage = {
+    val (width, height) = scaledSize(image.getWidth, image.getHeight, factor)
+    val scaled = new BufferedImage(width, height, imageType)
+    val graphics = scaled.createGraphics()
+    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation)
+    graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null)
+    graphics.dispose()
+    scaled
+  }
+
+  /**
+    * Method that works out the size of an image scaled by the given factor, with no more than MaxScaledPixels pixels
+    *
+    * @param width  - The width of the image
+    * @param height - The height of the image
+    * @param factor - The factor by which to scale the image
+    * @return the width and height of the scaled image
+    */
+  private[utils] def scaledSize(width: Int, height: Int, factor: Double): (Int, Int) = {
+    val pixels = width.toDouble * height * factor * factor
+    if (pixels <= MaxScaledPixels) (math.max(1, math.round(width * factor).toInt), math.max(1, math.round(height * factor).toInt))
+    else {
+      val capped = factor * math.sqrt(MaxScaledPixels / pixels)
+      (math.max(1, (width * capped).toInt), math.max(1, (height * capped).toInt)) //rounded down, so it stays under the cap
+    }
+  }
+
+  /**
+    * Auxiliary method that turns a grayscale image into black and white using Bradley's adaptive threshold:
+    * a pixel becomes black when it is more than 15% darker than the mean of the pixels around it (an eighth of the image wide).
+    * Unlike a fixed threshold, this keeps the text of dark or unevenly lit scans readable.
+    *
+    * The sums of the windows come from a rolling window of column sums, updated as the window moves down a row, so only
+    * two rows worth of sums are kept instead of an integral image of the whole page
+    *
+    * @param gray - The grayscale image (TYPE_BYTE_GRAY) to be filtered
+    * @return a black and white image
+    */
+  private[utils] def adaptiveThreshold(gray: BufferedImage): BufferedImage = {
+    val width = gray.getWidth
+    val height = gray.getHeight
+    val pixels = gray.getRaster.getDataBuffer.asInstanceOf[DataBufferByte].getData
+
+    val half = math.max(1, width / 16)
+    val filtered = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY) //all black, white pixels are set below
+    val bits = filtered.getRaster.getDataBuffer.asInstanceOf[DataBufferByte].getData
+    val bytesPerRow = (width + 7) / 8
+
+    val columnSums = new Array[Int](width) //columnSums(x) holds the sum of column x over the rows [top, bottom) of the window
+    val rowPrefix = new Array[Long](width + 1) //rowPrefix(x) holds the sum of columnSums before x
+    var top = 0
+    var bottom = 0
+
+    def addRow(row: Int, sign: Int): Unit = {
+      val offset = row * width
+      var x = 0
+      while (x < width) {
+        columnSums(x) += sign * (pixels(offset + x) & 0xff)
+        x += 1
+      }
+    }
+
+    var y = 0
+    while (y < height) {
+      val y2 = math.min(height, y + half + 1)
+      while (bottom < y2) {
+        addRow(bottom, 1)
+        bottom += 1
+      }
+      val y1 = math.max(0, y - half)
+      while (top < y1) {
+        addRow(top, -1)
+        top += 1
+      }
+
+      var x = 0
+      while (x < width) {
+        rowPrefix(x + 1) = rowPrefix(x) + columnSums(x)
+        x += 1
+      }
+
+      val offset = y * width
+      x = 0
+      while (x < width) {
+        val x1 = math.max(0, x - half)
+        val x2 = math.min(width, x + half + 1)
+        val sum = rowPrefix(x2) - rowPrefix(x1)
+        val count = (x2 - x1) * (y2 - y1)
+        if (100L * (pixels(offset + x) & 0xff) * count > sum * 85L) {
+          val index = y * bytesPerRow + x / 8
+          bits(index) = (bits(index) | (0x80 >> (x % 8))).toByte
+        }
+        x += 1
+      }
+      y += 1
+    }
+    filtered
+  }
+
+  /**
+    * Method that renders only the given area of a page and reads its text using Tess4J tesseract library.
+    * Only the pixels inside the area are rasterized, so a small area of a page costs a small fraction of the OCR of the whole page.
+    * The area is prepared like the images of the pages, at the resolution it was rendered in, before the OCR
+    *
+    * @param renderer - The renderer of the document the area belongs to
+    * @param region   - The area of the page to be read
+    * @param dpi      - Optional parameter - The resolution in which to render the area
+    * @return an Option wrapping a String containing the area's text. Returns None in case of exception
+    */
+  def readRegionText(renderer: PDFRenderer, region: Region, dpi: Float = 300): Option[String] = {
+    val scale = dpi / 72
+    val image = new BufferedImage(math.ceil(region.width * scale).toInt, math.ceil(region.height * scale).toInt, BufferedImage.TYPE_INT_RGB)
+    val graphics = image.createGraphics()
+    try {
+      graphics.setBackground(Color.WHITE)
+      graphics.clearRect(0, 0, image.getWidth, image.getHeight)
+      graphics.translate(-region.x * scale, -region.y * scale) //move the area to the origin so everything else is clipped out
+      renderer.renderPageToGraphics(region.page - 1, graphics, scale)
+      Some(ocr(preprocess(PageImage(image, Some(dpi), bilevel = false))))
+    } catch {
+      case e @ (_: IOException | _: TesseractException) => e.printStackTrace(); None
+    } finally {
+      graphics.dispose()
     }
   }
 
   /**
     * Method that receives a document (PDF File) and trys to extract all the images from that document
-    * This method writtes the image to the outter most "target" directory and also returns a list containg all the image files
+    * This method writtes the image to the given directory and also returns a list containg all the image files
     *
     * @param document - The PDF file to extract the images from
+    * @param dir      - Optional parameter - The directory in which to write the images
     * @return An Option wrapping a list of image files extracted from the PDF. Returns None in case of exception
     */
-  def extractImgs(document: PDDocument): Option[List[File]] = {
+  def extractImgs(document: PDDocument, dir: File = new File("./target/images")): Option[List[File]] = {
 
     /**
       * Internal method that iterates over the pages in a pdf document
@@ -82,8 +343,7 @@ private[parser] object ImageProcessing {
         val nextIter = iterator.next
         val obj = pageResources.getXObject(nextIter)
         if (obj.isInstanceOf[PDImageXObject]) {
-          val dir = new File("./target/images")
-          val file = new File("./target/images/GeneratedImage_" + System.nanoTime() + ".png")
+          val file = new File(dir, "GeneratedImage_" + System.nanoTime() + ".png")
           if (!dir.exists) dir.mkdirs
           try
             ImageIO.write(obj.asInstanceOf[PDImageXObject].getImage, "png", file)
@@ -99,15 +359,13 @@ private[parser] object ImageProcessing {
     document.close()
     Some(mutableFilesList)
   }
-
-  /**
-    * Method that deletes all files from the image folder
-    */
-  private def cleanImageDir() {
-    val dir = new File("./target/tempImages")
-    if (dir.exists) {
-      val files = dir.listFiles.filter(_.isFile).toList
-      files.foreach(_.delete)
-    }
-  }
 }
+
+/**
+  * Class that represents an image found on a page of a PDF document
+  *
+  * @param image   - The decoded image
+  * @param dpi     - The resolution the image is drawn at on the page, if it is drawn
+  * @param bilevel - If the image is already black and white
+  */
+private[parser] case class PageImage(image: BufferedImage, dpi: Option[Float], bilevel: Boolean)
@@ -0,0 +1,21 @@
+package parser.utils
+
+/**
+  * Class that specifies how much of a text the language detection samples.
+  * The beginning of the text is read first. If the detector isn't confident enough, a few windows spread through the rest
+  * of the text are added to it, and if it still isn't, a larger number of windows. Texts shorter than the first two samples are read whole
+  *
+  * @param headChars           - The number of characters read from the beginning of the text
+  * @param windows             - The number of windows added when the beginning of the text isn't enough
+  * @param largerWindows       - The number of windows added when the result is still ambiguous
+  * @param windowChars         - The number of characters of each window
+  * @param confidenceThreshold - The confidence (between 0 and 1) the detector must have in a language to stop sampling
+  * @throws IllegalArgumentException If any of the sizes is not positive, or the threshold is not between 0 and 1
+  */
+@throws[IllegalArgumentException]
+case class LanguageSampling(headChars: Int = 2000, windows: Int = 4, largerWindows: Int = 32, windowChars: Int = 500,
+                            confidenceThreshold: Double = 0.9) {
+  require(headChars > 0 && windowChars > 0, "The sample sizes should be positive")
+  require(windows > 0 && largerWindows >= windows, "There should be at least one window, and no fewer larger windows than windows")
+  require(confidenceThreshold >= 0 && confidenceThreshold <= 1, "The confidence threshold should be between 0 and 1")
+}
@@ -2,10 +2,12 @@ package parser.utils
 
 import java.io.{File}
 
-import opennlp.tools.langdetect.{LanguageDetectorME, LanguageDetectorModel}
+import opennlp.tools.langdetect.{Language, LanguageDetectorME, LanguageDetectorModel}
 import opennlp.tools.postag.{POSModel, POSTaggerME}
 import opennlp.tools.tokenize.WhitespaceTokenizer
 
+import scala.annotation.tailrec
+
 /**
   * Singleton Object that implements all the Open NLP functionalities
   */
@@ -21,12 +23,10 @@ private[parser] object OpenNLP {
     */
   def tagText(text: String): (Array[String], Array[String]) = {
     //we can support English, Portuguese, Danish, German, Swedish
-    val filepath = detectLanguage(text) match {
-      case "por" => getClass.getResource("/pt-pos-maxent.bin")
-      case _ => getClass.getResource("/en-pos-maxent.bin")
+    val posModel = detectLanguage(text) match {
+      case "por" => portugueseModel
+      case _ => englishModel
     }
-    //    val inputStream = new FileInputStream(filepath)
-    val posModel = new POSModel(filepath)
     val wsTokenizer = WhitespaceTokenizer.INSTANCE
 
     val splittedWords = wsTokenizer.tokenize(text)
@@ -37,20 +37,85 @@ private[parser] object OpenNLP {
     (splittedWords, tags.map(translatePOSTag))
   }
 
+  /**
+    * The language detection model, loaded once when the first language is detected
+    */
+  private lazy val languageModel = new LanguageDetectorModel(getClass.getResource("/langdetect-183.bin"))
+
+  /**
+    * The POS tagging models, each loaded once when the first text in its language is tagged
+    */
+  private lazy val portugueseModel = new POSModel(getClass.getResource("/pt-pos-maxent.bin"))
+  private lazy val englishModel = new POSModel(getClass.getResource("/en-pos-maxent.bin"))
+
+  /**
+    * Method that loads all the models up front, so the first text tagged doesn't pay for loading them.
+    * The taggers and detectors themselves are cheap and are still created for each text, as they aren't thread safe
+    */
+  def preload(): Unit = {
+    try {
+      languageModel
+      englishModel
+      portugueseModel
+    } catch {
+      case e: Exception => e.printStackTrace()
+    }
+  }
+
   /**
     * Method that will try to detect the language used in the text
-    * using Open NLP Language Detector training it with langdetect-183.bin
+    * using Open NLP Language Detector training it with langdetect-183.bin.
+    * Long texts aren't read whole: the language is detected on the beginning of the text and, if the detector isn't
+    * confident enough, on a few windows spread through the rest of it, and only if the result is still ambiguous on a larger sample
     *
-    * @param text - The text to find the language for
+    * @param text     - The text to find the language for
+    * @param sampling - Optional parameter - How much of the text to sample and how confident the detector must be to stop sampling
     * @return - The ISO 639-3 identifier of the language used in the text (eng, por ...)
     *         The full list of ISO identifiers can be found in https://en.wikipedia.org/wiki/List_of_ISO_639-3_codes
     */
-  def detectLanguage(text: String): String = {
-    val file = getClass.getResource("/langdetect-183.bin")
-    //    val file = new File("./reader/resources/langdetect-183.bin")
-    val trainedModel = new LanguageDetectorModel(file) // ScratchFileBuffer not closed!
-    val langDect = new LanguageDetectorME(trainedModel)
-    langDect.predictLanguage(text).getLang
+  def detectLanguage(text: String, sampling: LanguageSampling = LanguageSampling()): String = {
+    val detector = new LanguageDetectorME(languageModel)
+    if (text.length <= sampling.headChars + sampling.windows * sampling.windowChars)
+      detector.predictLanguage(text).getLang //short texts are read whole
+    else {
+      val samples = Iterator(
+        sample(text, sampling.headChars, 0, 0),
+        sample(text, sampling.headChars, sampling.windows, sampling.windowChars),
+        if (text.length <= sampling.headChars + sampling.largerWindows * sampling.windowChars) text
+        else sample(text, sampling.headChars, sampling.largerWindows, sampling.windowChars))
+
+      @tailrec def detect(best: Language): String =
+        if (best.getConfidence >= sampling.confidenceThreshold || !samples.hasNext) best.getLang
+        else detect(detector.predictLanguage(samples.next()))
+
+      detect(detector.predictLanguage(samples.next()))
+    }
+  }
+
+  /**
+    * Auxiliary method that samples a text, taking its beginning and a number of windows evenly spread through the rest of it.
+    * Each window starts at the beginning of a word
+    *
+    * @param text        - The text to be sampled
+    * @param headChars   - The number of characters taken from the beginning of the text
+    * @param windows     - The number of windows taken from the rest of the text
+    * @param windowChars - The number of characters of each window
+    * @return a String with the beginning of the text and its windows, separated by spaces
+    */
+  private def sample(text: String, headChars: Int, windows: Int, windowChars: Int): String = {
+    val length = text.length
+    val sample = new java.lang.StringBuilder(headChars + windows * (windowChars + 1))
+    sample.append(text, 0, math.min(headChars, length))
+    if (windows > 0) {
+      val stride = (length - headChars) / windows
+      for (i <- 0 until windows) {
+        var from = headChars + i * stride
+        while (from < length && !Character.isWhitespace(text.charAt(from))) from += 1 //don't start in the middle of a word
+        val until = math.min(length, from + windowChars)
+        if (from < until) sample.append(' ').append(text, from, until)
+      }
+    }
+    sample.toString
   }
 
   /**
@@ -0,0 +1,19 @@
+package parser.utils
+
+/**
+  * Class that represents a rectangular area of a page of a PDF document.
+  * It is used on templated documents to restrict the extraction of a keyword's value to the area where that value is known to be.
+  * All coordinates are in PDF units (1/72 inch), measured from the top left corner of the page
+  *
+  * @param page   - The number of the page the area belongs to, starting at 1
+  * @param x      - Distance from the left edge of the page to the left edge of the area
+  * @param y      - Distance from the top edge of the page to the top edge of the area
+  * @param width  - The width of the area
+  * @param height - The height of the area
+  * @throws IllegalArgumentException If the page number is not positive or the area is empty
+  */
+@throws[IllegalArgumentException]
+case class Region(page: Int, x: Float, y: Float, width: Float, height: Float) {
+  require(page > 0, "The page number should start at 1")
+  require(width > 0 && height > 0, "The region should have a positive width and height")
+}
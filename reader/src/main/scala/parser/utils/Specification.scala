@@ -2,6 +2,49 @@ package parser.utils
 
 trait Specification
 
+/**
+  * Companion object with the functionality to create Specifications from their textual representation,
+  * used when the keywords are given on the command line or in a request
+  */
+object Specification {
+
+  private val OptionsSpec = "(?i)(OneOf|MultipleOf)\\((.*)\\)".r
+
+  /**
+    * Method that creates a Specification from its textual representation. The supported forms are:
+    * a POS tag name, as in "ProperNoun" or "number", and "OneOf(a|b|c)" or "MultipleOf(a|b|c)" for the lists of possible values.
+    * Appending a "*" (as in "Noun*") flags the keyword as having multiple values
+    *
+    * @param spec - The textual representation of the Specification
+    * @throws IllegalArgumentException If the text does not represent a supported Specification
+    * @return the Specification represented by the text
+    */
+  @throws[IllegalArgumentException]
+  def parse(spec: String): Specification = {
+    val trimmed = spec.trim
+    val isMultiple = trimmed.endsWith("*")
+    val name = trimmed.stripSuffix("*").trim
+    name match {
+      case OptionsSpec(kind, options) =>
+        val possibilities = options.split('|').map(_.trim).filter(_.nonEmpty).toList
+        if (kind.equalsIgnoreCase("OneOf")) OneOf(possibilities, isMultiple) else MultipleOf(possibilities, isMultiple)
+      case _ =>
+        name.toLowerCase match {
+          case "adjective" => Adjective(isMultiple)
+          case "propernoun" => ProperNoun(isMultiple)
+          case "noun" => Noun(isMultiple)
+          case "pluralnoun" => PluralNoun(isMultiple)
+          case "verb" => Verb(isMultiple)
+          case "verbpastparticiple" => VerbPastParticiple(isMultiple)
+          case "verbgerund" => VerbGerund(isMultiple)
+          case "number" => Number(isMultiple)
+          case "adverb" => Adverb(isMultiple)
+          case _ => throw new IllegalArgumentException("The specification " + spec + " is not supported")
+        }
+    }
+  }
+}
+
 /**
   * Class that represents the users choice of passing a list of possible values for a given keyword.
   * It represents the ability of return one or more values from the input possible values list
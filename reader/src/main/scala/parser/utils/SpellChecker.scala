@@ -1,5 +1,8 @@
 package parser.utils
 
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.atomic.AtomicInteger
+
 import org.languagetool.JLanguageTool
 import org.languagetool.language.{BritishEnglish, PortugalPortuguese}
 import org.languagetool.rules.RuleMatch
@@ -12,6 +15,80 @@ import scala.collection.JavaConverters._
   */
 private[parser] object SpellChecker {
 
+  /**
+    * Class that keeps a bounded pool of LanguageTool instances of a language. Creating one loads all the rules of its
+    * language and a JLanguageTool can't be shared between threads, so each text borrows an idle instance instead of
+    * creating one. At most maxSize instances are ever created, however many threads spell-check at once: when they are
+    * all in use, the next thread waits for one to be returned
+    *
+    * @param create  - The function that creates a new instance
+    * @param maxSize - The maximum number of instances
+    */
+  private class ToolPool(create: () => JLanguageTool, maxSize: Int) {
+    private val idle = new LinkedBlockingQueue[JLanguageTool]()
+    private val created = new AtomicInteger()
+
+    /**
+      * Method that runs a function with an instance of the pool, returning the instance once the function is done
+      *
+      * @param use - The function that uses the instance
+      * @return the result of the function
+      */
+    def withTool[A](use: JLanguageTool => A): A = {
+      val tool = Option(idle.poll()).getOrElse(newOrWait())
+      try use(tool)
+      finally idle.put(tool)
+    }
+
+    /**
+      * Method that adds a new instance to the pool, run once so its first text doesn't pay for loading the rules,
+      * unless the pool already has all its instances
+      *
+      * @param text - The text the new instance checks
+      */
+    def preload(text: String): Unit = {
+      if (created.incrementAndGet() > maxSize) created.decrementAndGet()
+      else {
+        val tool = createCounted()
+        try tool.check(text)
+        finally idle.put(tool)
+      }
+    }
+
+    private def newOrWait(): JLanguageTool = {
+      if (created.incrementAndGet() > maxSize) {
+        created.decrementAndGet()
+        idle.take()
+      } else createCounted()
+    }
+
+    private def createCounted(): JLanguageTool = {
+      try create()
+      catch {
+        case e: Throwable => created.decrementAndGet(); throw e
+      }
+    }
+  }
+
+  /**
+    * The LanguageTool instances of each language, at most one per processor, since spell-checking is bound by the CPU
+    */
+  private val englishTools = new ToolPool(() => new JLanguageTool(new BritishEnglish()), Runtime.getRuntime.availableProcessors)
+  private val portugueseTools = new ToolPool(() => new JLanguageTool(new PortugalPortuguese()), Runtime.getRuntime.availableProcessors)
+
+  /**
+    * Method that creates a LanguageTool instance of each language and runs it once, so the first text it spell-checks
+    * doesn't pay for loading the rules. Nothing is created once the pools have all their instances
+    */
+  def preload(): Unit = {
+    try {
+      englishTools.preload("Warm up")
+      portugueseTools.preload("Aquecer")
+    } catch {
+      case e: Exception => e.printStackTrace()
+    }
+  }
+
 
   /**
     * Method that checks the input text for possible errors and corrects them using LanguageTool's spellchecker
@@ -50,13 +127,13 @@ private[parser] object SpellChecker {
       }
     }
 
-    //Initialize LanguageTool with the correct language
-    val languageTool = detectLanguage(text) match {
-      case "por" => new JLanguageTool(new PortugalPortuguese())
-      case _ => new JLanguageTool(new BritishEnglish())
+    //Borrow a LanguageTool of the correct language
+    val languageTools = detectLanguage(text) match {
+      case "por" => portugueseTools
+      case _ => englishTools
     }
 
-    val matches = languageTool.check(text).asScala.toList //.check returns a java.util.List, .asScala.toList transforms it to a Scala collection
+    val matches = languageTools.withTool(_.check(text).asScala.toList) //.check returns a java.util.List, .asScala.toList transforms it to a Scala collection
     iterateRules(matches, text)
   }
 }
@@ -0,0 +1,187 @@
+package parser.utils
+
+import java.text.Normalizer
+import java.util.regex.Pattern
+
+/**
+  * Class that normalizes text in a single pass, applying each of the enabled steps to every character as it is copied.
+  * Texts that the enabled steps wouldn't change are returned as they are, without being copied
+  *
+  * @param foldDiacritics     - Decomposes the accented characters and removes their diacritical marks, as in "é" to "e"
+  * @param stripNewLines      - Removes all the new line characters
+  * @param collapseWhitespace - Replaces every run of whitespace characters with a single space
+  * @param lowercase          - Converts every character to lower case
+  * @param trim               - Removes the leading and trailing whitespace, as in String.trim
+  */
+case class TextNormalizer(foldDiacritics: Boolean = false, stripNewLines: Boolean = false, collapseWhitespace: Boolean = false,
+                          lowercase: Boolean = false, trim: Boolean = false) {
+
+  /**
+    * Method that normalizes a text
+    *
+    * @param text - The text to be normalized
+    * @return the normalized text, or the same text if none of the enabled steps would change it
+    */
+  def normalize(text: String): String =
+    if (isNormalized(text)) text
+    else {
+      val out = new java.lang.StringBuilder(text.length)
+      normalizeInto(text, out)
+      out.toString
+    }
+
+  /**
+    * Method that normalizes a text and appends the result to a buffer, so a buffer can be reused for many texts
+    * (as the pages of a document) without copying each of them into a String first
+    *
+    * @param text - The text to be normalized
+    * @param out  - The buffer to which the normalized text is appended
+    */
+  def normalizeInto(text: CharSequence, out: java.lang.StringBuilder): Unit = {
+    val start = out.length
+    if (!append(text, out, start, foldDiacritics)) {
+      //the text has combining marks the per character folding can't handle, so fold the whole text at once
+      out.setLength(start)
+      append(TextNormalizer.foldExactly(text), out, start, fold = false)
+    }
+    if (trim) {
+      var end = out.length
+      while (end > start && out.charAt(end - 1) <= ' ') end -= 1
+      out.setLength(end)
+    }
+  }
+
+  /**
+    * Method that checks if none of the enabled steps would change a text
+    *
+    * @param text - The text to be checked
+    * @return true if normalizing the text would return the same text
+    */
+  def isNormalized(text: String): Boolean = {
+    val length = text.length
+    if (trim && length > 0 && (text.charAt(0) <= ' ' || text.charAt(length - 1) <= ' ')) false
+    else {
+      var i = 0
+      var unchanged = true
+      while (unchanged && i < length) {
+        val c = text.charAt(i)
+        unchanged =
+          !(foldDiacritics && c >= 0x80) &&
+            !(stripNewLines && (c == '\n' || c == '\r')) &&
+            !(collapseWhitespace && Character.isWhitespace(c) && (c != ' ' || (i > 0 && text.charAt(i - 1) == ' '))) &&
+            !(lowercase && Character.toLowerCase(c) != c)
+        i += 1
+      }
+      unchanged
+    }
+  }
+
+  /**
+    * Auxiliary method that copies a text into the buffer, applying every enabled step to each character
+    *
+    * @param text  - The text to be copied
+    * @param out   - The buffer to which the text is appended
+    * @param start - The length of the buffer before the text was appended
+    * @param fold  - If the diacritics should be folded character by character
+    * @return false if the text has a character that can't be folded on its own, in which case the buffer is left incomplete
+    */
+  private def append(text: CharSequence, out: java.lang.StringBuilder, start: Int, fold: Boolean): Boolean = {
+    var i = 0
+    var complete = true
+    while (complete && i < text.length) {
+      val c = text.charAt(i)
+      if (fold && c >= 0x80) {
+        val folded = TextNormalizer.fold(c)
+        if (folded eq TextNormalizer.Unfoldable) complete = false
+        else {
+          var j = 0
+          while (j < folded.length) {
+            emit(folded.charAt(j), out, start)
+            j += 1
+          }
+        }
+      } else emit(c, out, start)
+      i += 1
+    }
+    complete
+  }
+
+  /**
+    * Auxiliary method that applies the character steps to a character and appends the result to the buffer
+    *
+    * @param c     - The character to be appended
+    * @param out   - The buffer to which the character is appended
+    * @param start - The length of the buffer before the current text was appended
+    */
+  private def emit(c: Char, out: java.lang.StringBuilder, start: Int): Unit = {
+    val atStart = out.length == start
+    if (stripNewLines && (c == '\n' || c == '\r')) ()
+    else if (collapseWhitespace && Character.isWhitespace(c)) {
+      if (!(atStart && trim) && (atStart || out.charAt(out.length - 1) != ' ')) out.append(' ')
+    }
+    else if (trim && atStart && c <= ' ') ()
+    else out.append(if (lowercase) Character.toLowerCase(c) else c)
+  }
+}
+
+object TextNormalizer {
+
+  /**
+    * The normalization applied to the text of each page of a document: the diacritics are removed
+    */
+  val pageText: TextNormalizer = TextNormalizer(foldDiacritics = true)
+
+  /**
+    * The normalization applied to each value found for a keyword: the new lines are removed and the value is trimmed
+    */
+  val values: TextNormalizer = TextNormalizer(stripNewLines = true, trim = true)
+
+  private val combiningMarks = Pattern.compile("[\\p{InCombiningDiacriticalMarks}]")
+
+  /**
+    * Marker of the characters whose decomposition keeps a combining mark that could be reordered with its neighbours,
+    * so they can only be folded together with the rest of the text
+    */
+  private val Unfoldable = new String("unfoldable")
+
+  /**
+    * The folded form of every character of the Basic Multilingual Plane, filled as the characters are found.
+    * Concurrent fills compute the same immutable String, so no synchronization is needed
+    */
+  private val foldTable = new Array[String](Char.MaxValue + 1)
+
+  /**
+    * Method that folds a single character, decomposing it and removing its diacritical marks
+    *
+    * @param c - The character to be folded
+    * @return the folded character(s), or Unfoldable if the character can't be folded on its own
+    */
+  private def fold(c: Char): String = {
+    val cached = foldTable(c)
+    if (cached != null) cached
+    else {
+      val folded =
+        if (Character.isSurrogate(c)) Unfoldable
+        else {
+          val stripped = combiningMarks.matcher(Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD)).replaceAll("")
+          if (stripped.exists(isCombiningMark)) Unfoldable else stripped
+        }
+      foldTable(c) = folded
+      folded
+    }
+  }
+
+  /**
+    * Method that folds a whole text at once, decomposing it and removing its diacritical marks
+    *
+    * @param text - The text to be folded
+    * @return the folded text
+    */
+  private def foldExactly(text: CharSequence): String =
+    combiningMarks.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+
+  private def isCombiningMark(c: Char): Boolean = Character.getType(c) match {
+    case Character.NON_SPACING_MARK | Character.ENCLOSING_MARK | Character.COMBINING_SPACING_MARK => true
+    case _ => false
+  }
+}
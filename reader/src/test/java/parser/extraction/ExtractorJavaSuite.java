@@ -11,6 +11,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
@@ -437,4 +443,79 @@ public class ExtractorJavaSuite {
         Boolean nullRes = ej.getJSONFromForm(strNull).equals(emptyJson);
         assertTrue (emptyRes && nullRes);
     }
+
+    /**
+     * Tests that creating an ExtractionSpec with an empty keywords map returns IllegalArgumentException
+     */
+    @Test
+    public void testExtractionSpecEmptyMap() {
+        try {
+            ExtractionSpec.of(mapEmpty);
+            fail("ExtractionSpec.of accepted an empty keywords map");
+        } catch (Exception e) {
+            assertTrue(e instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * Tests that a prebuilt ExtractionSpec finds the same values as the keywords map it was built from
+     */
+    @Test
+    public void testGetAllMatchedValuesWithSpec() {
+        ExtractionSpec spec = ExtractionSpec.of(keywords);
+        ExtractionResult result = ej.getAllMatchedValues(strValid, spec);
+        Map<String, List<String>> matchedValues = ej.getAllMatchedValues(strValid, keywords);
+        assertTrue(result.first("name").equals("Margarida Reis") && result.asMap().equals(matchedValues));
+    }
+
+    /**
+     * Tests that getAllObjects with a prebuilt ExtractionSpec returns an empty list for an empty text
+     */
+    @Test
+    public void testGetAllObjectsWithSpecEmptyText() {
+        assertTrue(ej.getAllObjects(strEmpty, ExtractionSpec.of(keywords)).isEmpty());
+    }
+
+    /**
+     * Tests that readPDFAsync completes with the same text as the synchronous readPDF
+     */
+    @Test
+    public void testReadPDFAsync() throws Exception {
+        assertTrue(ej.readPDFAsync(file).get().equals(strValid));
+    }
+
+    /**
+     * Tests that getAllMatchedValuesAsync on the caller's executor completes with the same values as getAllMatchedValues
+     */
+    @Test
+    public void testGetAllMatchedValuesAsync() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ExtractionSpec spec = ExtractionSpec.of(keywords);
+            ExtractionResult result = ej.getAllMatchedValuesAsync(strValid, spec, executor).get();
+            assertTrue(result.asMap().equals(ej.getAllMatchedValues(strValid, keywords)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that readPDFAsync stops reading the document when its thread is interrupted, as cancelling the future does
+     * while the document is read, instead of reading it to the end. The CancellationException comes from the reader's
+     * own check, since the future itself was never cancelled
+     */
+    @Test
+    public void testReadPDFAsyncStopsWhenInterrupted() throws Exception {
+        Executor interrupted = task -> new Thread(() -> {
+            Thread.currentThread().interrupt();
+            task.run();
+        }).start();
+        CompletableFuture<String> future = ej.readPDFAsync(file, true, interrupted);
+        try {
+            future.get(1, TimeUnit.MINUTES);
+            fail("An interrupted read returned the text of the document");
+        } catch (CancellationException e) {
+            assertTrue("The operation was cancelled".equals(e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package parser.extraction
+
+import java.io.{File, IOException, StringWriter, Writer}
+import java.nio.file.Files
+
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+import parser.extraction.BatchExtractor._
+import parser.utils._
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class BatchExtractorSuite extends FunSuite {
+
+  val resources = "./reader/src/main/resources"
+
+  /**
+    * Tests that listing a directory returns only the PDF documents inside it
+    */
+  test("listInputs with a directory") {
+    val inputs = listInputs(resources).toList
+    assert(inputs.nonEmpty && inputs.forall(_.getName.endsWith(".pdf")) && inputs.exists(_.getName == "test.pdf"))
+  }
+
+  /**
+    * Tests that listing a glob pattern returns only the documents matching it
+    */
+  test("listInputs with a glob pattern") {
+    val inputs = listInputs(resources + "/test*.pdf").toList.map(_.getName)
+    assert(inputs.contains("test.pdf") && !inputs.contains("cv.pdf"))
+  }
+
+  /**
+    * Tests that listing a directory sorts the documents by name within each directory
+    */
+  test("listInputs sorts each directory") {
+    val inputs = listInputs(resources).toList.map(_.getPath)
+    val topLevel = inputs.filter(path => new File(path).getParentFile.getName == "resources").map(new File(_).getName)
+    assert(topLevel == topLevel.sorted)
+  }
+
+  /**
+    * Tests that listing a manifest skips its blank lines and comments
+    */
+  test("listInputs with a manifest") {
+    val manifest = Files.createTempFile("manifest", ".txt")
+    try {
+      Files.write(manifest, List("# documents", resources + "/test.pdf", "", "  " + resources + "/cv.pdf  ").asJava)
+      assert(listInputs("@" + manifest).map(_.getName).toList == List("test.pdf", "cv.pdf"))
+    } finally {
+      Files.delete(manifest)
+    }
+  }
+
+  /**
+    * Tests that a document that can't be read is recorded as an error line and doesn't stop the batch
+    */
+  test("run records one line per document") {
+    val out = new StringWriter()
+    val inputs = Iterator(new File(resources + "/test.pdf"), new File("non existing URI"))
+    val summary = run(inputs, Map("name" -> ProperNoun()), out, parallelism = 2, readImages = false)
+    val lines = out.toString.split('\n').toList
+
+    assert(summary.documents == 2 && summary.failed == 1 && lines.size == 2)
+    assert(lines.exists(l => l.contains("\"status\" : \"ok\"") && l.contains("Margarida Reis")))
+    assert(lines.exists(l => l.contains("non existing URI") && l.contains("\"status\" : \"error\"")))
+  }
+
+  /**
+    * Tests that an error writing the results stops the batch and is thrown by run, instead of being lost in a worker
+    */
+  test("run throws the errors writing the results") {
+    var written = 0
+    val out = new Writer {
+      override def write(chars: Array[Char], offset: Int, length: Int): Unit = {
+        written += 1
+        throw new IOException("No space left on device")
+      }
+
+      override def flush(): Unit = ()
+
+      override def close(): Unit = ()
+    }
+    val inputs = Iterator.fill(20)(new File("non existing URI"))
+    val error = intercept[IOException](run(inputs, Map("name" -> ProperNoun()), out, parallelism = 1, readImages = false))
+    assert(error.getMessage == "No space left on device" && written == 1 && inputs.hasNext)
+  }
+
+  /**
+    * Tests that Specifications are parsed from their textual representation
+    */
+  test("Specification.parse") {
+    assert(Specification.parse("ProperNoun") == ProperNoun())
+    assert(Specification.parse("number*") == Number(true))
+    assert(Specification.parse("OneOf(single | married)") == OneOf(List("single", "married")))
+    assertThrows[IllegalArgumentException](Specification.parse("Pronoun"))
+  }
+}
@@ -0,0 +1,109 @@
+package parser.extraction
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, IOException}
+import java.net.{HttpURLConnection, URI, URL}
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Paths}
+
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+import parser.utils.ProperNoun
+
+@RunWith(classOf[JUnitRunner])
+class ExtractionServerSuite extends FunSuite {
+
+  private def request(url: URL, body: Option[Array[Byte]] = None, chunked: Boolean = false): (Int, String, HttpURLConnection) = {
+    val connection = url.openConnection().asInstanceOf[HttpURLConnection]
+    if (chunked) connection.setChunkedStreamingMode(1024)
+    body.foreach { bytes =>
+      connection.setRequestMethod("POST")
+      connection.setDoOutput(true)
+      connection.getOutputStream.write(bytes)
+      connection.getOutputStream.close()
+    }
+    val status = connection.getResponseCode
+    val in = if (status < 400) connection.getInputStream else connection.getErrorStream
+    val out = new ByteArrayOutputStream()
+    val buffer = new Array[Byte](4096)
+    var read = in.read(buffer)
+    while (read >= 0) {
+      out.write(buffer, 0, read)
+      read = in.read(buffer)
+    }
+    in.close()
+    (status, new String(out.toByteArray, StandardCharsets.UTF_8), connection)
+  }
+
+  /**
+    * Tests that keywords and query parameters are parsed from the request
+    */
+  test("parseKeyword and queryParameters") {
+    assert(ExtractionServer.parseKeyword("name=ProperNoun") == ("name", ProperNoun()))
+    assertThrows[IllegalArgumentException](ExtractionServer.parseKeyword("ProperNoun"))
+    val parameters = ExtractionServer.queryParameters(new URI("/extract?keyword=name%3DProperNoun&keyword=age%3DNumber&images=false"))
+    assert(parameters("keyword") == List("name=ProperNoun", "age=Number") && parameters("images") == List("false"))
+  }
+
+  /**
+    * Tests that the daemon answers the health check and streams the objects found in a posted document
+    */
+  test("ExtractionServer extracts a posted document") {
+    val server = ExtractionServer.start(port = 0, workers = 2, preload = false)
+    try {
+      val base = "http://127.0.0.1:" + server.port
+      val (healthStatus, health, _) = request(new URL(base + "/health"))
+      assert(healthStatus == 200 && health.contains("\"status\" : \"ok\""))
+
+      val pdf = Files.readAllBytes(Paths.get("./reader/src/main/resources/test.pdf"))
+      val (status, body, connection) = request(new URL(base + "/extract?keyword=name%3DProperNoun&images=false"), Some(pdf))
+      assert(status == 200 && body.contains("Margarida Reis") && connection.getHeaderField("X-Flipper-Truncated") == "false")
+
+      val (badStatus, _, _) = request(new URL(base + "/extract?keyword=name%3DUnknownTag"), Some(pdf))
+      assert(badStatus == 400)
+
+      val (_, metrics, _) = request(new URL(base + "/metrics"))
+      assert(metrics.contains("counter.server.requests"))
+    } finally {
+      server.stop(0)
+    }
+  }
+
+  /**
+    * Tests that a port already in use fails to start the server, leaving the server on that port as it was
+    */
+  test("ExtractionServer on a port in use") {
+    val server = ExtractionServer.start(port = 0, workers = 1, preload = false)
+    try {
+      assertThrows[IOException](ExtractionServer.start(port = server.port, workers = 1, preload = false))
+      val (status, _, _) = request(new URL("http://127.0.0.1:" + server.port + "/health"))
+      assert(status == 200)
+    } finally {
+      server.stop(0)
+    }
+  }
+
+  /**
+    * Tests that documents larger than the maximum body size are rejected, whether their length is declared or not
+    */
+  test("ExtractionServer rejects documents that are too large") {
+    val server = ExtractionServer.start(port = 0, workers = 1, preload = false, maxBodyBytes = 1024)
+    try {
+      val url = new URL("http://127.0.0.1:" + server.port + "/extract?keyword=name%3DProperNoun&images=false")
+      val (declaredStatus, declared, _) = request(url, Some(new Array[Byte](4096)))
+      assert(declaredStatus == 413 && declared.contains("at most 1024 bytes"))
+      val (chunkedStatus, _, _) = request(url, Some(new Array[Byte](4096)), chunked = true)
+      assert(chunkedStatus == 413)
+    } finally {
+      server.stop(0)
+    }
+  }
+
+  /**
+    * Tests that the body is read up to the maximum size and no further
+    */
+  test("readBody stops past the maximum size") {
+    assert(ExtractionServer.readBody(new ByteArrayInputStream(new Array[Byte](100)), 100).exists(_.length == 100))
+    assert(ExtractionServer.readBody(new ByteArrayInputStream(new Array[Byte](101)), 100).isEmpty)
+  }
+}
@@ -2,6 +2,12 @@ package parser.extraction
 
 import java.io.File
 
+import instrumentation.{AggregatingInstrumentation, Instruments}
+import org.apache.pdfbox.cos.COSName
+import org.apache.pdfbox.pdmodel.common.PDRectangle
+import org.apache.pdfbox.pdmodel.font.PDType1Font
+import org.apache.pdfbox.pdmodel.interactive.form.{PDAcroForm, PDTextField}
+import org.apache.pdfbox.pdmodel.{PDDocument, PDPage, PDResources}
 import org.junit.runner.RunWith
 import org.scalatest.FunSuite
 import org.scalatest.Matchers._
@@ -175,6 +181,19 @@ class ExtractorSuite extends FunSuite {
     else pseudoJsonObjs should equal(expected)
   }
 
+  /**
+    * Tests that assembleObjects splits the values of multiple keywords into groups, one for each object
+    */
+  test("Assemble objects with a multiple keyword") {
+    val matchedValues = Map("name" -> List("Lucas", "Albertina"), "mail" -> List("a@b.pt", "c@d.pt", "e@f.pt"))
+    val objects = assembleObjects(matchedValues, Map("name" -> ProperNoun(), "mail" -> Noun(true))).toList
+    val expected = List(
+      Map("name" -> List("Lucas"), "mail" -> List("a@b.pt", "c@d.pt")),
+      Map("name" -> List("Albertina"), "mail" -> List("e@f.pt"))
+    )
+    objects should equal(expected)
+  }
+
   /**
     * Tests that making a JSON String with an empty map will return an empty JSON object ("{}")
     */
@@ -194,4 +213,104 @@ class ExtractorSuite extends FunSuite {
     )
     getJSONObjects(text, Map("name" -> ProperNoun(), "age" -> Number())) should equal(expected)
   }
+
+  /**
+    * Tests that getJSONFromForm reads the values straight from the AcroForm fields of a PDF form
+    */
+  test("Get JSON from an AcroForm") {
+    val dir = new File("./target/forms")
+    if (!dir.exists) dir.mkdirs
+    val formFile = new File(dir, "acroForm_" + System.nanoTime() + ".pdf")
+
+    val document = new PDDocument()
+    val page = new PDPage()
+    document.addPage(page)
+    val acroForm = new PDAcroForm(document)
+    document.getDocumentCatalog.setAcroForm(acroForm)
+    val resources = new PDResources()
+    resources.put(COSName.getPDFName("Helv"), PDType1Font.HELVETICA)
+    acroForm.setDefaultResources(resources)
+    acroForm.setDefaultAppearance("/Helv 0 Tf 0 g")
+    List(("name", "Margarida Reis", 700f), ("age", "25", 650f)).foreach { case (fieldName, fieldValue, y) =>
+      val field = new PDTextField(acroForm)
+      field.setPartialName(fieldName)
+      acroForm.getFields.add(field)
+      val widget = field.getWidgets.get(0)
+      widget.setRectangle(new PDRectangle(50, y, 200, 20))
+      widget.setPage(page)
+      page.getAnnotations.add(widget)
+      field.setValue(fieldValue)
+    }
+    document.save(formFile)
+    document.close()
+
+    getJSONFromForm(formFile) should equal("{\"name\" : \"Margarida Reis\", \"age\" : 25}")
+    formFile.delete()
+  }
+
+  /**
+    * Tests that getJSONFromForm falls back to an empty JSON object when the form can't be loaded
+    */
+  test("Get JSON from an invalid form file") {
+    assert(getJSONFromForm(new File("non existing URI")) == "{}")
+  }
+
+  /**
+    * Tests that readPDFRegions reads the text inside the given area and leaves out areas on pages the document doesn't have
+    */
+  test("Read PDF regions") {
+    val regions = Map("page" -> Region(1, 0, 0, 1000, 1000), "missing" -> Region(999, 0, 0, 100, 100))
+    val regionTexts = readPDFRegions(file, regions, readImages = false)
+    assert(regionTexts.keySet == Set("page") && regionTexts("page").contains("Margarida Reis"))
+  }
+
+  /**
+    * Tests that getRegionMatchedValues finds the same value as getAllMatchedValues when the area covers the whole page
+    */
+  test("Find expected value inside a region") {
+    val matchedValues = getRegionMatchedValues(file, Map("name" -> ProperNoun()), Map("name" -> Region(1, 0, 0, 1000, 1000)), readImages = false)
+    assert(matchedValues("name").head == "Margarida Reis")
+  }
+
+  /**
+    * Tests that a keyword whose region has no text is still in the result, with no values
+    */
+  test("Find no value inside an empty region") {
+    val matchedValues = getRegionMatchedValues(file, Map("name" -> ProperNoun()), Map("name" -> Region(1, 0, 0, 1, 1)), readImages = false)
+    assert(matchedValues == Map("name" -> Nil))
+  }
+
+  /**
+    * Tests that readPDFWithin reads the whole document when the budget doesn't run out
+    */
+  test("Read PDF within an unlimited budget") {
+    val result = readPDFWithin(file, Budget.unlimited())
+    assert(result == PartialResult(text, truncated = false))
+  }
+
+  /**
+    * Tests that a cancelled budget stops readPDFWithin before the first page and marks the result as truncated
+    */
+  test("Read PDF within a cancelled budget") {
+    val budget = Budget.of(60000)
+    budget.cancel()
+    assert(readPDFWithin(file, budget) == PartialResult(None, truncated = true))
+  }
+
+  /**
+    * Tests that an exhausted budget skips the tagging, keeping the keywords without values, but still returns the OneOf matches
+    */
+  test("Get matched values within an exhausted budget") {
+    val result = getAllMatchedValuesWithin(colorText, Map("example" -> Noun(), "color" -> OneOf(List("blue", "red"))), Budget.of(0))
+    assert(result.truncated && result.value("example").isEmpty && result.value("color") == List("blue"))
+  }
+
+  /**
+    * Tests that readPDF reports its stages and the pages it read to the instrumentation of its thread
+    */
+  test("Read PDF reports its stages") {
+    val instrumentation = new AggregatingInstrumentation
+    Instruments.withInstrumentation(instrumentation, () => readPDF(file, readImages = false))
+    assert(instrumentation.stageCalls("reader.load") == 1 && instrumentation.counter("reader.pages") > 0)
+  }
 }
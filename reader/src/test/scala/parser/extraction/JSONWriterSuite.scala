@@ -0,0 +1,51 @@
+package parser.extraction
+
+import java.io.StringWriter
+
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.Matchers._
+import org.scalatest.junit.JUnitRunner
+import parser.extraction.JSONWriter._
+
+@RunWith(classOf[JUnitRunner])
+class JSONWriterSuite extends FunSuite {
+
+  /**
+    * Tests that only strings following the JSON number grammar are treated as numbers
+    */
+  test("isNumber follows the JSON grammar") {
+    assert(List("0", "25", "-3", "1.5", "2e10", "-0.5E-3").forall(isNumber))
+    assert(List("", "-", "007", "1.", ".5", "+3", "NaN", "Infinity", "12d", " 12", "1e").forall(!isNumber(_)))
+  }
+
+  /**
+    * Tests that quotation marks, backslashes and control characters are escaped
+    */
+  test("writeString escapes special characters") {
+    val out = new StringWriter()
+    writeString(out, "say \"hi\"\\\n\u0001")
+    out.toString should equal("\"say \\\"hi\\\"\\\\\\n\\u0001\"")
+  }
+
+  /**
+    * Tests that the "remove" and "null" flags are applied to keywords with no values
+    */
+  test("writeObject applies the flag to missing values") {
+    val values = Map("name" -> List("Lucas"), "age" -> List())
+    val removed = new StringWriter()
+    val nulls = new StringWriter()
+    writeObject(removed, values, "remove")
+    writeObject(nulls, values, "null")
+    assert(removed.toString == "{\"name\" : \"Lucas\"}" && nulls.toString == "{\"name\" : \"Lucas\", \"age\" : null}")
+  }
+
+  /**
+    * Tests that writeNDJSON writes one object per line
+    */
+  test("writeNDJSON writes one object per line") {
+    val out = new StringWriter()
+    writeNDJSON(out, Iterator(Map("age" -> List("21")), Map("age" -> List("1", "x"))))
+    out.toString should equal("{\"age\" : 21}\n{\"age\" : [1, \"x\"]}\n")
+  }
+}
@@ -1,6 +1,8 @@
 package parser.utils
 
+import java.awt.image.BufferedImage
 import java.io.File
+
 import org.junit.runner.RunWith
 import org.scalatest.FunSuite
 import org.scalatest.junit.JUnitRunner
@@ -52,4 +54,61 @@ class ImageProcessingSuite extends FunSuite {
     cleanImageDir()
   }
 
+  /**
+    * Tests that the images are scaled towards 300 DPI, and twice as wide when their resolution is unknown
+    */
+  test("scaleFactor picks the scale from the image resolution") {
+    assert(scaleFactor(None) == 2 && scaleFactor(Some(150)) == 2 && scaleFactor(Some(600)) == 0.5)
+    assert(scaleFactor(Some(290)) == 1 && scaleFactor(Some(20)) == 4 && scaleFactor(Some(2400)) == 0.25)
+  }
+
+  /**
+    * Tests that the images found on a page carry their resolution on that page
+    */
+  test("extractPageImages finds the resolution of the images") {
+    val document = PDDocument.load(new File(filepath))
+    val images = extractPageImages(document.getPage(0))
+    assert(images.nonEmpty && images.forall(_.dpi.exists(_ > 0)))
+    document.close()
+  }
+
+  /**
+    * Tests that preprocess scales a grayscale image and turns it into black and white,
+    * and leaves a black and white image with the right resolution as it is
+    */
+  test("preprocess scales and binarizes the images") {
+    val gray = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB)
+    val prepared = preprocess(PageImage(gray, Some(150), bilevel = false))
+    assert(prepared.getWidth == 200 && prepared.getHeight == 100 && prepared.getColorModel.getPixelSize == 1)
+
+    val bilevel = new BufferedImage(100, 50, BufferedImage.TYPE_BYTE_BINARY)
+    assert(preprocess(PageImage(bilevel, Some(300), bilevel = true)) eq bilevel)
+  }
+
+  /**
+    * Tests that the scaled size keeps the factor, unless the image would have more than MaxScaledPixels pixels
+    */
+  test("scaledSize caps the number of pixels") {
+    assert(scaledSize(100, 50, 2) == (200, 100) && scaledSize(3, 1, 0.25) == (1, 1))
+    val (width, height) = scaledSize(20000, 10000, 4)
+    assert(width.toLong * height <= MaxScaledPixels && width > 2 * height - 2 && width < 2 * height + 2)
+  }
+
+  /**
+    * Tests that the adaptive threshold compares every pixel with the mean of the whole window around it
+    */
+  test("adaptiveThreshold compares the pixels with the mean of their window") {
+    val random = new scala.util.Random(42)
+    val (width, height) = (37, 23)
+    val gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY)
+    for (y <- 0 until height; x <- 0 until width) gray.getRaster.setSample(x, y, 0, random.nextInt(256))
+    val filtered = adaptiveThreshold(gray)
+    val half = math.max(1, width / 16)
+    for (y <- 0 until height; x <- 0 until width) {
+      val window = for (wy <- math.max(0, y - half) until math.min(height, y + half + 1);
+                        wx <- math.max(0, x - half) until math.min(width, x + half + 1)) yield gray.getRaster.getSample(wx, wy, 0).toLong
+      val white = 100L * gray.getRaster.getSample(x, y, 0) * window.size > window.sum * 85L
+      assert(filtered.getRaster.getSample(x, y, 0) == (if (white) 1 else 0))
+    }
+  }
 }
@@ -44,4 +44,31 @@ class OpenNLPSuite extends FunSuite {
     val (words, tags) = tagText("")
     assert(words.length == 0 && tags.length == 0)
   }
+
+  /**
+    * Tests that the language of a long text is detected from its samples
+    */
+  test("OpenNLP detects the language of a long text from samples") {
+    val sentence = "Esta e uma frase de exemplo escrita em portugues para demonstrar que a deteccao da lingua funciona. "
+    val text = sentence * 2000
+    assert(detectLanguage(text) == "por")
+  }
+
+  /**
+    * Tests that only the beginning of a text is read when the detector is confident enough about it
+    */
+  test("OpenNLP stops sampling once it is confident") {
+    val english = "This is a random example to demonstrate that Open NLP will detect the correct language. "
+    val portuguese = "Esta e uma frase de exemplo escrita em portugues para demonstrar que a deteccao funciona. "
+    val text = english * 30 + portuguese * 3000
+    assert(detectLanguage(text, LanguageSampling(headChars = english.length * 30, confidenceThreshold = 0)) == "eng")
+  }
+
+  /**
+    * Tests that an invalid sampling is rejected
+    */
+  test("Invalid language sampling") {
+    assertThrows[IllegalArgumentException](LanguageSampling(confidenceThreshold = 2))
+    assertThrows[IllegalArgumentException](LanguageSampling(headChars = 0))
+  }
 }
@@ -0,0 +1,58 @@
+package parser.utils
+
+import java.text.Normalizer
+
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class TextNormalizerSuite extends FunSuite {
+
+  private def removeDiacritics(text: String): String =
+    Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("[\\p{InCombiningDiacriticalMarks}]", "")
+
+  /**
+    * Tests that folding the diacritics gives the same text as decomposing the whole text and removing its marks,
+    * including characters that decompose into more than one and marks outside of the Combining Diacritical Marks block
+    */
+  test("Fold diacritics as NFD and removing the marks") {
+    val texts = List("Informação pessoal: João Conceição, 25 anos", "Crème brûlée à la carte", "é and ǅ",
+      "Hangul 한국어", "क़ with a nukta", "plain ascii text", "")
+    texts.foreach(text => assert(TextNormalizer.pageText.normalize(text) == removeDiacritics(text), text))
+  }
+
+  /**
+    * Tests that the values normalization removes the new lines and trims the value, as the reader always did
+    */
+  test("Strip new lines and trim values") {
+    val values = List(" Margarida\r\nReis \n", "\n\n", "Lucas", "a\tb ")
+    values.foreach(value => assert(TextNormalizer.values.normalize(value) == value.replaceAll("[\\r\\n]", "").trim, value))
+  }
+
+  /**
+    * Tests that the steps are applied together in a single pass
+    */
+  test("Collapse whitespace and lowercase") {
+    val normalizer = TextNormalizer(foldDiacritics = true, collapseWhitespace = true, lowercase = true, trim = true)
+    assert(normalizer.normalize("  Olá\t\tMUNDO \n Ação  ") == "ola mundo acao")
+  }
+
+  /**
+    * Tests that texts the normalization wouldn't change are returned without being copied
+    */
+  test("Return normalized texts as they are") {
+    val text = "Margarida Reis"
+    assert(TextNormalizer.values.normalize(text) eq text)
+    assert(!TextNormalizer.values.isNormalized(" Margarida") && !TextNormalizer.pageText.isNormalized("Ação"))
+  }
+
+  /**
+    * Tests that normalizeInto appends each text to the buffer, so one buffer can be reused for every page
+    */
+  test("Normalize pages into a reused buffer") {
+    val buffer = new java.lang.StringBuilder("Página 1 ")
+    TextNormalizer.pageText.normalizeInto("Página 2", buffer)
+    assert(buffer.toString == "Página 1 Pagina 2")
+  }
+}